@@ -22,16 +22,11 @@ class CoroutineAndWorkManagerScheduler(foregroundContext: CoroutineContext, back
             .setRequiredNetworkType(NetworkType.CONNECTED)
             .build()
 
-        val workManagerInputData = Data.Builder().putAll(inputData).build()
-
-        val worker = spec.getWorkManagerAdapter()
-        val workRequest = OneTimeWorkRequest.Builder(worker)
-            .addTag(tag)
-            .setConstraints(constraints)
-            .setInputData(workManagerInputData)
-            .build()
+        enqueueOneTimeWork(tag, spec, inputData, constraints)
+    }
 
-        workManager.beginUniqueWork(tag, ExistingWorkPolicy.APPEND_OR_REPLACE, workRequest).enqueue()
+    override fun deferred(tag: String, spec: TaskSpec, inputData: Map<String, String>) {
+        enqueueOneTimeWork(tag, spec, inputData, Constraints.NONE)
     }
 
     override fun networkDeferred(tag: String, spec: TaskSpec, repeatPeriod: Long, inputData: Map<String, String>) {
@@ -68,6 +63,19 @@ class CoroutineAndWorkManagerScheduler(foregroundContext: CoroutineContext, back
         workManager.cancelAllWork()
     }
 
+    private fun enqueueOneTimeWork(tag: String, spec: TaskSpec, inputData: Map<String, String>, constraints: Constraints) {
+        val workManagerInputData = Data.Builder().putAll(inputData).build()
+
+        val worker = spec.getWorkManagerAdapter()
+        val workRequest = OneTimeWorkRequest.Builder(worker)
+            .addTag(tag)
+            .setConstraints(constraints)
+            .setInputData(workManagerInputData)
+            .build()
+
+        workManager.beginUniqueWork(tag, ExistingWorkPolicy.APPEND_OR_REPLACE, workRequest).enqueue()
+    }
+
     private fun isWorkManagerWorkRunning(tag: String): Boolean {
         val statuses = workManager.getWorkInfosByTag(tag)
         for (workInfo in statuses.get()) {
@@ -18,6 +18,7 @@ import org.odk.collect.android.support.rules.ResetStateRule;
 import org.odk.collect.android.tasks.FormLoaderTask;
 import org.odk.collect.android.utilities.FileUtils;
 import org.odk.collect.android.utilities.FormUtils;
+import org.odk.collect.shared.files.FileHashIndex;
 
 import java.io.File;
 import java.io.IOException;
@@ -49,7 +50,7 @@ public class FormUtilsTest {
     public void sessionRootTranslatorOrderDoesNotMatter() throws Exception {
         final String formPath = new StoragePathProvider().getOdkDirPath(StorageSubdirectory.FORMS) + File.separator + BASIC_FORM;
         // Load the form in order to populate the ReferenceManager
-        FormLoaderTask formLoaderTask = new FormLoaderTask(formPath, null, null, formEntryControllerFactory, mock());
+        FormLoaderTask formLoaderTask = new FormLoaderTask(formPath, null, null, formEntryControllerFactory, mock(), new FileHashIndex(null));
         formLoaderTask.executeSynchronously(formPath);
 
         final File formXml = new File(formPath);
@@ -25,6 +25,7 @@ import org.odk.collect.android.support.rules.TestRuleChain;
 import org.odk.collect.android.tasks.FormLoaderTask;
 import org.odk.collect.android.tasks.FormLoaderTask.FormEntryControllerFactory;
 import org.odk.collect.projects.Project;
+import org.odk.collect.shared.files.FileHashIndex;
 
 import java.io.File;
 import java.io.IOException;
@@ -67,7 +68,7 @@ public class FormLoaderTaskTest {
     @Test
     public void loadFormWithSecondaryCSV() throws Exception {
         final String formPath = storagePathProvider.getOdkDirPath(StorageSubdirectory.FORMS) + File.separator + SECONDARY_INSTANCE_EXTERNAL_CSV_FORM;
-        FormLoaderTask formLoaderTask = new FormLoaderTask(formPath, null, null, formEntryControllerFactory, mock());
+        FormLoaderTask formLoaderTask = new FormLoaderTask(formPath, null, null, formEntryControllerFactory, mock(), new FileHashIndex(null));
         FormLoaderTask.FECWrapper wrapper = formLoaderTask.executeSynchronously(formPath);
         Assert.assertNotNull(wrapper);
     }
@@ -76,7 +77,7 @@ public class FormLoaderTaskTest {
     @Test
     public void loadSearchFromExternalCSV() throws Exception {
         final String formPath = storagePathProvider.getOdkDirPath(StorageSubdirectory.FORMS) + File.separator + SIMPLE_SEARCH_EXTERNAL_CSV_FORM;
-        FormLoaderTask formLoaderTask = new FormLoaderTask(formPath, null, null, formEntryControllerFactory, mock());
+        FormLoaderTask formLoaderTask = new FormLoaderTask(formPath, null, null, formEntryControllerFactory, mock(), new FileHashIndex(null));
         FormLoaderTask.FECWrapper wrapper = formLoaderTask.executeSynchronously(formPath);
         assertThat(wrapper, notNullValue());
     }
@@ -84,7 +85,7 @@ public class FormLoaderTaskTest {
     @Test
     public void loadSearchFromexternalCsvLeavesFileUnchanged() throws Exception {
         final String formPath = storagePathProvider.getOdkDirPath(StorageSubdirectory.FORMS) + File.separator + SIMPLE_SEARCH_EXTERNAL_CSV_FORM;
-        FormLoaderTask formLoaderTask = new FormLoaderTask(formPath, null, null, formEntryControllerFactory, mock());
+        FormLoaderTask formLoaderTask = new FormLoaderTask(formPath, null, null, formEntryControllerFactory, mock(), new FileHashIndex(null));
         FormLoaderTask.FECWrapper wrapper = formLoaderTask.executeSynchronously(formPath);
         Assert.assertNotNull(wrapper);
         Assert.assertNotNull(wrapper.getController());
@@ -99,7 +100,7 @@ public class FormLoaderTaskTest {
     public void loadSearchFromExternalCSVmultipleTimes() throws Exception {
         final String formPath = storagePathProvider.getOdkDirPath(StorageSubdirectory.FORMS) + File.separator + SIMPLE_SEARCH_EXTERNAL_CSV_FORM;
         // initial load with side effects
-        FormLoaderTask formLoaderTask = new FormLoaderTask(formPath, null, null, formEntryControllerFactory, mock());
+        FormLoaderTask formLoaderTask = new FormLoaderTask(formPath, null, null, formEntryControllerFactory, mock(), new FileHashIndex(null));
         FormLoaderTask.FECWrapper wrapper = formLoaderTask.executeSynchronously(formPath);
         Assert.assertNotNull(wrapper);
         Assert.assertNotNull(wrapper.getController());
@@ -110,7 +111,7 @@ public class FormLoaderTaskTest {
         long dbLastModified = dbFile.lastModified();
 
         // subsequent load should succeed despite side effects from import
-        formLoaderTask = new FormLoaderTask(formPath, null, null, formEntryControllerFactory, mock());
+        formLoaderTask = new FormLoaderTask(formPath, null, null, formEntryControllerFactory, mock(), new FileHashIndex(null));
         wrapper = formLoaderTask.executeSynchronously(formPath);
         Assert.assertNotNull(wrapper);
         Assert.assertNotNull(wrapper.getController());
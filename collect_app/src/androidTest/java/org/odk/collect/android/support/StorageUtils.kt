@@ -58,7 +58,7 @@ object StorageUtils {
             val component = DaggerUtils.getComponent(ApplicationProvider.getApplicationContext<Application>())
             val formsRepository = component.formsRepositoryProvider().get()
             val formsDir = component.storagePathProvider().getOdkDirPath(StorageSubdirectory.FORMS)
-            LocalFormUseCases.synchronizeWithDisk(formsRepository, formsDir)
+            LocalFormUseCases.synchronizeWithDisk(formsRepository, formsDir, component.fileHashIndex())
         }
     }
 
@@ -67,6 +67,11 @@ public class TestScheduler implements Scheduler {
         deferredTasks.add(new DeferredTask(tag, spec, null, inputData));
     }
 
+    @Override
+    public void deferred(@NotNull String tag, @NotNull TaskSpec spec, @NotNull Map<String, String> inputData) {
+        deferredTasks.add(new DeferredTask(tag, spec, null, inputData));
+    }
+
     @Override
     public void networkDeferred(@NotNull String tag, @NotNull TaskSpec spec, long repeatPeriod, @NotNull Map<String, String> inputData) {
         cancelDeferred(tag);
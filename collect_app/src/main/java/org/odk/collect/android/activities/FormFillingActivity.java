@@ -98,6 +98,7 @@ import org.odk.collect.android.external.FormsContract;
 import org.odk.collect.android.external.InstancesContract;
 import org.odk.collect.android.formentry.BackgroundAudioPermissionDialogFragment;
 import org.odk.collect.android.formentry.BackgroundAudioViewModel;
+import org.odk.collect.android.formentry.FieldListAnswerSaver;
 import org.odk.collect.android.formentry.FormAnimation;
 import org.odk.collect.android.formentry.FormAnimationType;
 import org.odk.collect.android.formentry.FormEndView;
@@ -197,15 +198,16 @@ import org.odk.collect.permissions.PermissionsChecker;
 import org.odk.collect.permissions.PermissionsProvider;
 import org.odk.collect.settings.SettingsProvider;
 import org.odk.collect.settings.keys.ProjectKeys;
+import org.odk.collect.shared.files.FileHashIndex;
 import org.odk.collect.strings.localization.LocalizedActivity;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -322,6 +324,9 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
     @Inject
     Scheduler scheduler;
 
+    @Inject
+    FileHashIndex fileHashIndex;
+
     @Inject
     AudioRecorder audioRecorder;
 
@@ -697,7 +702,7 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
                     formEntryViewModel.refresh();
                 } else {
                     Timber.w("Reloading form and restoring state.");
-                    formLoaderTask = new FormLoaderTask(instancePath, startingXPath, waitingXPath, formEntryControllerFactory, scheduler);
+                    formLoaderTask = new FormLoaderTask(instancePath, startingXPath, waitingXPath, formEntryControllerFactory, scheduler, fileHashIndex);
                     showIfNotShowing(FormLoadingDialogFragment.class, getSupportFragmentManager());
                     formLoaderTask.execute(formPath);
                 }
@@ -741,7 +746,7 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
             instancePath = loadSavePoint();
         }
 
-        formLoaderTask = new FormLoaderTask(instancePath, startingXPath, waitingXPath, formEntryControllerFactory, scheduler);
+        formLoaderTask = new FormLoaderTask(instancePath, startingXPath, waitingXPath, formEntryControllerFactory, scheduler, fileHashIndex);
         formLoaderTask.setFormLoaderListener(this);
         showIfNotShowing(FormLoadingDialogFragment.class, getSupportFragmentManager());
         formLoaderTask.execute(formPath);
@@ -806,8 +811,16 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
      * see previous questions.
      */
     private void nonblockingCreateSavePointData() {
+        nonblockingCreateSavePointData(false);
+    }
+
+    /**
+     * @param compact write out the whole instance rather than just the answers that have changed
+     *                since the last save-point
+     */
+    private void nonblockingCreateSavePointData(boolean compact) {
         try {
-            SavePointTask savePointTask = new SavePointTask(this, getFormController());
+            SavePointTask savePointTask = new SavePointTask(this, getFormController(), compact);
             savePointTask.execute();
 
             if (!allowMovingBackwards) {
@@ -859,7 +872,7 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
             }
 
             // save the instance to a temp path...
-            nonblockingCreateSavePointData();
+            nonblockingCreateSavePointData(true);
         }
         outState.putBoolean(NEWFORM, false);
         outState.putParcelable(KEY_ERROR, formError);
@@ -979,11 +992,7 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
         ODKView odkView = getCurrentViewIfODKView();
 
         if (odkView != null) {
-            for (QuestionWidget qw : odkView.getWidgets()) {
-                if (waitingForDataRegistry.isWaitingForData(qw.getFormEntryPrompt().getIndex())) {
-                    return qw;
-                }
-            }
+            return odkView.getWidgetWaitingForData(waitingForDataRegistry);
         } else {
             Timber.e(new Error("currentView returned null."));
         }
@@ -993,13 +1002,10 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
     private void onAnswer(FormIndex index, IAnswerData answer) {
         ODKView currentViewIfODKView = getCurrentViewIfODKView();
         if (currentViewIfODKView != null) {
-            Optional<QuestionWidget> widgetForIndex = currentViewIfODKView.getWidgets().stream()
-                    .filter((widget) -> widget.getFormEntryPrompt().getIndex().equals(index))
-                    .findFirst();
-
-            widgetForIndex.ifPresent(questionWidget -> {
-                ((WidgetDataReceiver) questionWidget).setData(answer);
-            });
+            QuestionWidget widgetForIndex = currentViewIfODKView.getOrCreateWidget(index);
+            if (widgetForIndex != null) {
+                ((WidgetDataReceiver) widgetForIndex).setData(answer);
+            }
         }
     }
 
@@ -1007,25 +1013,17 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
         ODKView currentViewIfODKView = getCurrentViewIfODKView();
 
         if (currentViewIfODKView != null) {
-            boolean set = false;
-            for (QuestionWidget widget : currentViewIfODKView.getWidgets()) {
-                if (widget instanceof WidgetDataReceiver) {
-                    if (waitingForDataRegistry.isWaitingForData(widget.getFormEntryPrompt().getIndex())) {
-                        try {
-                            ((WidgetDataReceiver) widget).setData(data);
-                            waitingForDataRegistry.cancelWaitingForData();
-                        } catch (Exception e) {
-                            Timber.e(e);
-                            ToastUtils.showLongToast(this, currentViewIfODKView.getContext().getString(org.odk.collect.strings.R.string.error_attaching_binary_file,
-                                    e.getMessage()));
-                        }
-                        set = true;
-                        break;
-                    }
+            QuestionWidget widget = currentViewIfODKView.getWidgetWaitingForData(waitingForDataRegistry);
+            if (widget instanceof WidgetDataReceiver) {
+                try {
+                    ((WidgetDataReceiver) widget).setData(data);
+                    waitingForDataRegistry.cancelWaitingForData();
+                } catch (Exception e) {
+                    Timber.e(e);
+                    ToastUtils.showLongToast(this, currentViewIfODKView.getContext().getString(org.odk.collect.strings.R.string.error_attaching_binary_file,
+                            e.getMessage()));
                 }
-            }
-
-            if (!set) {
+            } else {
                 Timber.e(new Error("Attempting to return data to a widget or set of widgets not looking for data"));
             }
         }
@@ -1067,28 +1065,6 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
         return super.onOptionsItemSelected(item);
     }
 
-    // The method saves questions one by one in order to support calculations in field-list groups
-    private void saveAnswersForFieldList(FormEntryPrompt[] mutableQuestionsBeforeSave, List<ImmutableDisplayableQuestion> immutableQuestionsBeforeSave) {
-        FormController formController = getFormController();
-        ODKView currentView = getCurrentViewIfODKView();
-        if (formController == null || currentView == null) {
-            return;
-        }
-
-        int index = 0;
-        for (Map.Entry<FormIndex, IAnswerData> answer : currentView.getAnswers().entrySet()) {
-            // Questions with calculates will have their answers updated as the questions they depend on are saved
-            if (!isQuestionRecalculated(mutableQuestionsBeforeSave[index], immutableQuestionsBeforeSave.get(index))) {
-                try {
-                    formController.saveOneScreenAnswer(answer.getKey(), answer.getValue(), false);
-                } catch (JavaRosaException e) {
-                    Timber.e(e);
-                }
-            }
-            index++;
-        }
-    }
-
     /**
      * Clears the answer on the screen.
      */
@@ -1120,6 +1096,7 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
         } else {
             ODKView odkView = getCurrentViewIfODKView();
             if (odkView != null) {
+                // Only widgets that have been created have ids so there's no need to create any
                 for (QuestionWidget qw : odkView.getWidgets()) {
                     if (item.getItemId() == qw.getId()) {
                         createClearDialog(qw);
@@ -2303,6 +2280,7 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
     @Override
     public void onNumberPickerValueSelected(int widgetId, int value) {
         if (currentView != null) {
+            // The picker was opened from a widget so it will have been created
             for (QuestionWidget qw : ((ODKView) currentView).getWidgets()) {
                 if (qw instanceof RangePickerIntegerWidget && widgetId == qw.getId()) {
                     ((RangePickerIntegerWidget) qw).setNumberPickerValue(value);
@@ -2498,14 +2476,17 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
      * The widget corresponding to the {@param lastChangedIndex} is never changed.
      */
     private void updateFieldListQuestions(FormIndex lastChangedIndex) throws RepeatsInFieldListException {
-        // Save the user-visible state for all questions in this field-list
-        FormEntryPrompt[] questionsBeforeSave = getFormController().getQuestionPrompts();
-        List<ImmutableDisplayableQuestion> immutableQuestionsBeforeSave = new ArrayList<>();
+        // Save the user-visible state for the questions in this field-list that could be rebuilt
+        List<FormEntryPrompt> questionsBeforeSave = odkView.getQuestionPrompts();
+        List<ImmutableDisplayableQuestion> immutableQuestionsBeforeSave = new ArrayList<>(questionsBeforeSave.size());
         for (FormEntryPrompt questionBeforeSave : questionsBeforeSave) {
-            immutableQuestionsBeforeSave.add(new ImmutableDisplayableQuestion(questionBeforeSave));
+            // The widget for the last changed question is never rebuilt so it doesn't need a snapshot
+            immutableQuestionsBeforeSave.add(lastChangedIndex.equals(questionBeforeSave.getIndex())
+                    ? null
+                    : new ImmutableDisplayableQuestion(questionBeforeSave));
         }
 
-        saveAnswersForFieldList(questionsBeforeSave, immutableQuestionsBeforeSave);
+        FieldListAnswerSaver.saveChangedAnswers(getFormController(), questionsBeforeSave, odkView.getAnswers());
 
         FormEntryPrompt[] questionsAfterSave = getFormController().getQuestionPrompts();
 
@@ -2519,16 +2500,20 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
         // starts from the end and itemset-based select choices will only be correctly recomputed
         // if accessed from beginning to end because the call on sameAs is what calls
         // populateDynamicChoices. See https://github.com/getodk/javarosa/issues/436
-        List<FormEntryPrompt> questionsThatHaveNotChanged = new ArrayList<>();
-        List<FormIndex> formIndexesToRemove = new ArrayList<>();
+        Set<FormIndex> questionsThatHaveNotChanged = new HashSet<>();
+        Set<FormIndex> formIndexesToRemove = new HashSet<>();
         for (ImmutableDisplayableQuestion questionBeforeSave : immutableQuestionsBeforeSave) {
+            if (questionBeforeSave == null) {
+                continue;
+            }
+
             FormEntryPrompt questionAtSameFormIndex = questionsAfterSaveByIndex.get(questionBeforeSave.getFormIndex());
 
             // Always rebuild questions that use database-driven external data features since they
             // bypass SelectChoices stored in ImmutableDisplayableQuestion
             if (questionBeforeSave.sameAs(questionAtSameFormIndex)
                     && !getFormController().usesDatabaseExternalDataFeature(questionBeforeSave.getFormIndex())) {
-                questionsThatHaveNotChanged.add(questionAtSameFormIndex);
+                questionsThatHaveNotChanged.add(questionAtSameFormIndex.getIndex());
             } else if (!lastChangedIndex.equals(questionBeforeSave.getFormIndex())) {
                 formIndexesToRemove.add(questionBeforeSave.getFormIndex());
             }
@@ -2537,13 +2522,13 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
         for (int i = immutableQuestionsBeforeSave.size() - 1; i >= 0; i--) {
             ImmutableDisplayableQuestion questionBeforeSave = immutableQuestionsBeforeSave.get(i);
 
-            if (formIndexesToRemove.contains(questionBeforeSave.getFormIndex())) {
+            if (questionBeforeSave != null && formIndexesToRemove.contains(questionBeforeSave.getFormIndex())) {
                 odkView.removeWidgetAt(i);
             }
         }
 
         for (int i = 0; i < questionsAfterSave.length; i++) {
-            if (!questionsThatHaveNotChanged.contains(questionsAfterSave[i])
+            if (!questionsThatHaveNotChanged.contains(questionsAfterSave[i].getIndex())
                     && !questionsAfterSave[i].getIndex().equals(lastChangedIndex)) {
                 // The values of widgets in intent groups are set by the view so widgetValueChanged
                 // is never called. This means readOnlyOverride can always be set to false.
@@ -2552,11 +2537,6 @@ public class FormFillingActivity extends LocalizedActivity implements AnimationL
         }
     }
 
-    // If an answer has changed after saving one of previous answers that means it has been recalculated automatically
-    private boolean isQuestionRecalculated(FormEntryPrompt mutableQuestionBeforeSave, ImmutableDisplayableQuestion immutableQuestionBeforeSave) {
-        return !Objects.equals(mutableQuestionBeforeSave.getAnswerText(), immutableQuestionBeforeSave.getAnswerText());
-    }
-
     private HashMap<FormIndex, IAnswerData> getAnswers() {
         ODKView currentViewIfODKView = getCurrentViewIfODKView();
 
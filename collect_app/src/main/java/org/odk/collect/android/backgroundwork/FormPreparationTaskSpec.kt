@@ -0,0 +1,86 @@
+package org.odk.collect.android.backgroundwork
+
+import android.content.Context
+import androidx.work.BackoffPolicy
+import androidx.work.WorkerParameters
+import org.odk.collect.android.formmanagement.FormMediaPreparer
+import org.odk.collect.android.formmanagement.FormPreparer
+import org.odk.collect.android.injection.DaggerUtils
+import org.odk.collect.android.storage.StoragePathProvider
+import org.odk.collect.android.storage.StorageSubdirectory
+import org.odk.collect.async.Scheduler
+import org.odk.collect.async.TaskSpec
+import org.odk.collect.async.WorkerAdapter
+import org.odk.collect.forms.Form
+import org.odk.collect.shared.files.FileHashIndex
+import java.io.File
+import java.util.function.Supplier
+import javax.inject.Inject
+
+/**
+ * Imports a downloaded form's external data and itemsets in the background so that opening it
+ * for the first time is as quick as opening it again.
+ */
+class FormPreparationTaskSpec : TaskSpec {
+    @Inject
+    lateinit var storagePathProvider: StoragePathProvider
+
+    @Inject
+    lateinit var fileHashIndex: FileHashIndex
+
+    override val maxRetries: Int? = null
+    override val backoffPolicy: BackoffPolicy? = null
+    override val backoffDelay: Long? = null
+
+    override fun getTask(context: Context, inputData: Map<String, String>, isLastUniqueExecution: Boolean): Supplier<Boolean> {
+        DaggerUtils.getComponent(context).inject(this)
+        return Supplier {
+            val projectId = inputData[TaskData.DATA_PROJECT_ID]
+            val formPath = inputData[DATA_FORM_PATH]
+            val formMediaPath = inputData[DATA_FORM_MEDIA_PATH]
+            if (projectId != null && formPath != null && formMediaPath != null) {
+                FormMediaPreparer.prepare(
+                    File(formPath),
+                    File(formMediaPath),
+                    storagePathProvider.getOdkDirPath(StorageSubdirectory.METADATA, projectId),
+                    storagePathProvider.getOdkDirPath(StorageSubdirectory.FORMS, projectId),
+                    fileHashIndex
+                )
+                true
+            } else {
+                throw IllegalArgumentException("No project ID or form provided!")
+            }
+        }
+    }
+
+    override fun getWorkManagerAdapter(): Class<out WorkerAdapter> {
+        return Adapter::class.java
+    }
+
+    class Adapter(context: Context, workerParams: WorkerParameters) :
+        WorkerAdapter(FormPreparationTaskSpec(), context, workerParams)
+
+    companion object {
+        const val DATA_FORM_PATH = "formPath"
+        const val DATA_FORM_MEDIA_PATH = "formMediaPath"
+
+        /**
+         * A [FormPreparer] that schedules this task for forms in [projectId].
+         */
+        @JvmStatic
+        fun preparer(scheduler: Scheduler, projectId: String): FormPreparer {
+            return FormPreparer { form: Form ->
+                // Preparation only reads files that have already been downloaded
+                scheduler.deferred(
+                    "form_preparation:${form.formMediaPath}",
+                    FormPreparationTaskSpec(),
+                    mapOf(
+                        TaskData.DATA_PROJECT_ID to projectId,
+                        DATA_FORM_PATH to form.formFilePath,
+                        DATA_FORM_MEDIA_PATH to form.formMediaPath
+                    )
+                )
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.odk.collect.android.database.entities
+
+import android.content.ContentValues
+import android.content.Context
+import android.database.sqlite.SQLiteDatabase
+import android.provider.BaseColumns._ID
+import org.odk.collect.android.database.DatabaseConnection
+import org.odk.collect.android.database.DatabaseConstants.ENTITIES_DATABASE_NAME
+import org.odk.collect.android.database.DatabaseConstants.ENTITIES_DATABASE_VERSION
+import org.odk.collect.android.database.DatabaseConstants.ENTITIES_TABLE_NAME
+import org.odk.collect.android.database.DatabaseConstants.ENTITY_PROPERTIES_TABLE_NAME
+import org.odk.collect.android.database.entities.DatabaseEntityColumns.DATASET
+import org.odk.collect.android.database.entities.DatabaseEntityColumns.ENTITY
+import org.odk.collect.android.database.entities.DatabaseEntityColumns.ENTITY_ID
+import org.odk.collect.android.database.entities.DatabaseEntityColumns.NAME
+import org.odk.collect.android.database.entities.DatabaseEntityColumns.POSITION
+import org.odk.collect.android.database.entities.DatabaseEntityColumns.VALUE
+import org.odk.collect.entities.EntitiesRepository
+import org.odk.collect.entities.Entity
+
+/**
+ * Mediates between [Entity] objects and the underlying SQLite database that stores them. Each
+ * entity is a row in the entities table with its properties stored (in order) as rows in the
+ * properties table.
+ */
+class DatabaseEntitiesRepository(context: Context, dbPath: String) : EntitiesRepository {
+
+    private val databaseConnection = DatabaseConnection(
+        context,
+        dbPath,
+        ENTITIES_DATABASE_NAME,
+        EntityDatabaseMigrator(),
+        ENTITIES_DATABASE_VERSION
+    )
+
+    override fun save(entity: Entity) {
+        val database = databaseConnection.writeableDatabase
+        database.beginTransaction()
+        try {
+            val existingId = entity.id?.let { getDatabaseId(database, entity.dataset, it) }
+            val databaseId = if (existingId != null) {
+                database.delete(ENTITY_PROPERTIES_TABLE_NAME, "$ENTITY = ?", arrayOf(existingId.toString()))
+                existingId
+            } else {
+                database.insertOrThrow(
+                    ENTITIES_TABLE_NAME,
+                    null,
+                    ContentValues().apply {
+                        put(DATASET, entity.dataset)
+                        put(ENTITY_ID, entity.id)
+                    }
+                )
+            }
+
+            database.compileStatement(
+                "INSERT INTO $ENTITY_PROPERTIES_TABLE_NAME ($ENTITY, $POSITION, $NAME, $VALUE) VALUES (?, ?, ?, ?)"
+            ).use { insert ->
+                entity.properties.forEachIndexed { position, (name, value) ->
+                    insert.bindLong(1, databaseId)
+                    insert.bindLong(2, position.toLong())
+                    insert.bindString(3, name)
+                    insert.bindString(4, value)
+                    insert.executeInsert()
+                }
+            }
+
+            database.setTransactionSuccessful()
+        } finally {
+            database.endTransaction()
+        }
+    }
+
+    override fun getDatasets(): Set<String> {
+        return databaseConnection.readableDatabase.query(
+            true,
+            ENTITIES_TABLE_NAME,
+            arrayOf(DATASET),
+            null,
+            null,
+            null,
+            null,
+            null,
+            null
+        ).use { cursor ->
+            val datasets = mutableSetOf<String>()
+            while (cursor.moveToNext()) {
+                datasets.add(cursor.getString(0))
+            }
+
+            datasets
+        }
+    }
+
+    override fun getEntities(dataset: String): List<Entity> {
+        return getEntities(dataset, null, null, 0, Int.MAX_VALUE)
+    }
+
+    override fun getEntities(
+        dataset: String,
+        property: String?,
+        value: String?,
+        offset: Int,
+        limit: Int
+    ): List<Entity> {
+        val selection = StringBuilder("$DATASET = ?")
+        val selectionArgs = mutableListOf(dataset)
+        if (property != null) {
+            selection.append(" AND $_ID IN (SELECT $ENTITY FROM $ENTITY_PROPERTIES_TABLE_NAME WHERE $NAME = ? AND $VALUE ")
+            if (value != null) {
+                selection.append("= ?)")
+                selectionArgs.add(property)
+                selectionArgs.add(value)
+            } else {
+                selection.append("IS NULL)")
+                selectionArgs.add(property)
+            }
+        }
+
+        val entities = linkedMapOf<Long, Pair<String?, MutableList<Pair<String, String>>>>()
+        databaseConnection.readableDatabase.rawQuery(
+            "SELECT e.$_ID, e.$ENTITY_ID, p.$NAME, p.$VALUE " +
+                "FROM (SELECT $_ID, $ENTITY_ID FROM $ENTITIES_TABLE_NAME WHERE $selection ORDER BY $_ID LIMIT $limit OFFSET $offset) e " +
+                "LEFT JOIN $ENTITY_PROPERTIES_TABLE_NAME p ON p.$ENTITY = e.$_ID " +
+                "ORDER BY e.$_ID, p.$POSITION",
+            selectionArgs.toTypedArray()
+        ).use { cursor ->
+            while (cursor.moveToNext()) {
+                val (_, properties) = entities.getOrPut(cursor.getLong(0)) {
+                    Pair(cursor.getString(1), mutableListOf())
+                }
+
+                if (!cursor.isNull(2)) {
+                    properties.add(Pair(cursor.getString(2), cursor.getString(3) ?: ""))
+                }
+            }
+        }
+
+        return entities.values.map { (id, properties) -> Entity(dataset, properties, id) }
+    }
+
+    private fun getDatabaseId(database: SQLiteDatabase, dataset: String, id: String): Long? {
+        return database.query(
+            ENTITIES_TABLE_NAME,
+            arrayOf(_ID),
+            "$DATASET = ? AND $ENTITY_ID = ?",
+            arrayOf(dataset, id),
+            null,
+            null,
+            null
+        ).use { cursor ->
+            if (cursor.moveToFirst()) {
+                cursor.getLong(0)
+            } else {
+                null
+            }
+        }
+    }
+}
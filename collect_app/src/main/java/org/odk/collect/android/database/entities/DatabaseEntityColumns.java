@@ -0,0 +1,19 @@
+package org.odk.collect.android.database.entities;
+
+import android.provider.BaseColumns;
+
+public final class DatabaseEntityColumns implements BaseColumns {
+
+    private DatabaseEntityColumns() {
+    }
+
+    // entities table
+    public static final String DATASET = "dataset";
+    public static final String ENTITY_ID = "entityId";
+
+    // entity properties table
+    public static final String ENTITY = "entity";
+    public static final String POSITION = "position";
+    public static final String NAME = "name";
+    public static final String VALUE = "value";
+}
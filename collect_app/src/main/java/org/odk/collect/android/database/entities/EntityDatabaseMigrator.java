@@ -0,0 +1,67 @@
+package org.odk.collect.android.database.entities;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.odk.collect.android.database.DatabaseMigrator;
+import org.odk.collect.android.utilities.SQLiteUtils;
+
+import static android.provider.BaseColumns._ID;
+import static org.odk.collect.android.database.DatabaseConstants.ENTITIES_TABLE_NAME;
+import static org.odk.collect.android.database.DatabaseConstants.ENTITY_PROPERTIES_TABLE_NAME;
+import static org.odk.collect.android.database.entities.DatabaseEntityColumns.DATASET;
+import static org.odk.collect.android.database.entities.DatabaseEntityColumns.ENTITY;
+import static org.odk.collect.android.database.entities.DatabaseEntityColumns.ENTITY_ID;
+import static org.odk.collect.android.database.entities.DatabaseEntityColumns.NAME;
+import static org.odk.collect.android.database.entities.DatabaseEntityColumns.POSITION;
+import static org.odk.collect.android.database.entities.DatabaseEntityColumns.VALUE;
+
+import timber.log.Timber;
+
+public class EntityDatabaseMigrator implements DatabaseMigrator {
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        createEntitiesTablesV1(db);
+    }
+
+    @Override
+    @SuppressWarnings({"checkstyle:FallThrough"})
+    public void onUpgrade(SQLiteDatabase db, int oldVersion) {
+        Timber.w("Entities db upgrade from version: %s", oldVersion);
+        switch (oldVersion) {
+            case 1:
+                // Remember to bump the database version number in {@link org.odk.collect.android.database.DatabaseConstants}
+                // upgradeToVersion2(db);
+            default:
+                Timber.i("Unknown version %d", oldVersion);
+        }
+    }
+
+    @Override
+    public void onDowngrade(SQLiteDatabase db) {
+        SQLiteUtils.dropTable(db, ENTITY_PROPERTIES_TABLE_NAME);
+        SQLiteUtils.dropTable(db, ENTITIES_TABLE_NAME);
+        createEntitiesTablesV1(db);
+    }
+
+    private void createEntitiesTablesV1(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + ENTITIES_TABLE_NAME + " ("
+                + _ID + " integer PRIMARY KEY AUTOINCREMENT, "
+                + DATASET + " text NOT NULL, "
+                + ENTITY_ID + " text);");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + ENTITY_PROPERTIES_TABLE_NAME + " ("
+                + ENTITY + " integer NOT NULL REFERENCES " + ENTITIES_TABLE_NAME + "(" + _ID + ") ON DELETE CASCADE, "
+                + POSITION + " integer NOT NULL, "
+                + NAME + " text NOT NULL, "
+                + VALUE + " text);");
+
+        // Entities without an id can't be updated so they're allowed to repeat
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + ENTITIES_TABLE_NAME + "_" + DATASET + "_" + ENTITY_ID
+                + " ON " + ENTITIES_TABLE_NAME + " (" + DATASET + ", " + ENTITY_ID + ");");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + ENTITY_PROPERTIES_TABLE_NAME + "_" + ENTITY
+                + " ON " + ENTITY_PROPERTIES_TABLE_NAME + " (" + ENTITY + ", " + POSITION + ");");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + ENTITY_PROPERTIES_TABLE_NAME + "_" + NAME + "_" + VALUE
+                + " ON " + ENTITY_PROPERTIES_TABLE_NAME + " (" + NAME + ", " + VALUE + ", " + ENTITY + ");");
+    }
+}
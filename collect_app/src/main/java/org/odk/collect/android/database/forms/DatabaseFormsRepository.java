@@ -13,16 +13,21 @@ import org.odk.collect.android.database.DatabaseConnection;
 import org.odk.collect.android.database.DatabaseConstants;
 import org.odk.collect.android.utilities.FileUtils;
 import org.odk.collect.forms.Form;
+import org.odk.collect.forms.FormVersion;
 import org.odk.collect.forms.FormsRepository;
 import org.odk.collect.shared.files.DirectoryUtils;
-import org.odk.collect.shared.strings.Md5;
+import org.odk.collect.shared.files.FileHashIndex;
 
 import java.io.File;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
@@ -39,6 +44,8 @@ import static org.odk.collect.android.database.forms.DatabaseFormColumns.JRCACHE
 import static org.odk.collect.android.database.forms.DatabaseFormColumns.JR_FORM_ID;
 import static org.odk.collect.android.database.forms.DatabaseFormColumns.JR_VERSION;
 import static org.odk.collect.android.database.forms.DatabaseFormColumns.MD5_HASH;
+import static org.odk.collect.android.utilities.SQLiteUtils.MAX_SELECTION_ARGS;
+import static org.odk.collect.android.utilities.SQLiteUtils.getInSelection;
 import static org.odk.collect.shared.PathUtils.getRelativeFilePath;
 
 import timber.log.Timber;
@@ -49,11 +56,13 @@ public class DatabaseFormsRepository implements FormsRepository {
     private final String formsPath;
     private final String cachePath;
     private final Supplier<Long> clock;
+    private final FileHashIndex fileHashIndex;
 
-    public DatabaseFormsRepository(Context context, String dbPath, String formsPath, String cachePath, Supplier<Long> clock) {
+    public DatabaseFormsRepository(Context context, String dbPath, String formsPath, String cachePath, Supplier<Long> clock, FileHashIndex fileHashIndex) {
         this.formsPath = formsPath;
         this.cachePath = cachePath;
         this.clock = clock;
+        this.fileHashIndex = fileHashIndex;
         this.databaseConnection = new DatabaseConnection(
                 context,
                 dbPath,
@@ -80,6 +89,29 @@ public class DatabaseFormsRepository implements FormsRepository {
         }
     }
 
+    @Override
+    public Map<FormVersion, Form> getLatestByFormIdsAndVersions(Collection<FormVersion> formVersions) {
+        Set<FormVersion> requested = new HashSet<>(formVersions);
+        Set<String> formIds = new HashSet<>();
+        for (FormVersion formVersion : requested) {
+            formIds.add(formVersion.getFormId());
+        }
+
+        List<String> formIdList = new ArrayList<>(formIds);
+        Map<FormVersion, Form> latest = new HashMap<>();
+        for (int start = 0; start < formIdList.size(); start += MAX_SELECTION_ARGS) {
+            List<String> chunk = formIdList.subList(start, Math.min(start + MAX_SELECTION_ARGS, formIdList.size()));
+            for (Form form : queryForForms(getInSelection(JR_FORM_ID, chunk.size()), chunk.toArray(new String[0]))) {
+                FormVersion formVersion = new FormVersion(form.getFormId(), form.getVersion());
+                if (requested.contains(formVersion)) {
+                    latest.merge(formVersion, form, (current, other) -> other.getDate() > current.getDate() ? other : current);
+                }
+            }
+        }
+
+        return latest;
+    }
+
     @Nullable
     @Override
     public Form getOneByPath(String path) {
@@ -138,7 +170,7 @@ public class DatabaseFormsRepository implements FormsRepository {
     public Form save(@NotNull Form form) {
         final ContentValues values = getValuesFromForm(form, formsPath);
 
-        String md5Hash = Md5.getMd5Hash(new File(form.getFormFilePath()));
+        String md5Hash = fileHashIndex.getMd5Hash(new File(form.getFormFilePath()));
         values.put(MD5_HASH, md5Hash);
         values.put(FORM_MEDIA_PATH, getRelativeFilePath(formsPath, FileUtils.constructMediaPath(form.getFormFilePath())));
         values.put(JRCACHE_FILE_PATH, md5Hash + ".formdef");
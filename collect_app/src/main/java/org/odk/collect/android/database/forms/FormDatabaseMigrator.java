@@ -43,6 +43,7 @@ public class FormDatabaseMigrator implements DatabaseMigrator {
 
     public void onCreate(SQLiteDatabase db) {
         createFormsTableV12(db);
+        upgradeToVersion13(db);
     }
 
     @SuppressWarnings({"checkstyle:FallThrough"})
@@ -70,16 +71,19 @@ public class FormDatabaseMigrator implements DatabaseMigrator {
                 upgradeToVersion11(db);
             case 11:
                 upgradeToVersion12(db);
-                break;
             case 12:
+                upgradeToVersion13(db);
+                break;
+            case 13:
                 // Remember to bump the database version number in {@link org.odk.collect.android.database.DatabaseConstants}
-                // upgradeToVersion13(db);
+                // upgradeToVersion14(db);
         }
     }
 
     public void onDowngrade(SQLiteDatabase db) throws SQLException {
         SQLiteUtils.dropTable(db, FORMS_TABLE_NAME);
         createFormsTableV12(db);
+        upgradeToVersion13(db);
     }
 
     private void upgradeToVersion2(SQLiteDatabase db) {
@@ -265,6 +269,12 @@ public class FormDatabaseMigrator implements DatabaseMigrator {
         SQLiteUtils.addColumn(db, FORMS_TABLE_NAME, LAST_DETECTED_ATTACHMENTS_UPDATE_DATE, "integer");
     }
 
+    private void upgradeToVersion13(SQLiteDatabase db) {
+        // md5Hash is already indexed by its UNIQUE constraint
+        SQLiteUtils.createIndex(db, FORMS_TABLE_NAME, JR_FORM_ID, JR_VERSION);
+        SQLiteUtils.createIndex(db, FORMS_TABLE_NAME, FORM_FILE_PATH);
+    }
+
     private void createFormsTableV4(SQLiteDatabase db, String tableName) {
         db.execSQL("CREATE TABLE IF NOT EXISTS " + tableName + " ("
                 + _ID + " integer primary key, "
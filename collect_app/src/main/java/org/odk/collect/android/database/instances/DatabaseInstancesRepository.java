@@ -3,18 +3,23 @@ package org.odk.collect.android.database.instances;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteQueryBuilder;
 
 import org.odk.collect.android.database.DatabaseConnection;
 import org.odk.collect.android.database.DatabaseConstants;
+import org.odk.collect.forms.FormVersion;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.instances.InstancesRepository;
 import org.odk.collect.shared.files.DirectoryUtils;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
 import static android.provider.BaseColumns._ID;
@@ -32,6 +37,8 @@ import static org.odk.collect.android.database.instances.DatabaseInstanceColumns
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.LAST_STATUS_CHANGE_DATE;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.STATUS;
 import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.SUBMISSION_URI;
+import static org.odk.collect.android.utilities.SQLiteUtils.MAX_SELECTION_ARGS;
+import static org.odk.collect.android.utilities.SQLiteUtils.getInSelection;
 import static org.odk.collect.shared.PathUtils.getRelativeFilePath;
 
 /**
@@ -81,6 +88,25 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
         }
     }
 
+    @Override
+    public List<Instance> getAllByPaths(Collection<String> instancePaths) {
+        List<String> relativePaths = new ArrayList<>();
+        for (String instancePath : instancePaths) {
+            relativePaths.add(getRelativeFilePath(instancesPath, instancePath));
+        }
+
+        List<Instance> instances = new ArrayList<>();
+        for (int start = 0; start < relativePaths.size(); start += MAX_SELECTION_ARGS) {
+            List<String> chunk = relativePaths.subList(start, Math.min(start + MAX_SELECTION_ARGS, relativePaths.size()));
+            String selection = getInSelection(INSTANCE_FILE_PATH, chunk.size());
+            try (Cursor cursor = query(null, selection, chunk.toArray(new String[0]), null)) {
+                instances.addAll(getInstancesFromCursor(cursor, instancesPath));
+            }
+        }
+
+        return instances;
+    }
+
     @Override
     public List<Instance> getAll() {
         try (Cursor cursor = query(null, null, null, null)) {
@@ -104,8 +130,39 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
 
     @Override
     public int getCountByStatus(String... status) {
-        try (Cursor cursorForAllByStatus = getCursorForAllByStatus(status)) {
-            return cursorForAllByStatus.getCount();
+        return (int) DatabaseUtils.queryNumEntries(databaseConnection.getReadableDatabase(), INSTANCES_TABLE_NAME, getSelectionForStatus(status), status);
+    }
+
+    @Override
+    public Map<String, Integer> getCountsByStatus() {
+        String[] projection = {STATUS, "COUNT(*)"};
+
+        Map<String, Integer> counts = new HashMap<>();
+        try (Cursor cursor = databaseConnection.getReadableDatabase().query(INSTANCES_TABLE_NAME, projection, null, null, STATUS, null, null)) {
+            while (cursor.moveToNext()) {
+                counts.put(cursor.getString(0), cursor.getInt(1));
+            }
+        }
+
+        return counts;
+    }
+
+    @Override
+    public boolean hasInstancesWithStatus(String... status) {
+        String query = "SELECT EXISTS(SELECT 1 FROM " + INSTANCES_TABLE_NAME + " WHERE " + getSelectionForStatus(status) + ")";
+        return DatabaseUtils.longForQuery(databaseConnection.getReadableDatabase(), query, status) == 1;
+    }
+
+    @Override
+    public Long getLastStatusChangeDateByStatus(String... status) {
+        String[] projection = {"MAX(" + LAST_STATUS_CHANGE_DATE + ")"};
+
+        try (Cursor cursor = query(projection, getSelectionForStatus(status), status, null)) {
+            if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            } else {
+                return null;
+            }
         }
     }
 
@@ -130,6 +187,23 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
         }
     }
 
+    @Override
+    public Map<FormVersion, Long> getLastStatusChangeDatesByFormVersion() {
+        String[] projection = {JR_FORM_ID, JR_VERSION, "MAX(" + LAST_STATUS_CHANGE_DATE + ")"};
+        String groupBy = JR_FORM_ID + ", " + JR_VERSION;
+
+        Map<FormVersion, Long> dates = new HashMap<>();
+        try (Cursor cursor = databaseConnection.getReadableDatabase().query(INSTANCES_TABLE_NAME, projection, null, null, groupBy, null, null)) {
+            while (cursor.moveToNext()) {
+                if (!cursor.isNull(2)) {
+                    dates.put(new FormVersion(cursor.getString(0), cursor.getString(1)), cursor.getLong(2));
+                }
+            }
+        }
+
+        return dates;
+    }
+
     @Override
     public void delete(Long id) {
         Instance instance = get(id);
@@ -204,12 +278,16 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
     }
 
     private Cursor getCursorForAllByStatus(String[] status) {
+        return query(null, getSelectionForStatus(status), status, null);
+    }
+
+    private static String getSelectionForStatus(String[] status) {
         StringBuilder selection = new StringBuilder(STATUS + "=?");
         for (int i = 1; i < status.length; i++) {
             selection.append(" or ").append(STATUS).append("=?");
         }
 
-        return query(null, selection.toString(), status, null);
+        return selection.toString();
     }
 
     private Cursor query(String[] projection, String selection, String[] selectionArgs, String sortOrder) {
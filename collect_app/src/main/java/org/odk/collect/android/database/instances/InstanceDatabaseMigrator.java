@@ -38,6 +38,7 @@ public class InstanceDatabaseMigrator implements DatabaseMigrator {
     public void onCreate(SQLiteDatabase db) {
         createInstancesTableV5(db, INSTANCES_TABLE_NAME);
         upgradeToVersion6(db, INSTANCES_TABLE_NAME);
+        upgradeToVersion7(db);
     }
 
     @SuppressWarnings({"checkstyle:FallThrough"})
@@ -54,10 +55,12 @@ public class InstanceDatabaseMigrator implements DatabaseMigrator {
                 upgradeToVersion5(db);
             case 5:
                 upgradeToVersion6(db, INSTANCES_TABLE_NAME);
-                break;
             case 6:
+                upgradeToVersion7(db);
+                break;
+            case 7:
                 // Remember to bump the database version number in {@link org.odk.collect.android.database.DatabaseConstants}
-                // upgradeToVersion7(db);
+                // upgradeToVersion8(db);
             default:
                 Timber.i("Unknown version %d", oldVersion);
         }
@@ -69,6 +72,7 @@ public class InstanceDatabaseMigrator implements DatabaseMigrator {
         upgradeToVersion6(db, temporaryTableName);
 
         dropObsoleteColumns(db, CURRENT_VERSION_COLUMN_NAMES, temporaryTableName);
+        upgradeToVersion7(db);
     }
 
     private void upgradeToVersion2(SQLiteDatabase db) {
@@ -137,6 +141,17 @@ public class InstanceDatabaseMigrator implements DatabaseMigrator {
         SQLiteUtils.addColumn(db, name, GEOMETRY_TYPE, "text");
     }
 
+    /**
+     * Indexes the columns instances are looked up, counted and grouped by. The form index includes
+     * the last status change date so that the latest instance of each form can be found without
+     * reading the table.
+     */
+    private void upgradeToVersion7(SQLiteDatabase db) {
+        SQLiteUtils.createIndex(db, INSTANCES_TABLE_NAME, STATUS);
+        SQLiteUtils.createIndex(db, INSTANCES_TABLE_NAME, JR_FORM_ID, JR_VERSION, LAST_STATUS_CHANGE_DATE);
+        SQLiteUtils.createIndex(db, INSTANCES_TABLE_NAME, INSTANCE_FILE_PATH);
+    }
+
     private void createInstancesTableV5(SQLiteDatabase db, String name) {
         db.execSQL("CREATE TABLE IF NOT EXISTS " + name + " ("
                 + _ID + " integer primary key, "
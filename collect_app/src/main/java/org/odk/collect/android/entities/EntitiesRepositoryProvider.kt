@@ -1,21 +1,20 @@
 package org.odk.collect.android.entities
 
 import android.app.Application
-import org.odk.collect.androidshared.data.getState
+import org.odk.collect.android.database.entities.DatabaseEntitiesRepository
+import org.odk.collect.android.storage.StoragePathProvider
+import org.odk.collect.android.storage.StorageSubdirectory
 import org.odk.collect.entities.EntitiesRepository
 
-class EntitiesRepositoryProvider(application: Application) {
-
-    private val repositories =
-        application.getState().get(MAP_KEY, mutableMapOf<String, EntitiesRepository>())
+class EntitiesRepositoryProvider @JvmOverloads constructor(
+    private val application: Application,
+    private val storagePathProvider: StoragePathProvider = StoragePathProvider()
+) {
 
     fun get(projectId: String): EntitiesRepository {
-        return repositories.getOrPut(projectId) {
-            InMemEntitiesRepository()
-        }
-    }
-
-    companion object {
-        private const val MAP_KEY = "entities_repository_map"
+        return DatabaseEntitiesRepository(
+            application,
+            storagePathProvider.getOdkDirPath(StorageSubdirectory.METADATA, projectId)
+        )
     }
 }
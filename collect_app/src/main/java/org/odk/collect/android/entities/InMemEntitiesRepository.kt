@@ -15,7 +15,30 @@ class InMemEntitiesRepository : EntitiesRepository {
         return entities.filter { it.dataset == dataset }
     }
 
+    override fun getEntities(
+        dataset: String,
+        property: String?,
+        value: String?,
+        offset: Int,
+        limit: Int
+    ): List<Entity> {
+        return entities.asSequence()
+            .filter { it.dataset == dataset }
+            .filter { property == null || it.properties.contains(Pair(property, value)) }
+            .drop(offset)
+            .take(limit)
+            .toList()
+    }
+
     override fun save(entity: Entity) {
-        entities.add(entity)
+        val existing = entities.indexOfFirst {
+            entity.id != null && it.dataset == entity.dataset && it.id == entity.id
+        }
+
+        if (existing != -1) {
+            entities[existing] = entity
+        } else {
+            entities.add(entity)
+        }
     }
 }
@@ -18,14 +18,28 @@
 
 package org.odk.collect.android.externaldata;
 
+import static org.odk.collect.strings.localization.LocalizedApplicationKt.getLocalizedString;
+
 import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
 
 import org.apache.commons.io.FileUtils;
+import org.odk.collect.android.application.Collect;
+import org.odk.collect.android.exception.ExternalDataException;
 import org.odk.collect.android.tasks.FormLoaderTask;
+import org.odk.collect.shared.files.FileHashIndex;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import timber.log.Timber;
 
@@ -33,35 +47,102 @@ import timber.log.Timber;
  * Author: Meletis Margaritis
  * Date: 30/04/13
  * Time: 09:32
+ * <p>
+ * Each data set is imported into its own database so when there are several they are imported
+ * concurrently (at most one per core). If one of them fails the others are stopped and rolled
+ * back just as they would be if the import was cancelled.
  */
 public class ExternalDataReaderImpl implements ExternalDataReader {
 
+    private static final long PROGRESS_INTERVAL_MILLIS = 500;
+
     private final FormLoaderTask formLoaderTask;
+    private final FileHashIndex fileHashIndex;
+    private final int maxConcurrentImports;
+
+    public ExternalDataReaderImpl(FormLoaderTask formLoaderTask, FileHashIndex fileHashIndex) {
+        this(formLoaderTask, fileHashIndex, Runtime.getRuntime().availableProcessors());
+    }
 
-    public ExternalDataReaderImpl(FormLoaderTask formLoaderTask) {
+    ExternalDataReaderImpl(FormLoaderTask formLoaderTask, FileHashIndex fileHashIndex, int maxConcurrentImports) {
         this.formLoaderTask = formLoaderTask;
+        this.fileHashIndex = fileHashIndex;
+        this.maxConcurrentImports = maxConcurrentImports;
     }
 
     @Override
     public void doImport(Map<String, File> externalDataMap) {
+        List<Map.Entry<String, File>> dataSets = new ArrayList<>();
         for (Map.Entry<String, File> stringFileEntry : externalDataMap.entrySet()) {
-            String dataSetName = stringFileEntry.getKey();
-            File dataSetFile = stringFileEntry.getValue();
-            if (!dataSetFile.exists()) {
-                continue;
+            if (stringFileEntry.getValue().exists()) {
+                dataSets.add(stringFileEntry);
+            }
+        }
+
+        if (dataSets.size() > 1 && maxConcurrentImports > 1) {
+            doConcurrentImport(dataSets);
+        } else {
+            for (Map.Entry<String, File> dataSet : dataSets) {
+                if (!doImportDataSetAndContinue(dataSet.getKey(), dataSet.getValue(), new DataSetImportListener(dataSet.getValue()))) {
+                    return; // halt if import was cancelled
+                }
+            }
+        }
+    }
+
+    private void doConcurrentImport(List<Map.Entry<String, File>> dataSets) {
+        AggregateImportListener aggregateListener = new AggregateImportListener(dataSets.size());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(dataSets.size(), maxConcurrentImports));
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Map.Entry<String, File> dataSet : dataSets) {
+                futures.add(executor.submit(() -> {
+                    if (aggregateListener.isCancelled()) {
+                        return;
+                    }
+
+                    try {
+                        if (doImportDataSetAndContinue(dataSet.getKey(), dataSet.getValue(), aggregateListener.forDataSet())) {
+                            aggregateListener.onDataSetImported();
+                        }
+                    } catch (RuntimeException e) {
+                        aggregateListener.onFailed();
+                        throw e;
+                    }
+                }));
             }
-            if (!doImportDataSetAndContinue(dataSetName, dataSetFile)) {
-                return; // halt if import was cancelled
+
+            RuntimeException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException
+                                ? (RuntimeException) e.getCause()
+                                : new ExternalDataException(e.getCause().getMessage(), e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    aggregateListener.onFailed();
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
             }
+        } finally {
+            executor.shutdown();
         }
     }
 
-    private boolean doImportDataSetAndContinue(String dataSetName, File dataSetFile) {
+    private boolean doImportDataSetAndContinue(String dataSetName, File dataSetFile, ExternalSQLiteOpenHelper.ImportListener importListener) {
         File dbFile = new File(dataSetFile.getParentFile().getAbsolutePath(),
                 dataSetName + ".db");
         if (dbFile.exists()) {
             // Determine if we need to reimport
-            if (ExternalSQLiteOpenHelper.shouldUpdateDBforDataSet(dbFile, dataSetFile)) {
+            if (ExternalSQLiteOpenHelper.shouldUpdateDBforDataSet(dbFile, dataSetFile, fileHashIndex)) {
                 boolean deleted = dbFile.delete();
                 if (!deleted) {
                     Timber.e(new Error(dataSetFile.getName() + " has changed but we could not delete the previous DB at " + dbFile.getAbsolutePath()));
@@ -73,9 +154,9 @@ public class ExternalDataReaderImpl implements ExternalDataReader {
         }
         ExternalSQLiteOpenHelper externalSQLiteOpenHelper = new ExternalSQLiteOpenHelper(
                 dbFile);
-        externalSQLiteOpenHelper.importFromCSV(dataSetFile, this, formLoaderTask);
+        externalSQLiteOpenHelper.importFromCSV(dataSetFile, this, fileHashIndex, importListener);
 
-        if (formLoaderTask != null && formLoaderTask.isCancelled()) {
+        if (importListener.isCancelled()) {
             Timber.w(
                     "The import was cancelled, so we need to rollback.");
 
@@ -103,4 +184,100 @@ public class ExternalDataReaderImpl implements ExternalDataReader {
         return true;
     }
 
+    private boolean isCancelled() {
+        return formLoaderTask != null && formLoaderTask.isCancelled();
+    }
+
+    private void publishProgress(String message) {
+        if (formLoaderTask != null) {
+            formLoaderTask.publishExternalDataLoadingProgress(message);
+        }
+    }
+
+    private class DataSetImportListener implements ExternalSQLiteOpenHelper.ImportListener {
+
+        private final File dataSetFile;
+
+        DataSetImportListener(File dataSetFile) {
+            this.dataSetFile = dataSetFile;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return ExternalDataReaderImpl.this.isCancelled();
+        }
+
+        @Override
+        public void onProgress(String message) {
+            publishProgress(message);
+        }
+
+        @Override
+        public void onRowsImported(int rowCount) {
+            publishProgress(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_import_progress_message,
+                    dataSetFile.getName(), " (" + rowCount + " records so far)"));
+        }
+    }
+
+    /**
+     * Combines the progress of data sets being imported at the same time into a single message
+     * (rather than each one reporting over the others).
+     */
+    private class AggregateImportListener {
+
+        private final int dataSetCount;
+        private final AtomicInteger importedDataSets = new AtomicInteger();
+        private final AtomicInteger importedRows = new AtomicInteger();
+        private final AtomicBoolean failed = new AtomicBoolean();
+        private long lastProgressUpdate;
+
+        AggregateImportListener(int dataSetCount) {
+            this.dataSetCount = dataSetCount;
+        }
+
+        boolean isCancelled() {
+            return failed.get() || ExternalDataReaderImpl.this.isCancelled();
+        }
+
+        void onFailed() {
+            failed.set(true);
+        }
+
+        void onDataSetImported() {
+            importedDataSets.incrementAndGet();
+            publish(true);
+        }
+
+        ExternalSQLiteOpenHelper.ImportListener forDataSet() {
+            return new ExternalSQLiteOpenHelper.ImportListener() {
+                private int rowsReported;
+
+                @Override
+                public boolean isCancelled() {
+                    return AggregateImportListener.this.isCancelled();
+                }
+
+                @Override
+                public void onProgress(String message) {
+                    // only the combined progress is reported
+                }
+
+                @Override
+                public void onRowsImported(int rowCount) {
+                    importedRows.addAndGet(rowCount - rowsReported);
+                    rowsReported = rowCount;
+                    publish(false);
+                }
+            };
+        }
+
+        private synchronized void publish(boolean force) {
+            long now = SystemClock.elapsedRealtime();
+            if (force || now - lastProgressUpdate >= PROGRESS_INTERVAL_MILLIS) {
+                lastProgressUpdate = now;
+                publishProgress(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_import_multiple_progress_message,
+                        importedDataSets.get(), dataSetCount, importedRows.get()));
+            }
+        }
+    }
 }
@@ -20,8 +20,15 @@ package org.odk.collect.android.externaldata;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
 
 import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReader;
@@ -30,19 +37,20 @@ import com.opencsv.CSVReaderBuilder;
 import org.odk.collect.android.application.Collect;
 import org.odk.collect.android.database.AltDatabasePathContext;
 import org.odk.collect.android.exception.ExternalDataException;
-import org.odk.collect.android.tasks.FormLoaderTask;
 import org.odk.collect.android.utilities.CustomSQLiteQueryBuilder;
 import org.odk.collect.android.utilities.CustomSQLiteQueryExecutor;
 import org.odk.collect.android.utilities.SQLiteUtils;
-import org.odk.collect.shared.strings.Md5;
+import org.odk.collect.shared.files.FileHashIndex;
 
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import timber.log.Timber;
 
@@ -59,20 +67,26 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
     private static final char DELIMITING_CHAR = ",".charAt(0);
     private static final char QUOTE_CHAR = "\"".charAt(0);
     private static final char ESCAPE_CHAR = "\0".charAt(0);
+    private static final long PROGRESS_INTERVAL_MILLIS = 500;
+    private static final Map<String, Integer> IMPORT_GENERATIONS = new ConcurrentHashMap<>();
 
+    private final File dbFile;
     private File dataSetFile;
     private ExternalDataReader externalDataReader;
-    private FormLoaderTask formLoaderTask;
+    private FileHashIndex fileHashIndex;
+    private ImportListener importListener;
 
     ExternalSQLiteOpenHelper(File dbFile) {
         super(new AltDatabasePathContext(dbFile.getParentFile().getAbsolutePath(), Collect.getInstance()), dbFile.getName(), null, VERSION);
+        this.dbFile = dbFile;
     }
 
-    void importFromCSV(File dataSetFile, ExternalDataReader externalDataReader,
-                       FormLoaderTask formLoaderTask) {
+    void importFromCSV(File dataSetFile, ExternalDataReader externalDataReader, FileHashIndex fileHashIndex,
+                       @Nullable ImportListener importListener) {
         this.dataSetFile = dataSetFile;
         this.externalDataReader = externalDataReader;
-        this.formLoaderTask = formLoaderTask;
+        this.fileHashIndex = fileHashIndex;
+        this.importListener = importListener;
 
         SQLiteDatabase writableDatabase = null;
         try {
@@ -84,6 +98,16 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
         }
     }
 
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        if (externalDataReader != null) {
+            // The database is only a copy of the CSV (and is deleted and re-imported if it doesn't
+            // match) so it doesn't need to survive a crash part way through an import
+            db.execSQL("PRAGMA synchronous = OFF");
+            DatabaseUtils.stringForQuery(db, "PRAGMA journal_mode = MEMORY", null);
+        }
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         if (externalDataReader == null) {
@@ -95,9 +119,10 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
         }
 
         try {
-            if (shouldUpdateDBforDataSet(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile)) {
+            if (shouldUpdateDBforDataSet(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile, fileHashIndex)) {
                 onCreateNamed(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME);
-                createAndPopulateMetadataTable(db, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile);
+                createAndPopulateMetadataTable(db, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile, fileHashIndex);
+                IMPORT_GENERATIONS.merge(dbFile.getAbsolutePath(), 1, Integer::sum);
             }
         } catch (Exception e) {
             throw new ExternalDataException(
@@ -194,54 +219,85 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
                 }
             }
 
-            // populate the database
-            String[] row = reader.readNext();
-            int rowCount = 0;
-            while (row != null && !isCancelled()) {
-                // SCTO-894 - first we should make sure that this is not an empty line
-                if (!ExternalDataUtil.containsAnyData(row)) {
-                    // yes, that is an empty row, ignore it
-                    row = reader.readNext();
+            // work out where each value goes once rather than for every row
+            List<Integer> sourceIndexes = new ArrayList<>();
+            List<String> insertColumns = new ArrayList<>();
+            int sortColumnSourceIndex = -1;
+            for (int i = 0; i < headerRow.length; i++) {
+                String columnName = headerRow[i].trim();
+                if (columnName.length() == 0) {
                     continue;
                 }
 
-                // SCTO-894 - then check if the row contains less values than the header
-                // we should not ignore the existing values in the row,
-                // we will just fill up the rest with empty strings
-                if (row.length < headerRow.length) {
-                    row = ExternalDataUtil.fillUpNullValues(row, headerRow);
+                String safeColumnName = ExternalDataUtil.toSafeColumnName(columnName, columnNamesCache);
+                if (safeColumnName.equals(ExternalDataUtil.SORT_COLUMN_NAME)) {
+                    sortColumnSourceIndex = i;
                 }
 
-                ContentValues values = new ContentValues();
-                if (!sortColumnAlreadyPresent) {
-                    values.put(ExternalDataUtil.SORT_COLUMN_NAME, rowCount + 1);
-                }
+                sourceIndexes.add(i);
+                insertColumns.add(safeColumnName);
+            }
 
-                for (int i = 0; i < row.length && i < headerRow.length; i++) {
-                    String columnName = headerRow[i].trim();
-                    String columnValue = row[i];
-                    if (columnName.length() == 0) {
+            if (!sortColumnAlreadyPresent) {
+                insertColumns.add(ExternalDataUtil.SORT_COLUMN_NAME);
+            }
+
+            // populate the database. onCreate already runs in a transaction so the whole import
+            // is committed (or rolled back) at once
+            SQLiteStatement insertStatement = db.compileStatement(buildInsertSql(tableName, insertColumns));
+            try {
+                long lastProgressUpdate = SystemClock.elapsedRealtime();
+                String[] row = reader.readNext();
+                int rowCount = 0;
+                while (row != null && !isCancelled()) {
+                    // SCTO-894 - first we should make sure that this is not an empty line
+                    if (!ExternalDataUtil.containsAnyData(row)) {
+                        // yes, that is an empty row, ignore it
+                        row = reader.readNext();
                         continue;
                     }
-                    String safeColumnName = ExternalDataUtil.toSafeColumnName(columnName,
-                            columnNamesCache);
-                    if (safeColumnName.equals(ExternalDataUtil.SORT_COLUMN_NAME)) {
-                        try {
-                            values.put(safeColumnName, Double.parseDouble(columnValue));
-                        } catch (NumberFormatException e) {
-                            throw new ExternalDataException(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_sortBy_numeric_error, columnValue));
+
+                    // SCTO-894 - then check if the row contains less values than the header
+                    // we should not ignore the existing values in the row,
+                    // we will just fill up the rest with empty strings
+                    if (row.length < headerRow.length) {
+                        row = ExternalDataUtil.fillUpNullValues(row, headerRow);
+                    }
+
+                    insertStatement.clearBindings();
+                    for (int i = 0; i < sourceIndexes.size(); i++) {
+                        int sourceIndex = sourceIndexes.get(i);
+                        String columnValue = sourceIndex < row.length ? row[sourceIndex] : null;
+
+                        if (sourceIndex == sortColumnSourceIndex) {
+                            try {
+                                insertStatement.bindDouble(i + 1, Double.parseDouble(columnValue));
+                            } catch (NumberFormatException | NullPointerException e) {
+                                throw new ExternalDataException(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_sortBy_numeric_error, columnValue));
+                            }
+                        } else if (columnValue != null) {
+                            insertStatement.bindString(i + 1, columnValue);
+                        }
+                    }
+
+                    if (!sortColumnAlreadyPresent) {
+                        insertStatement.bindLong(sourceIndexes.size() + 1, rowCount + 1);
+                    }
+
+                    insertStatement.executeInsert();
+                    row = reader.readNext();
+                    rowCount++;
+
+                    long now = SystemClock.elapsedRealtime();
+                    if (now - lastProgressUpdate >= PROGRESS_INTERVAL_MILLIS) {
+                        lastProgressUpdate = now;
+                        if (importListener != null) {
+                            importListener.onRowsImported(rowCount);
                         }
-                    } else {
-                        values.put(safeColumnName, columnValue);
                     }
                 }
-                db.insertOrThrow(tableName, null, values);
-                row = reader.readNext();
-                rowCount++;
-                if (rowCount % 100 == 0) {
-                    onProgress(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_import_progress_message,
-                            dataSetFile.getName(), " (" + rowCount + " records so far)"));
-                }
+            } finally {
+                insertStatement.close();
             }
 
             if (isCancelled()) {
@@ -271,13 +327,60 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
         }
     }
 
+    private static String buildInsertSql(String tableName, List<String> columns) {
+        StringBuilder sb = new StringBuilder()
+                .append("INSERT INTO ")
+                .append(tableName)
+                .append(" (")
+                .append(TextUtils.join(", ", columns))
+                .append(") VALUES (");
+
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+
+        return sb.append(");").toString();
+    }
+
+    /**
+     * Returns the number of times this helper's data set has been imported (by any helper for the
+     * same database file). This can be used to tell when anything read from the data set might be
+     * out of date without affecting what's been read from other data sets.
+     */
+    public int getImportGeneration() {
+        Integer generation = IMPORT_GENERATIONS.get(dbFile.getAbsolutePath());
+        return generation != null ? generation : 0;
+    }
+
+    /**
+     * Creates indexes for columns that are searched on if there aren't any already. We don't know
+     * which columns forms will search on when the CSV is imported so this is done when a form
+     * using the data set is loaded. Once created the indexes are kept in the database file.
+     */
+    public void createSearchIndexes(Collection<String> safeColumnNames) {
+        if (!dbFile.exists()) {
+            // the data set hasn't been imported
+            return;
+        }
+
+        SQLiteDatabase db = getWritableDatabase();
+        for (String safeColumnName : safeColumnNames) {
+            try {
+                db.execSQL("CREATE INDEX IF NOT EXISTS " + safeColumnName + "_search_idx ON "
+                        + ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME + " (" + safeColumnName + ");");
+            } catch (SQLiteException e) {
+                Timber.w(e);
+            }
+        }
+    }
+
     protected boolean isCancelled() {
-        return formLoaderTask != null && formLoaderTask.isCancelled();
+        return importListener != null && importListener.isCancelled();
     }
 
     // Create a metadata table with a single column that keeps track of the date of the last import
     // of this data set.
-    static void createAndPopulateMetadataTable(SQLiteDatabase db, String metadataTableName, File dataSetFile) {
+    static void createAndPopulateMetadataTable(SQLiteDatabase db, String metadataTableName, File dataSetFile, FileHashIndex fileHashIndex) {
         final String dataSetFilenameColumn = CustomSQLiteQueryBuilder.quoteIdentifier(ExternalDataUtil.COLUMN_DATASET_FILENAME);
         final String md5HashColumn = CustomSQLiteQueryBuilder.quoteIdentifier(ExternalDataUtil.COLUMN_MD5_HASH);
 
@@ -289,7 +392,7 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
 
         ContentValues metadata = new ContentValues();
         metadata.put(ExternalDataUtil.COLUMN_DATASET_FILENAME, dataSetFile.getName());
-        metadata.put(ExternalDataUtil.COLUMN_MD5_HASH, Md5.getMd5Hash(dataSetFile));
+        metadata.put(ExternalDataUtil.COLUMN_MD5_HASH, fileHashIndex.getMd5Hash(dataSetFile));
         db.insertOrThrow(metadataTableName, null, metadata);
     }
 
@@ -311,12 +414,12 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
         return lastImportMd5;
     }
 
-    static boolean shouldUpdateDBforDataSet(File dbFile, File dataSetFile) {
+    static boolean shouldUpdateDBforDataSet(File dbFile, File dataSetFile, FileHashIndex fileHashIndex) {
         SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
-        return shouldUpdateDBforDataSet(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile);
+        return shouldUpdateDBforDataSet(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile, fileHashIndex);
     }
 
-    static boolean shouldUpdateDBforDataSet(SQLiteDatabase db, String dataTableName, String metadataTableName, File dataSetFile) {
+    static boolean shouldUpdateDBforDataSet(SQLiteDatabase db, String dataTableName, String metadataTableName, File dataSetFile, FileHashIndex fileHashIndex) {
         if (!SQLiteUtils.doesTableExist(db, dataTableName)) {
             return true;
         }
@@ -325,7 +428,7 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
         }
         // Import if the CSV file has been updated
         String priorImportMd5 = getLastMd5Hash(db, metadataTableName, dataSetFile);
-        String newFileMd5 = Md5.getMd5Hash(dataSetFile);
+        String newFileMd5 = fileHashIndex.getMd5Hash(dataSetFile);
         return newFileMd5 == null || !newFileMd5.equals(priorImportMd5);
     }
 
@@ -334,8 +437,8 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
     }
 
     private void onProgress(String message) {
-        if (formLoaderTask != null) {
-            formLoaderTask.publishExternalDataLoadingProgress(message);
+        if (importListener != null) {
+            importListener.onProgress(message);
         }
     }
 
@@ -348,4 +451,15 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
     private String removeByteOrderMark(String bomCheckString) {
         return bomCheckString.startsWith("\uFEFF") ? bomCheckString.substring(1) : bomCheckString;
     }
+
+    interface ImportListener {
+        boolean isCancelled();
+
+        void onProgress(String message);
+
+        /**
+         * Called periodically with the number of rows imported from the data set so far.
+         */
+        void onRowsImported(int rowCount);
+    }
 }
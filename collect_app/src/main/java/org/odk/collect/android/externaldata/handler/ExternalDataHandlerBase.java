@@ -50,7 +50,7 @@ public abstract class ExternalDataHandlerBase implements ExternalDataHandler {
      * @param dataSetName the user-supplied data-set in the function
      * @return the normalized data-set name.
      */
-    protected String normalize(String dataSetName) {
+    protected static String normalize(String dataSetName) {
         dataSetName = dataSetName.toLowerCase(Locale.US);
         if (dataSetName.endsWith(".csv")) {
             dataSetName = dataSetName.substring(0, dataSetName.lastIndexOf(".csv"));
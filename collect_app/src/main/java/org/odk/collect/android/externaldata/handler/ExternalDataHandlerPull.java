@@ -18,9 +18,11 @@
 
 package org.odk.collect.android.externaldata.handler;
 
-import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteStatement;
+import android.util.LruCache;
 
 import org.javarosa.core.model.condition.EvaluationContext;
 import org.javarosa.xpath.expr.XPathFuncExpr;
@@ -29,7 +31,11 @@ import org.odk.collect.android.externaldata.ExternalDataUtil;
 import org.odk.collect.android.externaldata.ExternalSQLiteOpenHelper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import timber.log.Timber;
 
@@ -42,6 +48,12 @@ public class ExternalDataHandlerPull extends ExternalDataHandlerBase {
 
     public static final String HANDLER_NAME = "pulldata";
 
+    private static final int MAX_CACHED_RESULTS = 1000;
+
+    private final LruCache<List<String>, String> results = new LruCache<>(MAX_CACHED_RESULTS);
+    private final Map<List<String>, SQLiteStatement> queries = new HashMap<>();
+    private final Map<String, Integer> importGenerations = new HashMap<>();
+
     public ExternalDataHandlerPull(ExternalDataManager externalDataManager) {
         super(externalDataManager);
     }
@@ -67,7 +79,7 @@ public class ExternalDataHandlerPull extends ExternalDataHandlerBase {
     }
 
     @Override
-    public Object eval(Object[] args, EvaluationContext ec) {
+    public synchronized Object eval(Object[] args, EvaluationContext ec) {
 
         if (args.length != 4) {
             Timber.e(new Error("4 arguments are needed to evaluate the " + HANDLER_NAME + " function"));
@@ -82,36 +94,82 @@ public class ExternalDataHandlerPull extends ExternalDataHandlerBase {
         // SCTO-545
         dataSetName = normalize(dataSetName);
 
-        Cursor c = null;
+        ExternalSQLiteOpenHelper sqLiteOpenHelper = getExternalDataManager().getDatabase(
+                dataSetName, false);
+        if (sqLiteOpenHelper == null) {
+            return "";
+        }
+
+        // calculations get re-evaluated whenever anything in the form changes so hold on to
+        // results until the data set is imported again
+        int importGeneration = sqLiteOpenHelper.getImportGeneration();
+        Integer lastImportGeneration = importGenerations.put(dataSetName, importGeneration);
+        if (lastImportGeneration != null && lastImportGeneration != importGeneration) {
+            invalidate(dataSetName, sqLiteOpenHelper);
+        }
+
+        List<String> key = Arrays.asList(dataSetName, queriedColumn, referenceColumn, referenceValue);
+        String cachedResult = results.get(key);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
         try {
-            ExternalSQLiteOpenHelper sqLiteOpenHelper = getExternalDataManager().getDatabase(
-                    dataSetName, false);
-            if (sqLiteOpenHelper == null) {
-                return "";
-            }
+            SQLiteStatement statement = getQuery(sqLiteOpenHelper, dataSetName, queriedColumn, referenceColumn);
+            statement.bindString(1, referenceValue);
 
-            SQLiteDatabase db = sqLiteOpenHelper.getReadableDatabase();
-            String[] columns = {ExternalDataUtil.toSafeColumnName(queriedColumn)};
-            String selection = ExternalDataUtil.toSafeColumnName(referenceColumn) + "=?";
-            String[] selectionArgs = {referenceValue};
-
-            c = db.query(ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, columns, selection,
-                    selectionArgs, null, null, null);
-            if (c.getCount() > 0) {
-                c.moveToFirst();
-                return ExternalDataUtil.nullSafe(c.getString(0));
-            } else {
+            String result;
+            try {
+                result = ExternalDataUtil.nullSafe(statement.simpleQueryForString());
+            } catch (SQLiteDoneException e) {
                 Timber.i("Could not find a value in %s where the column %s has the value %s",
                         queriedColumn, referenceColumn, referenceValue);
-                return "";
+                result = "";
             }
+
+            results.put(key, result);
+            return result;
         } catch (SQLiteException e) {
             Timber.i(e);
             return "";
-        } finally {
-            if (c != null) {
-                c.close();
+        }
+    }
+
+    private SQLiteStatement getQuery(ExternalSQLiteOpenHelper sqLiteOpenHelper, String dataSetName, String queriedColumn, String referenceColumn) {
+        List<String> key = Arrays.asList(dataSetName, queriedColumn, referenceColumn);
+        SQLiteStatement statement = queries.get(key);
+
+        if (statement == null) {
+            SQLiteDatabase db = sqLiteOpenHelper.getReadableDatabase();
+            statement = db.compileStatement("SELECT " + ExternalDataUtil.toSafeColumnName(queriedColumn)
+                    + " FROM " + ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME
+                    + " WHERE " + ExternalDataUtil.toSafeColumnName(referenceColumn) + "=? LIMIT 1");
+            queries.put(key, statement);
+        }
+
+        return statement;
+    }
+
+    /**
+     * Drops cached results and queries for a data set. Its database is closed as well so that
+     * it's read from the newly imported file.
+     */
+    private void invalidate(String dataSetName, ExternalSQLiteOpenHelper sqLiteOpenHelper) {
+        for (List<String> key : results.snapshot().keySet()) {
+            if (key.get(0).equals(dataSetName)) {
+                results.remove(key);
+            }
+        }
+
+        Iterator<Map.Entry<List<String>, SQLiteStatement>> iterator = queries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<List<String>, SQLiteStatement> query = iterator.next();
+            if (query.getKey().get(0).equals(dataSetName)) {
+                query.getValue().close();
+                iterator.remove();
             }
         }
+
+        sqLiteOpenHelper.close();
     }
 }
@@ -21,9 +21,18 @@ package org.odk.collect.android.externaldata.handler;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
+import androidx.annotation.Nullable;
+
+import org.javarosa.core.model.FormDef;
+import org.javarosa.core.model.IFormElement;
+import org.javarosa.core.model.QuestionDef;
 import org.javarosa.core.model.SelectChoice;
 import org.javarosa.core.model.condition.EvaluationContext;
+import org.javarosa.xpath.XPathParseTool;
+import org.javarosa.xpath.expr.XPathExpression;
 import org.javarosa.xpath.expr.XPathFuncExpr;
+import org.javarosa.xpath.expr.XPathStringLiteral;
+import org.javarosa.xpath.parser.XPathSyntaxException;
 import org.odk.collect.android.application.Collect;
 import org.odk.collect.android.exception.ExternalDataException;
 import org.odk.collect.android.externaldata.ExternalDataManager;
@@ -33,10 +42,13 @@ import org.odk.collect.android.externaldata.ExternalSelectChoice;
 import org.odk.collect.shared.strings.StringUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
 
 import timber.log.Timber;
 
@@ -196,6 +208,116 @@ public class ExternalDataHandlerSearch extends ExternalDataHandlerBase {
         }
     }
 
+    /**
+     * Creates indexes for the columns that the {@code search()} appearances in {@code formDef}
+     * search or filter on. This writes to the data sets' databases so it should be done while
+     * the form is being loaded rather than when a search is evaluated. Only columns named with
+     * string literals can be found this way.
+     */
+    public static void createIndexes(FormDef formDef, ExternalDataManager externalDataManager) {
+        Map<String, Set<String>> columnsByDataSet = new HashMap<>();
+        collectIndexedColumns(formDef, columnsByDataSet);
+
+        for (Map.Entry<String, Set<String>> dataSet : columnsByDataSet.entrySet()) {
+            ExternalSQLiteOpenHelper sqLiteOpenHelper = externalDataManager.getDatabase(dataSet.getKey(), false);
+            if (sqLiteOpenHelper != null) {
+                sqLiteOpenHelper.createSearchIndexes(dataSet.getValue());
+            }
+        }
+    }
+
+    /**
+     * Adds the safe names of the columns that should be indexed for each data set searched by
+     * {@code element} or its children to {@code columnsByDataSet}.
+     */
+    static void collectIndexedColumns(IFormElement element, Map<String, Set<String>> columnsByDataSet) {
+        if (element instanceof QuestionDef) {
+            XPathFuncExpr search = parseSearch(((QuestionDef) element).getAppearanceAttr());
+            if (search != null) {
+                collectIndexedColumns(search.args, columnsByDataSet);
+            }
+        }
+
+        List<IFormElement> children = element.getChildren();
+        if (children != null) {
+            for (IFormElement child : children) {
+                collectIndexedColumns(child, columnsByDataSet);
+            }
+        }
+    }
+
+    private static void collectIndexedColumns(XPathExpression[] args, Map<String, Set<String>> columnsByDataSet) {
+        String dataSetName = getLiteral(args[0]);
+        if (dataSetName == null) {
+            return;
+        }
+
+        Set<String> columns = new HashSet<>();
+        if (args.length >= 4) {
+            String queriedColumns = getLiteral(args[2]);
+            ExternalDataSearchType searchType = ExternalDataSearchType.getByKeyword(getLiteral(args[1]), ExternalDataSearchType.CONTAINS);
+
+            // "contains" and "endsWith" can't use an index so there's no point creating one
+            if (queriedColumns != null && queriedColumns.trim().length() > 0 && searchType.canUseIndex()) {
+                columns.addAll(ExternalDataUtil.createListOfColumns(queriedColumns));
+            }
+        }
+
+        if (args.length == 6) {
+            String filterColumn = getLiteral(args[4]);
+            if (filterColumn != null) {
+                columns.add(ExternalDataUtil.toSafeColumnName(filterColumn));
+            }
+        }
+
+        if (!columns.isEmpty()) {
+            String normalizedName = normalize(dataSetName);
+            Set<String> dataSetColumns = columnsByDataSet.get(normalizedName);
+            if (dataSetColumns == null) {
+                dataSetColumns = new HashSet<>();
+                columnsByDataSet.put(normalizedName, dataSetColumns);
+            }
+
+            dataSetColumns.addAll(columns);
+        }
+    }
+
+    /**
+     * Like {@link ExternalDataUtil#getSearchXPathExpression(String)} but without reporting
+     * problems to the user as this is used off the UI thread while a form is loading.
+     */
+    @Nullable
+    private static XPathFuncExpr parseSearch(@Nullable String appearance) {
+        if (appearance == null) {
+            return null;
+        }
+
+        Matcher matcher = ExternalDataUtil.SEARCH_FUNCTION_REGEX.matcher(appearance.trim());
+        if (!matcher.find()) {
+            return null;
+        }
+
+        try {
+            XPathExpression expression = XPathParseTool.parseXPath(matcher.group(0));
+            if (expression instanceof XPathFuncExpr) {
+                XPathFuncExpr funcExpr = (XPathFuncExpr) expression;
+                if (funcExpr.id.name.equalsIgnoreCase(HANDLER_NAME)
+                        && (funcExpr.args.length == 1 || funcExpr.args.length == 4 || funcExpr.args.length == 6)) {
+                    return funcExpr;
+                }
+            }
+        } catch (XPathSyntaxException e) {
+            Timber.w(e);
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private static String getLiteral(XPathExpression expression) {
+        return expression instanceof XPathStringLiteral ? ((XPathStringLiteral) expression).s : null;
+    }
+
     protected ArrayList<SelectChoice> createDynamicSelectChoices(Cursor c,
             LinkedHashMap<String, String> selectColumnMap, String safeImageColumn) {
         List<String> columnsToExcludeFromLabels = new ArrayList<>();
@@ -203,6 +325,10 @@ public class ExternalDataHandlerSearch extends ExternalDataHandlerBase {
             columnsToExcludeFromLabels.add(safeImageColumn);
         }
 
+        int imageColumnIndex = safeImageColumn != null && safeImageColumn.trim().length() > 0
+                ? c.getColumnIndex(safeImageColumn)
+                : -1;
+
         ArrayList<SelectChoice> selectChoices = new ArrayList<>();
         if (c.getCount() > 0) {
             c.moveToPosition(-1);
@@ -212,7 +338,7 @@ public class ExternalDataHandlerSearch extends ExternalDataHandlerBase {
 
                 // the value is always the first column
                 String value = c.getString(0);
-                if (!uniqueValues.contains(value)) {
+                if (uniqueValues.add(value)) {
                     String label = buildLabel(c, selectColumnMap, columnsToExcludeFromLabels);
 
                     ExternalSelectChoice selectChoice;
@@ -223,8 +349,8 @@ public class ExternalDataHandlerSearch extends ExternalDataHandlerBase {
                     }
                     selectChoice.setIndex(index);
 
-                    if (safeImageColumn != null && safeImageColumn.trim().length() > 0) {
-                        String image = c.getString(c.getColumnIndex(safeImageColumn));
+                    if (imageColumnIndex != -1) {
+                        String image = c.getString(imageColumnIndex);
                         if (image != null && image.trim().length() > 0) {
                             selectChoice.setImage(ExternalDataUtil.JR_IMAGES_PREFIX + image);
                         }
@@ -233,8 +359,6 @@ public class ExternalDataHandlerSearch extends ExternalDataHandlerBase {
                     selectChoices.add(selectChoice);
 
                     index++;
-
-                    uniqueValues.add(value);
                 }
             }
         }
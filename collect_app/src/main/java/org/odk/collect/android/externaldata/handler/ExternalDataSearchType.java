@@ -25,28 +25,28 @@ package org.odk.collect.android.externaldata.handler;
  */
 enum ExternalDataSearchType {
 
-    CONTAINS("contains") {
+    CONTAINS("contains", false) {
         @Override
         protected String getSingleLikeArgument(String queriedValue) {
             return '%' + queriedValue + '%';
         }
     },
 
-    MATCHES("matches") {
+    MATCHES("matches", true) {
         @Override
         protected String getSingleLikeArgument(String queriedValue) {
             return queriedValue;
         }
     },
 
-    STARTS("startsWith") {
+    STARTS("startsWith", true) {
         @Override
         protected String getSingleLikeArgument(String queriedValue) {
             return queriedValue + '%';
         }
     },
 
-    ENDS("endsWith") {
+    ENDS("endsWith", false) {
         @Override
         protected String getSingleLikeArgument(String queriedValue) {
             return '%' + queriedValue;
@@ -54,15 +54,25 @@ enum ExternalDataSearchType {
     };
 
     private final String keyword;
+    private final boolean canUseIndex;
 
-    ExternalDataSearchType(String keyword) {
+    ExternalDataSearchType(String keyword, boolean canUseIndex) {
         this.keyword = keyword;
+        this.canUseIndex = canUseIndex;
     }
 
     public String getKeyword() {
         return keyword;
     }
 
+    /**
+     * Whether SQLite can use an index on the queried column for this search. That's only
+     * possible when the LIKE pattern doesn't start with a wildcard.
+     */
+    public boolean canUseIndex() {
+        return canUseIndex;
+    }
+
     public static ExternalDataSearchType getByKeyword(String keyword,
             ExternalDataSearchType fallback) {
         if (keyword == null) {
@@ -37,8 +37,6 @@ import java.util.List;
 import timber.log.Timber;
 
 public class ItemsetDao {
-    private static final String QUOTATION_MARK = "\"";
-
     private final ItemsetDbAdapter adapter;
 
     public ItemsetDao(ItemsetDbAdapter adapter) {
@@ -86,13 +84,10 @@ public class ItemsetDao {
     }
 
     public List<SelectChoice> getItems(FormEntryPrompt formEntryPrompt, XPathParseTool pathParseTool, FormController formController) throws FileNotFoundException, XPathSyntaxException {
-        String nodesetString = getNodesetString(formEntryPrompt);
-
-        List<String> arguments = new ArrayList<>();
-        String selectionString = getSelectionStringAndPopulateArguments(getQueryString(nodesetString), arguments);
+        ItemsetQuery query = ItemsetQuery.parse(getNodesetString(formEntryPrompt));
 
-        String[] selectionArgs = getSelectionArgs(arguments, nodesetString, formController, pathParseTool, formEntryPrompt);
-        return selectionArgs == null ? null : getItemsFromDatabase(selectionString, selectionArgs, formController, adapter);
+        String[] selectionArgs = getSelectionArgs(query, formController, pathParseTool, formEntryPrompt);
+        return selectionArgs == null ? null : getItemsFromDatabase(query.getSelection(), selectionArgs, formController, adapter);
     }
 
     private String getNodesetString(FormEntryPrompt formEntryPrompt) {
@@ -102,85 +97,13 @@ public class ItemsetDao {
         return formEntryPrompt.getQuestion().getAdditionalAttribute(null, "query");
     }
 
-    private String getQueryString(String nodesetStr) {
-        // isolate the string between between the [ ] characters
-        return nodesetStr.substring(nodesetStr.indexOf('[') + 1, nodesetStr.lastIndexOf(']'));
-    }
-
-    private String getSelectionStringAndPopulateArguments(String queryString, List<String> arguments) {
-        StringBuilder selectionString = new StringBuilder();
-        // add the list name as the first argument, which will always be there
-        selectionString.append("list_name=?");
-
-        // check to see if there are any arguments
-        if (queryString.indexOf('=') != -1) {
-            selectionString.append(" and ");
-        }
-
-        // can't just split on 'and' or 'or' because they have different
-        // behavior, so loop through and break them off until we don't have any more
-        // must include the spaces in indexOf so we don't match words like "land"
-        int andIndex;
-        int orIndex = -1;
-
-        while ((andIndex = queryString.indexOf(" and ")) != -1 || (orIndex = queryString.indexOf(" or ")) != -1) {
-            if (andIndex != -1) {
-                String[] pair = queryString
-                        .substring(0, andIndex)
-                        .split("=");
-
-                if (pair.length == 2) {
-                    selectionString
-                            .append(QUOTATION_MARK)
-                            .append(pair[0].trim())
-                            .append(QUOTATION_MARK)
-                            .append("=? and ");
-
-                    arguments
-                            .add(pair[1]
-                                    .trim());
-                }
-                // move string forward to after " and "
-                queryString = queryString.substring(andIndex + 5, queryString.length());
-            } else {
-                String subString = queryString.substring(0, orIndex);
-                String[] pair = subString.split("=");
-
-                if (pair.length == 2) {
-                    selectionString
-                            .append(QUOTATION_MARK)
-                            .append(pair[0].trim())
-                            .append(QUOTATION_MARK)
-                            .append("=? or ");
-                    arguments.add(pair[1].trim());
-                }
-                // move string forward to after " or "
-                queryString = queryString.substring(orIndex + 4, queryString.length());
-            }
-        }
-
-        // parse the last segment (or only segment if there are no 'and' or 'or' clauses
-        String[] pair = queryString.split("=");
-        if (pair.length == 2) {
-            selectionString
-                    .append(QUOTATION_MARK)
-                    .append(pair[0].trim())
-                    .append(QUOTATION_MARK)
-                    .append("=?");
-            arguments.add(pair[1].trim());
-        }
-        return selectionString.toString();
-    }
-
     @SuppressWarnings("PMD.AvoidThrowingNewInstanceOfSameException")
-    private String[] getSelectionArgs(List<String> arguments, String nodesetStr, FormController formController, XPathParseTool pathParseTool, FormEntryPrompt formEntryPrompt) throws XPathSyntaxException {
+    private String[] getSelectionArgs(ItemsetQuery query, FormController formController, XPathParseTool pathParseTool, FormEntryPrompt formEntryPrompt) throws XPathSyntaxException {
+        List<String> arguments = query.getArguments();
+
         // +1 is for the list_name
         String[] selectionArgs = new String[arguments.size() + 1];
-
-        // parse out the list name, between the ''
-        String listName = nodesetStr.substring(nodesetStr.indexOf('\'') + 1, nodesetStr.lastIndexOf('\''));
-
-        selectionArgs[0] = listName; // first argument is always listname
+        selectionArgs[0] = query.getListName(); // first argument is always listname
 
         if (formController == null) {
             Timber.w("Can't instantiate ItemsetWidget with a null FormController.");
@@ -191,7 +114,7 @@ public class ItemsetDao {
         for (int i = 0; i < arguments.size(); i++) {
             XPathExpression xpr;
             try {
-                xpr = pathParseTool.parseXPath(arguments.get(i));
+                xpr = query.getArgumentExpression(i, pathParseTool);
             } catch (XPathSyntaxException e) {
                 throw new XPathSyntaxException(arguments.get(i));
             }
@@ -230,30 +153,27 @@ public class ItemsetDao {
             try {
                 Cursor c = adapter.query(pathHash, selection, selectionArgs);
                 if (c != null) {
-                    c.move(-1);
-                    int index = 0;
-                    while (c.moveToNext()) {
-                        String label;
-                        String val;
+                    // try to get the value associated with the label:lang
+                    // string if that doen't exist, then just use label
+                    String lang = "";
+                    if (formController.getLanguages() != null && formController.getLanguages().length > 0) {
+                        lang = formController.getLanguage();
+                    }
 
-                        // try to get the value associated with the label:lang
-                        // string if that doen't exist, then just use label
-                        String lang = "";
-                        if (formController.getLanguages() != null && formController.getLanguages().length > 0) {
-                            lang = formController.getLanguage();
-                        }
+                    // apparently you only need the double quotes in the
+                    // column name when creating the column with a : included
+                    int labelColumn = c.getColumnIndex("label" + "::" + lang);
+                    if (labelColumn == -1) {
+                        labelColumn = c.getColumnIndex("label");
+                    }
 
-                        // apparently you only need the double quotes in the
-                        // column name when creating the column with a : included
-                        String labelLang = "label" + "::" + lang;
-                        int langCol = c.getColumnIndex(labelLang);
-                        if (langCol == -1) {
-                            label = c.getString(c.getColumnIndex("label"));
-                        } else {
-                            label = c.getString(c.getColumnIndex(labelLang));
-                        }
+                    int nameColumn = c.getColumnIndex("name");
 
-                        val = c.getString(c.getColumnIndex("name"));
+                    c.move(-1);
+                    int index = 0;
+                    while (c.moveToNext()) {
+                        String label = c.getString(labelColumn);
+                        String val = c.getString(nameColumn);
                         SelectChoice selectChoice = new SelectChoice(null, label, val, false);
                         selectChoice.setIndex(index);
                         items.add(selectChoice);
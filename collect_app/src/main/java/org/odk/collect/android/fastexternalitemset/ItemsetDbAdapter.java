@@ -5,6 +5,7 @@ import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 
 import org.odk.collect.android.application.Collect;
 import org.odk.collect.android.database.AltDatabasePathContext;
@@ -16,11 +17,15 @@ import java.io.Closeable;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
 
 import timber.log.Timber;
 
 public class ItemsetDbAdapter implements Closeable {
 
+    private final String metadataDirPath;
+    private final String formsDirPath;
     private DatabaseHelper dbHelper;
     private SQLiteDatabase db;
 
@@ -38,12 +43,29 @@ public class ItemsetDbAdapter implements Closeable {
                     + KEY_PATH + " text "
                     + ");";
 
+    public ItemsetDbAdapter() {
+        this(
+                new StoragePathProvider().getOdkDirPath(StorageSubdirectory.METADATA),
+                new StoragePathProvider().getOdkDirPath(StorageSubdirectory.FORMS)
+        );
+    }
+
+    /**
+     * Uses the itemsets database in {@code metadataDirPath} rather than the current project's.
+     * Itemsets are recorded by their path relative to {@code formsDirPath} so it should be the
+     * forms directory of the same project.
+     */
+    public ItemsetDbAdapter(String metadataDirPath, String formsDirPath) {
+        this.metadataDirPath = metadataDirPath;
+        this.formsDirPath = formsDirPath;
+    }
+
     /**
      * This class helps open, create, and upgrade the database file.
      */
     private static class DatabaseHelper extends SQLiteOpenHelper {
-        DatabaseHelper() {
-            super(new AltDatabasePathContext(new StoragePathProvider().getOdkDirPath(StorageSubdirectory.METADATA), Collect.getInstance()), DATABASE_NAME, null, DATABASE_VERSION);
+        DatabaseHelper(String metadataDirPath) {
+            super(new AltDatabasePathContext(metadataDirPath, Collect.getInstance()), DATABASE_NAME, null, DATABASE_VERSION);
         }
 
         @Override
@@ -83,7 +105,7 @@ public class ItemsetDbAdapter implements Closeable {
      * @throws SQLException if the database could be neither opened or created
      */
     public ItemsetDbAdapter open() throws SQLException {
-        dbHelper = new DatabaseHelper();
+        dbHelper = new DatabaseHelper(metadataDirPath);
         db = dbHelper.getWritableDatabase();
         return this;
     }
@@ -93,7 +115,7 @@ public class ItemsetDbAdapter implements Closeable {
         dbHelper.close();
     }
 
-    public boolean createTable(String formHash, String pathHash, String[] columns, String path) {
+    public void createTable(String pathHash, String[] columns) {
         StringBuilder sb = new StringBuilder();
 
         // get md5 of the path to itemset.csv, which is unique per form
@@ -119,27 +141,63 @@ public class ItemsetDbAdapter implements Closeable {
         String tableCreate = sb.toString();
         Timber.i("create string: %s", tableCreate);
         db.execSQL(tableCreate);
+    }
 
+    /**
+     * Records that the itemsets.csv at {@code path} (with the hash {@code formHash}) has been
+     * fully imported.
+     */
+    public void addItemset(String formHash, String path) {
         ContentValues cv = new ContentValues();
         cv.put(KEY_ITEMSET_HASH, formHash);
-        cv.put(KEY_PATH, PathUtils.getRelativeFilePath(new StoragePathProvider().getOdkDirPath(StorageSubdirectory.FORMS), path));
+        cv.put(KEY_PATH, PathUtils.getRelativeFilePath(formsDirPath, path));
         db.insert(ITEMSET_TABLE, null, cv);
+    }
+
+    /**
+     * Compiles an insert for the table created by {@link #createTable}. Values are bound in
+     * the order of the non empty {@code columns} (starting at 1).
+     */
+    public SQLiteStatement compileInsert(String pathHash, String[] columns) {
+        StringBuilder names = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+
+        for (String column : columns) {
+            if (!column.isEmpty()) {
+                if (names.length() > 0) {
+                    names.append(", ");
+                    values.append(", ");
+                }
+
+                names.append('"').append(column).append('"');
+                values.append('?');
+            }
+        }
 
-        return true;
+        return db.compileStatement("INSERT INTO " + DATABASE_TABLE + pathHash
+                + " (" + names + ") VALUES (" + values + ");");
     }
 
-    public boolean addRow(String tableName, String[] columns, String[] newRow) {
-        ContentValues cv = new ContentValues();
+    /**
+     * Creates an index for each set of columns that itemset queries filter on (if it doesn't
+     * already exist). Every query filters on {@code list_name} so it is always the first column.
+     */
+    public void createIndexes(String pathHash, Collection<List<String>> queryColumns) {
+        for (List<String> columns : queryColumns) {
+            StringBuilder indexColumns = new StringBuilder("list_name");
+            for (String column : columns) {
+                indexColumns.append(", \"").append(column).append('"');
+            }
 
-        // rows don't necessarily use all the columns
-        // but a column is guaranteed to exist for a row (or else blow up)
-        for (int i = 0; i < newRow.length; i++) {
-            if (!columns[i].isEmpty()) {
-                cv.put("\"" + columns[i] + "\"", newRow[i]);
+            String indexName = DATABASE_TABLE + pathHash + "_" + getMd5FromString(indexColumns.toString());
+            try {
+                db.execSQL("CREATE INDEX IF NOT EXISTS " + indexName + " ON "
+                        + DATABASE_TABLE + pathHash + " (" + indexColumns + ");");
+            } catch (SQLException e) {
+                // the query refers to a column the itemsets don't have
+                Timber.w(e);
             }
         }
-        db.insert(DATABASE_TABLE + tableName, null, cv);
-        return true;
     }
 
     public void beginTransaction() {
@@ -162,7 +220,7 @@ public class ItemsetDbAdapter implements Closeable {
         // and remove the entry from the itemsets table
         String where = KEY_PATH + "=?";
         String[] whereArgs = {
-                PathUtils.getRelativeFilePath(new StoragePathProvider().getOdkDirPath(StorageSubdirectory.FORMS), path)
+                PathUtils.getRelativeFilePath(formsDirPath, path)
         };
         db.delete(ITEMSET_TABLE, where, whereArgs);
     }
@@ -170,7 +228,7 @@ public class ItemsetDbAdapter implements Closeable {
     public Cursor getItemsets(String path) {
         String selection = KEY_PATH + "=?";
         String[] selectionArgs = {
-                PathUtils.getRelativeFilePath(new StoragePathProvider().getOdkDirPath(StorageSubdirectory.FORMS), path)
+                PathUtils.getRelativeFilePath(formsDirPath, path)
         };
         return db.query(ITEMSET_TABLE, null, selection, selectionArgs, null, null, null);
     }
@@ -184,12 +242,11 @@ public class ItemsetDbAdapter implements Closeable {
     }
 
     public void delete(String path) {
-        StoragePathProvider storagePathProvider = new StoragePathProvider();
         Cursor c = getItemsets(path);
         if (c != null) {
             if (c.getCount() == 1) {
                 c.moveToFirst();
-                String table = getMd5FromString(PathUtils.getAbsoluteFilePath(storagePathProvider.getOdkDirPath(StorageSubdirectory.FORMS), c.getString(c.getColumnIndex(KEY_PATH))));
+                String table = getMd5FromString(PathUtils.getAbsoluteFilePath(formsDirPath, c.getString(c.getColumnIndex(KEY_PATH))));
                 db.execSQL("DROP TABLE IF EXISTS " + DATABASE_TABLE + table);
             }
             c.close();
@@ -197,7 +254,7 @@ public class ItemsetDbAdapter implements Closeable {
 
         String where = KEY_PATH + "=?";
         String[] whereArgs = {
-                PathUtils.getRelativeFilePath(new StoragePathProvider().getOdkDirPath(StorageSubdirectory.FORMS), path)
+                PathUtils.getRelativeFilePath(formsDirPath, path)
         };
         db.delete(ITEMSET_TABLE, where, whereArgs);
     }
@@ -0,0 +1,214 @@
+package org.odk.collect.android.fastexternalitemset;
+
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+import org.javarosa.core.model.IFormElement;
+import org.javarosa.core.model.QuestionDef;
+import org.javarosa.xpath.expr.XPathExpression;
+import org.javarosa.xpath.parser.XPathSyntaxException;
+import org.kxml2.io.KXmlParser;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The parsed form of an itemset question's {@code query} attribute, for example:
+ * <p>
+ * {@code instance('cities')/root/item[state=/data/state and county=/data/county]}
+ * <p>
+ * Parsing (including the argument expressions) only happens once per query as cascading selects
+ * look up their items again every time an earlier answer changes.
+ */
+public final class ItemsetQuery {
+
+    private static final String QUOTATION_MARK = "\"";
+    private static final int MAX_CACHED_QUERIES = 100;
+
+    private static final LruCache<String, ItemsetQuery> CACHE = new LruCache<>(MAX_CACHED_QUERIES);
+
+    private final String listName;
+    private final String selection;
+    private final List<String> columns;
+    private final List<String> arguments;
+    private final XPathExpression[] argumentExpressions;
+
+    private ItemsetQuery(String listName, String selection, List<String> columns, List<String> arguments) {
+        this.listName = listName;
+        this.selection = selection;
+        this.columns = columns;
+        this.arguments = arguments;
+        this.argumentExpressions = new XPathExpression[arguments.size()];
+    }
+
+    @NonNull
+    public static ItemsetQuery parse(@NonNull String nodeset) {
+        ItemsetQuery query = CACHE.get(nodeset);
+        if (query == null) {
+            query = parseNodeset(nodeset);
+            CACHE.put(nodeset, query);
+        }
+
+        return query;
+    }
+
+    /**
+     * Adds the {@code query} attribute of every itemset question under {@code element} to
+     * {@code queries}.
+     */
+    public static void collectQueries(IFormElement element, Set<String> queries) {
+        if (element instanceof QuestionDef) {
+            String query = ((QuestionDef) element).getAdditionalAttribute(null, "query");
+            if (query != null) {
+                queries.add(query);
+            }
+        }
+
+        List<IFormElement> children = element.getChildren();
+        if (children != null) {
+            for (IFormElement child : children) {
+                collectQueries(child, queries);
+            }
+        }
+    }
+
+    /**
+     * Adds the {@code query} attribute of every element in the form definition {@code formXml} to
+     * {@code queries}. This only scans the XML so it can be used without parsing the form.
+     */
+    public static void collectQueries(File formXml, Set<String> queries) throws IOException, XmlPullParserException {
+        try (Reader reader = new BufferedReader(new FileReader(formXml))) {
+            KXmlParser parser = new KXmlParser();
+            parser.setInput(reader);
+
+            int eventType;
+            while ((eventType = parser.next()) != XmlPullParser.END_DOCUMENT) {
+                if (eventType == XmlPullParser.START_TAG) {
+                    String query = parser.getAttributeValue(null, "query");
+                    if (query != null) {
+                        queries.add(query);
+                    }
+                }
+            }
+        }
+    }
+
+    public String getListName() {
+        return listName;
+    }
+
+    /**
+     * The SQL selection for the query. The list name is always the first argument followed by
+     * the values of {@link #getArguments()}.
+     */
+    public String getSelection() {
+        return selection;
+    }
+
+    /**
+     * The itemset columns that are compared against (in the order they appear in the query).
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    public synchronized XPathExpression getArgumentExpression(int index, XPathParseTool pathParseTool) throws XPathSyntaxException {
+        if (argumentExpressions[index] == null) {
+            argumentExpressions[index] = pathParseTool.parseXPath(arguments.get(index));
+        }
+
+        return argumentExpressions[index];
+    }
+
+    private static ItemsetQuery parseNodeset(String nodeset) {
+        // parse out the list name, between the ''
+        String listName = nodeset.substring(nodeset.indexOf('\'') + 1, nodeset.lastIndexOf('\''));
+
+        // isolate the string between between the [ ] characters
+        String queryString = nodeset.substring(nodeset.indexOf('[') + 1, nodeset.lastIndexOf(']'));
+
+        List<String> columns = new ArrayList<>();
+        List<String> arguments = new ArrayList<>();
+
+        StringBuilder selectionString = new StringBuilder();
+        // add the list name as the first argument, which will always be there
+        selectionString.append("list_name=?");
+
+        // check to see if there are any arguments
+        if (queryString.indexOf('=') != -1) {
+            selectionString.append(" and ");
+        }
+
+        // can't just split on 'and' or 'or' because they have different
+        // behavior, so loop through and break them off until we don't have any more
+        // must include the spaces in indexOf so we don't match words like "land"
+        int andIndex;
+        int orIndex = -1;
+
+        while ((andIndex = queryString.indexOf(" and ")) != -1 || (orIndex = queryString.indexOf(" or ")) != -1) {
+            if (andIndex != -1) {
+                String[] pair = queryString
+                        .substring(0, andIndex)
+                        .split("=");
+
+                if (pair.length == 2) {
+                    appendComparison(selectionString, pair, columns, arguments);
+                    selectionString.append(" and ");
+                }
+                // move string forward to after " and "
+                queryString = queryString.substring(andIndex + 5);
+            } else {
+                String[] pair = queryString
+                        .substring(0, orIndex)
+                        .split("=");
+
+                if (pair.length == 2) {
+                    appendComparison(selectionString, pair, columns, arguments);
+                    selectionString.append(" or ");
+                }
+                // move string forward to after " or "
+                queryString = queryString.substring(orIndex + 4);
+            }
+        }
+
+        // parse the last segment (or only segment if there are no 'and' or 'or' clauses
+        String[] pair = queryString.split("=");
+        if (pair.length == 2) {
+            appendComparison(selectionString, pair, columns, arguments);
+        }
+
+        return new ItemsetQuery(
+                listName,
+                selectionString.toString(),
+                Collections.unmodifiableList(columns),
+                Collections.unmodifiableList(arguments)
+        );
+    }
+
+    private static void appendComparison(StringBuilder selectionString, String[] pair, List<String> columns, List<String> arguments) {
+        String column = pair[0].trim();
+
+        selectionString
+                .append(QUOTATION_MARK)
+                .append(column)
+                .append(QUOTATION_MARK)
+                .append("=?");
+
+        columns.add(column);
+        arguments.add(pair[1].trim());
+    }
+}
@@ -0,0 +1,191 @@
+package org.odk.collect.android.fastexternalitemset;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import org.javarosa.core.model.FormDef;
+import org.odk.collect.shared.files.FileHashIndex;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import timber.log.Timber;
+
+/**
+ * Loads a form's itemsets.csv into the itemsets database. Rows are inserted with a single
+ * compiled statement and committed in chunks. The itemset is only recorded as imported once every
+ * row has been inserted so a cancelled or failed import is started again next time.
+ */
+public final class ItemsetsCsvImporter {
+
+    private static final int ROWS_PER_TRANSACTION = 10_000;
+    private static final int ROWS_PER_PROGRESS_UPDATE = 1_000;
+
+    private ItemsetsCsvImporter() {
+
+    }
+
+    /**
+     * Imports {@code csv} if it hasn't been imported before or has changed since it was. A CSV
+     * without a header row isn't recorded as imported (just like a cancelled import) so there is
+     * never a record of itemsets that don't have a table.
+     *
+     * @return {@code true} if the itemsets are ready to use
+     */
+    public static boolean importIfChanged(@NonNull File csv, @NonNull FileHashIndex fileHashIndex, @Nullable Listener listener) throws IOException, CsvValidationException {
+        return importIfChanged(csv, new ItemsetDbAdapter(), fileHashIndex, listener);
+    }
+
+    /**
+     * Like {@link #importIfChanged(File, FileHashIndex, Listener)} but imports into {@code ida}'s database
+     * rather than the current project's.
+     */
+    public static boolean importIfChanged(@NonNull File csv, @NonNull ItemsetDbAdapter ida, @NonNull FileHashIndex fileHashIndex, @Nullable Listener listener) throws IOException, CsvValidationException {
+        String csvMd5 = fileHashIndex.getMd5Hash(csv);
+        String pathHash = ItemsetDbAdapter.getMd5FromString(csv.getAbsolutePath());
+
+        ida.open();
+        try {
+            if (csvMd5 != null && csvMd5.equals(getImportedMd5(ida, csv))) {
+                return true;
+            }
+
+            // clears out the old version (or anything left over from an incomplete import)
+            ida.dropTable(pathHash, csv.getAbsolutePath());
+
+            try {
+                if (load(ida, csv, pathHash, listener)) {
+                    ida.addItemset(csvMd5, csv.getAbsolutePath());
+                    return true;
+                } else {
+                    Timber.w("%s was not imported", csv.getAbsolutePath());
+                    ida.dropTable(pathHash, csv.getAbsolutePath());
+                    return false;
+                }
+            } catch (IOException | CsvValidationException | SQLException e) {
+                ida.dropTable(pathHash, csv.getAbsolutePath());
+                throw e;
+            }
+        } finally {
+            ida.close();
+        }
+    }
+
+    /**
+     * Indexes the itemsets table on the columns the form's itemset queries filter on so that
+     * cascading selects don't have to scan the whole table each time they change.
+     */
+    public static void createIndexes(@NonNull File csv, @NonNull FormDef formDef) {
+        Set<String> queries = new HashSet<>();
+        ItemsetQuery.collectQueries(formDef, queries);
+        createIndexes(csv, queries, new ItemsetDbAdapter());
+    }
+
+    public static void createIndexes(@NonNull File csv, @NonNull Collection<String> queries, @NonNull ItemsetDbAdapter ida) {
+        if (queries.isEmpty()) {
+            return;
+        }
+
+        Set<List<String>> queryColumns = new HashSet<>();
+        for (String query : queries) {
+            queryColumns.add(ItemsetQuery.parse(query).getColumns());
+        }
+
+        ida.open();
+        try {
+            ida.createIndexes(ItemsetDbAdapter.getMd5FromString(csv.getAbsolutePath()), queryColumns);
+        } finally {
+            ida.close();
+        }
+    }
+
+    @Nullable
+    private static String getImportedMd5(ItemsetDbAdapter ida, File csv) {
+        try (Cursor c = ida.getItemsets(csv.getAbsolutePath())) {
+            if (c != null && c.getCount() == 1) {
+                c.moveToFirst();
+                return c.getString(c.getColumnIndex(ItemsetDbAdapter.KEY_ITEMSET_HASH));
+            } else {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if the import was cancelled or {@code csv} is empty
+     */
+    private static boolean load(ItemsetDbAdapter ida, File csv, String pathHash, @Nullable Listener listener) throws IOException, CsvValidationException {
+        try (CSVReader reader = new CSVReader(new FileReader(csv))) {
+            // first line of csv is column headers
+            String[] columnHeaders = reader.readNext();
+            if (columnHeaders == null) {
+                Timber.w("%s has no column headers", csv.getAbsolutePath());
+                return false;
+            }
+
+            ida.createTable(pathHash, columnHeaders);
+            SQLiteStatement insert = ida.compileInsert(pathHash, columnHeaders);
+
+            ida.beginTransaction();
+            try {
+                int rowCount = 0;
+                String[] row;
+                while ((row = reader.readNext()) != null) {
+                    if (listener != null && listener.isCancelled()) {
+                        return false;
+                    }
+
+                    insert.clearBindings();
+
+                    // rows don't necessarily use all the columns
+                    int boundColumn = 0;
+                    for (int i = 0; i < columnHeaders.length; i++) {
+                        if (columnHeaders[i].isEmpty()) {
+                            continue;
+                        }
+
+                        boundColumn++;
+                        if (i < row.length && row[i] != null) {
+                            insert.bindString(boundColumn, row[i]);
+                        }
+                    }
+
+                    insert.executeInsert();
+                    rowCount++;
+
+                    if (rowCount % ROWS_PER_TRANSACTION == 0) {
+                        ida.commit();
+                        ida.beginTransaction();
+                    }
+
+                    if (listener != null && rowCount % ROWS_PER_PROGRESS_UPDATE == 0) {
+                        listener.onProgress(rowCount);
+                    }
+                }
+
+                return true;
+            } finally {
+                ida.commit();
+                insert.close();
+            }
+        }
+    }
+
+    public interface Listener {
+        boolean isCancelled();
+
+        void onProgress(int rowsImported);
+    }
+}
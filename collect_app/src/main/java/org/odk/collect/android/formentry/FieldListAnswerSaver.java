@@ -0,0 +1,76 @@
+package org.odk.collect.android.formentry;
+
+import androidx.annotation.Nullable;
+
+import org.javarosa.core.model.FormIndex;
+import org.javarosa.core.model.data.IAnswerData;
+import org.javarosa.form.api.FormEntryPrompt;
+import org.odk.collect.android.exception.JavaRosaException;
+import org.odk.collect.android.javarosawrapper.FormController;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import timber.log.Timber;
+
+/**
+ * Saves the answers on a field-list screen one by one so that calculations between questions on
+ * the same screen are evaluated. Only answers that are different from what's in the form are
+ * saved. Usually this is just the answer that was changed so it avoids re-evaluating the form's
+ * calculations for every question on the screen.
+ */
+public final class FieldListAnswerSaver {
+
+    private FieldListAnswerSaver() {
+
+    }
+
+    /**
+     * @param questions the questions on the screen before anything has been saved
+     * @param answers   the answers currently entered on the screen
+     */
+    public static void saveChangedAnswers(FormController formController, List<FormEntryPrompt> questions, Map<FormIndex, IAnswerData> answers) {
+        Map<FormIndex, FormEntryPrompt> questionsByIndex = new HashMap<>();
+        for (FormEntryPrompt question : questions) {
+            questionsByIndex.put(question.getIndex(), question);
+        }
+
+        // Work out what has changed before saving anything as saving one answer can update others
+        List<Map.Entry<FormIndex, IAnswerData>> changedAnswers = new ArrayList<>();
+        Map<FormIndex, String> answerTextsBeforeSave = new HashMap<>();
+        for (Map.Entry<FormIndex, IAnswerData> answer : answers.entrySet()) {
+            FormEntryPrompt question = questionsByIndex.get(answer.getKey());
+            if (question == null || !isSameAnswer(answer.getValue(), question.getAnswerValue())) {
+                changedAnswers.add(answer);
+                answerTextsBeforeSave.put(answer.getKey(), question != null ? question.getAnswerText() : null);
+            }
+        }
+
+        for (Map.Entry<FormIndex, IAnswerData> answer : changedAnswers) {
+            FormEntryPrompt question = questionsByIndex.get(answer.getKey());
+
+            // Questions with calculates will have their answers updated as the questions they depend on are saved
+            if (question == null || !isQuestionRecalculated(question, answerTextsBeforeSave.get(answer.getKey()))) {
+                try {
+                    formController.saveOneScreenAnswer(answer.getKey(), answer.getValue(), false);
+                } catch (JavaRosaException e) {
+                    Timber.e(e);
+                }
+            }
+        }
+    }
+
+    private static boolean isSameAnswer(@Nullable IAnswerData answer, @Nullable IAnswerData other) {
+        String answerValue = answer != null ? answer.uncast().getString() : null;
+        String otherValue = other != null ? other.uncast().getString() : null;
+        return Objects.equals(answerValue, otherValue);
+    }
+
+    // If an answer has changed after saving one of previous answers that means it has been recalculated automatically
+    private static boolean isQuestionRecalculated(FormEntryPrompt question, @Nullable String answerTextBeforeSave) {
+        return !Objects.equals(question.getAnswerText(), answerTextBeforeSave);
+    }
+}
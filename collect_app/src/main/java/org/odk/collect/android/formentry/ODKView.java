@@ -108,16 +108,36 @@ import timber.log.Timber;
  * Contains either one {@link QuestionWidget} if the current form element is a question or
  * multiple {@link QuestionWidget}s if the current form element is a group with the
  * {@code field-list} appearance.
+ * <p>
+ * For large field-lists, widgets are only created for the questions near the part of the list
+ * that's on screen. Every other question has a placeholder that's swapped for its widget as it's
+ * scrolled towards. Answers for questions without widgets are read from the form so nothing is
+ * lost, and widgets are kept once they've been created as they can be waiting for data from
+ * other apps.
  */
 @SuppressLint("ViewConstructor")
 public class ODKView extends SwipeHandler.View implements OnLongClickListener, WidgetValueChangedListener {
 
+    /**
+     * Field-lists with more questions than this only create widgets on demand.
+     */
+    private static final int MAX_QUESTIONS_TO_CREATE_UP_FRONT = 30;
+
+    /**
+     * The number of widgets created straight away for field-lists that create the rest on demand.
+     */
+    private static final int INITIAL_WIDGET_COUNT = 10;
+
+    private static final int PLACEHOLDER_HEIGHT_DP = 120;
+
     private final LinearLayout widgetsList;
     private final LinearLayout.LayoutParams layout;
-    private final ArrayList<QuestionWidget> widgets;
+    private final ArrayList<Slot> slots;
     private final AudioHelper audioHelper;
+    private final boolean createWidgetsOnDemand;
 
     private WidgetValueChangedListener widgetValueChangedListener;
+    private OnFocusChangeListener widgetFocusChangeListener;
 
     @Inject
     PermissionsProvider permissionsProvider;
@@ -185,7 +205,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
                 formController
         );
 
-        widgets = new ArrayList<>();
+        slots = new ArrayList<>();
         widgetsList = findViewById(R.id.widgets);
 
         layout = new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT,
@@ -193,8 +213,24 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
         // display which group you are in as well as the question
         setGroupText(groups);
 
-        for (FormEntryPrompt question : questionPrompts) {
-            addWidgetForQuestion(question);
+        // intent groups set the values of all their widgets at once so they always create them
+        createWidgetsOnDemand = !readOnlyOverride && questionPrompts.length > MAX_QUESTIONS_TO_CREATE_UP_FRONT;
+
+        for (int i = 0; i < questionPrompts.length; i++) {
+            if (createWidgetsOnDemand && i >= INITIAL_WIDGET_COUNT) {
+                addPlaceholderForQuestion(questionPrompts[i]);
+            } else {
+                addWidgetForQuestion(questionPrompts[i]);
+            }
+        }
+
+        if (createWidgetsOnDemand) {
+            NestedScrollView scrollView = verticalScrollView();
+            scrollView.setOnScrollChangeListener((NestedScrollView.OnScrollChangeListener) (v, scrollX, scrollY, oldScrollX, oldScrollY) -> createWidgetsNearScreen());
+            scrollView.addOnLayoutChangeListener((v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) -> {
+                // creating widgets changes the layout so wait for it to finish before creating more
+                post(this::createWidgetsNearScreen);
+            });
         }
 
         setupAudioErrors();
@@ -220,8 +256,8 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
 
         // see if there is an autoplay option.
         // Only execute it during forward swipes through the form
-        if (advancingPage && widgets.size() == 1) {
-            FormEntryPrompt firstPrompt = widgets.get(0).getFormEntryPrompt();
+        if (advancingPage && slots.size() == 1) {
+            FormEntryPrompt firstPrompt = slots.get(0).prompt;
             Boolean autoplayedAudio = autoplayAudio(firstPrompt);
 
             if (!autoplayedAudio) {
@@ -246,7 +282,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
         if (autoplayOption != null) {
             if (autoplayOption.equalsIgnoreCase("video")) {
                 new Handler().postDelayed(() -> {
-                    widgets.get(0).getAudioVideoImageTextLabel().playVideo();
+                    getOrCreateWidget(0).getAudioVideoImageTextLabel().playVideo();
                 }, 150);
             }
         }
@@ -260,14 +296,74 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
     private void addWidgetForQuestion(FormEntryPrompt question) {
         QuestionWidget qw = configureWidgetForQuestion(question);
 
-        widgets.add(qw);
+        slots.add(new Slot(question, qw, qw));
 
-        if (widgets.size() > 1) {
+        if (slots.size() > 1) {
             widgetsList.addView(getDividerView());
         }
         widgetsList.addView(qw, layout);
     }
 
+    /**
+     * Adds a placeholder for the given {@link FormEntryPrompt} to the end of the view. Its widget
+     * will be created when it's scrolled towards.
+     */
+    private void addPlaceholderForQuestion(FormEntryPrompt question) {
+        View placeholder = new View(getContext());
+        placeholder.setMinimumHeight((int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+                PLACEHOLDER_HEIGHT_DP, getResources().getDisplayMetrics()));
+
+        slots.add(new Slot(question, null, placeholder));
+
+        if (slots.size() > 1) {
+            widgetsList.addView(getDividerView());
+        }
+        widgetsList.addView(placeholder, layout);
+    }
+
+    /**
+     * Creates the widgets for the placeholders that are on screen or within a screen's height of
+     * it.
+     */
+    private void createWidgetsNearScreen() {
+        NestedScrollView scrollView = verticalScrollView();
+        int limit = scrollView.getScrollY() + scrollView.getHeight() * 2 - widgetsList.getTop();
+
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            if (slot.view.getTop() > limit) {
+                break;
+            }
+
+            if (slot.widget == null) {
+                getOrCreateWidget(i);
+            }
+        }
+    }
+
+    /**
+     * Returns the widget at {@code index}, replacing its placeholder with a newly created widget
+     * if it doesn't have one yet.
+     */
+    private QuestionWidget getOrCreateWidget(int index) {
+        Slot slot = slots.get(index);
+        if (slot.widget == null) {
+            QuestionWidget qw = configureWidgetForQuestion(slot.prompt);
+            if (widgetFocusChangeListener != null) {
+                qw.setOnFocusChangeListener(widgetFocusChangeListener);
+            }
+
+            int viewIndex = widgetsList.indexOfChild(slot.view);
+            widgetsList.removeViewAt(viewIndex);
+            widgetsList.addView(qw, viewIndex, layout);
+
+            slots.set(index, new Slot(slot.prompt, qw, qw));
+            return qw;
+        } else {
+            return slot.widget;
+        }
+    }
+
     /**
      * Creates a {@link QuestionWidget} for the given {@link FormEntryPrompt}, sets its listeners,
      * and adds it to the view at the specified {@code index}. If this widget is not the first one,
@@ -275,14 +371,14 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
      * add it to the end.
      */
     public void addWidgetForQuestion(FormEntryPrompt question, int index) {
-        if (index > widgets.size() - 1) {
+        if (index > slots.size() - 1) {
             addWidgetForQuestion(question);
             return;
         }
 
         QuestionWidget qw = configureWidgetForQuestion(question);
 
-        widgets.add(index, qw);
+        slots.add(index, new Slot(question, qw, qw));
 
         int indexAccountingForDividers = index * 2;
         if (index > 0) {
@@ -318,13 +414,14 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
      */
     public HashMap<FormIndex, IAnswerData> getAnswers() {
         HashMap<FormIndex, IAnswerData> answers = new LinkedHashMap<>();
-        for (QuestionWidget q : widgets) {
+        for (Slot slot : slots) {
             /*
              * The FormEntryPrompt has the FormIndex, which is where the answer gets stored. The
-             * QuestionWidget has the answer the user has entered.
+             * QuestionWidget has the answer the user has entered. Questions that don't have a
+             * widget yet can't have been changed so their answer is the one in the form.
              */
-            FormEntryPrompt p = q.getFormEntryPrompt();
-            answers.put(p.getIndex(), q.getAnswer());
+            FormEntryPrompt p = slot.prompt;
+            answers.put(p.getIndex(), slot.widget != null ? slot.widget.getAnswer() : p.getAnswerValue());
         }
 
         return answers;
@@ -459,8 +556,8 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
     }
 
     public void setFocus(Context context) {
-        if (!widgets.isEmpty()) {
-            widgets.get(0).setFocus(context);
+        if (!slots.isEmpty()) {
+            getOrCreateWidget(0).setFocus(context);
         }
     }
 
@@ -474,7 +571,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
     }
 
     public void scrollTo(@Nullable QuestionWidget qw) {
-        if (qw != null && widgets.contains(qw)) {
+        if (qw != null && getWidgets().contains(qw)) {
             findViewById(R.id.odk_view_container).scrollTo(0, qw.getTop());
         }
     }
@@ -492,7 +589,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
                 if (answer == null) {
                     continue;
                 }
-                for (QuestionWidget questionWidget : widgets) {
+                for (QuestionWidget questionWidget : getWidgets()) {
                     FormEntryPrompt prompt = questionWidget.getFormEntryPrompt();
                     TreeReference treeReference =
                             (TreeReference) prompt.getFormElement().getBind().getReference();
@@ -557,7 +654,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
 
     @Override
     public boolean shouldSuppressFlingGesture() {
-        for (QuestionWidget q : widgets) {
+        for (QuestionWidget q : getWidgets()) {
             if (q.shouldSuppressFlingGesture()) {
                 return true;
             }
@@ -577,22 +674,46 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
     public boolean clearAnswer() {
         // If there's only one widget, clear the answer.
         // If there are more, then force a long-press to clear the answer.
-        if (widgets.size() == 1 && !widgets.get(0).getFormEntryPrompt().isReadOnly()) {
-            widgets.get(0).clearAnswer();
+        if (slots.size() == 1 && !slots.get(0).prompt.isReadOnly()) {
+            getOrCreateWidget(0).clearAnswer();
             return true;
         } else {
             return false;
         }
     }
 
+    /**
+     * @return the widgets that have been created so far. Questions that haven't been scrolled
+     * towards in large field-lists won't have one yet.
+     */
     public ArrayList<QuestionWidget> getWidgets() {
+        ArrayList<QuestionWidget> widgets = new ArrayList<>(slots.size());
+        for (Slot slot : slots) {
+            if (slot.widget != null) {
+                widgets.add(slot.widget);
+            }
+        }
+
         return widgets;
     }
 
+    /**
+     * @return the questions on this screen in the order they are displayed, whether or not their
+     * widgets have been created yet
+     */
+    public List<FormEntryPrompt> getQuestionPrompts() {
+        List<FormEntryPrompt> prompts = new ArrayList<>(slots.size());
+        for (Slot slot : slots) {
+            prompts.add(slot.prompt);
+        }
+
+        return prompts;
+    }
+
     @Override
     public void setOnFocusChangeListener(OnFocusChangeListener l) {
-        for (int i = 0; i < widgets.size(); i++) {
-            QuestionWidget qw = widgets.get(i);
+        widgetFocusChangeListener = l;
+        for (QuestionWidget qw : getWidgets()) {
             qw.setOnFocusChangeListener(l);
         }
     }
@@ -605,7 +726,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
     @Override
     public void cancelLongPress() {
         super.cancelLongPress();
-        for (QuestionWidget qw : widgets) {
+        for (QuestionWidget qw : getWidgets()) {
             qw.cancelLongPress();
         }
     }
@@ -615,7 +736,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
      * view to display that question at the top and gives it focus.
      */
     public void highlightWidget(FormIndex formIndex) {
-        QuestionWidget qw = getQuestionWidget(formIndex);
+        QuestionWidget qw = getOrCreateWidget(formIndex);
 
         if (qw != null) {
             // postDelayed is needed because otherwise scrolling may not work as expected in case when
@@ -634,10 +755,31 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
         }
     }
 
-    private QuestionWidget getQuestionWidget(FormIndex formIndex) {
-        for (QuestionWidget qw : widgets) {
-            if (formIndex.equals(qw.getFormEntryPrompt().getIndex())) {
-                return qw;
+    /**
+     * @return the widget for the question at {@code formIndex} (creating it if it doesn't have one
+     * yet) or null if the question isn't in this view
+     */
+    @Nullable
+    public QuestionWidget getOrCreateWidget(FormIndex formIndex) {
+        for (int i = 0; i < slots.size(); i++) {
+            if (formIndex.equals(slots.get(i).prompt.getIndex())) {
+                return getOrCreateWidget(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the widget for the question that {@code waitingForDataRegistry} is waiting for data
+     * for (creating it if it doesn't have one yet) or null if none of the questions in this view
+     * are waiting. The widget might not exist yet if the activity was recreated while another app
+     * was open.
+     */
+    @Nullable
+    public QuestionWidget getWidgetWaitingForData(WaitingForDataRegistry waitingForDataRegistry) {
+        for (int i = 0; i < slots.size(); i++) {
+            if (waitingForDataRegistry.isWaitingForData(slots.get(i).prompt.getIndex())) {
+                return getOrCreateWidget(i);
             }
         }
         return null;
@@ -659,7 +801,7 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
             widgetsList.removeViewAt(indexAccountingForDividers - 1);
         }
 
-        widgets.remove(index);
+        slots.remove(index);
     }
 
     public void setWidgetValueChangedListener(WidgetValueChangedListener listener) {
@@ -671,4 +813,21 @@ public class ODKView extends SwipeHandler.View implements OnLongClickListener, W
             widgetValueChangedListener.widgetValueChanged(changedWidget);
         }
     }
+
+    private static class Slot {
+        final FormEntryPrompt prompt;
+        @Nullable
+        final QuestionWidget widget;
+
+        /**
+         * The widget or the placeholder shown until it's created.
+         */
+        final View view;
+
+        Slot(FormEntryPrompt prompt, @Nullable QuestionWidget widget, View view) {
+            this.prompt = prompt;
+            this.widget = widget;
+            this.view = view;
+        }
+    }
 }
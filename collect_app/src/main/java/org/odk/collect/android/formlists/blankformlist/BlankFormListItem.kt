@@ -3,6 +3,7 @@ package org.odk.collect.android.formlists.blankformlist
 import android.net.Uri
 import org.odk.collect.android.external.FormsContract
 import org.odk.collect.forms.Form
+import org.odk.collect.forms.FormVersion
 import org.odk.collect.forms.instances.InstancesRepository
 
 data class BlankFormListItem(
@@ -17,17 +18,17 @@ data class BlankFormListItem(
     val contentUri: Uri
 )
 
-fun Form.toBlankFormListItem(projectId: String, instancesRepository: InstancesRepository) = BlankFormListItem(
+/**
+ * @param lastStatusChangeDates the result of [InstancesRepository.getLastStatusChangeDatesByFormVersion]
+ */
+fun Form.toBlankFormListItem(projectId: String, lastStatusChangeDates: Map<FormVersion, Long>) = BlankFormListItem(
     databaseId = this.dbId,
     formId = this.formId,
     formName = this.displayName,
     formVersion = this.version ?: "",
     geometryPath = this.geometryXpath ?: "",
     dateOfCreation = this.date,
-    dateOfLastUsage = instancesRepository
-        .getAllByFormId(this.formId)
-        .filter { it.formVersion == this.version }
-        .maxByOrNull { it.lastStatusChangeDate }?.lastStatusChangeDate ?: 0L,
+    dateOfLastUsage = lastStatusChangeDates[FormVersion(this.formId, this.version)] ?: 0L,
     dateOfLastDetectedAttachmentsUpdate = this.lastDetectedAttachmentsUpdateDate,
     contentUri = FormsContract.getUri(projectId, this.dbId)
 )
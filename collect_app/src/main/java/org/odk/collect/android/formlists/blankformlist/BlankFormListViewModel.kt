@@ -3,6 +3,7 @@ package org.odk.collect.android.formlists.blankformlist
 import android.app.Application
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
+import androidx.lifecycle.Observer
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.ViewModelProvider
 import androidx.lifecycle.map
@@ -30,9 +31,28 @@ class BlankFormListViewModel(
 
     private val _filterText = MutableLiveData("")
     private val _sortingOrder = MutableLiveData(generalSettings.getInt("formChooserListSortingOrder"))
-    private val filteredForms = LiveDataUtils.zip3(formsDataService.getForms(projectId), _filterText, _sortingOrder)
-    val formsToDisplay: LiveData<List<BlankFormListItem>> = filteredForms.map { (forms, filter, sort) ->
-        filterAndSortForms(forms, sort, filter)
+
+    /**
+     * The items for the current forms. These are only rebuilt (off the main thread) when the forms
+     * change so filtering and sorting don't have to hit the database.
+     */
+    private val listItems = MutableLiveData<List<ListItem>>()
+    private var listItemsGeneration = 0
+    private val formsObserver = Observer<List<Form>> { forms ->
+        val generation = ++listItemsGeneration
+        scheduler.immediate(
+            background = { createListItems(forms) },
+            foreground = { items ->
+                if (generation == listItemsGeneration) {
+                    listItems.value = items
+                }
+            }
+        )
+    }
+
+    private val filteredForms = LiveDataUtils.zip3(listItems, _filterText, _sortingOrder)
+    val formsToDisplay: LiveData<List<BlankFormListItem>> = filteredForms.map { (items, filter, sort) ->
+        filterAndSortForms(items, sort, filter)
     }
 
     val syncResult: LiveData<String?> = formsDataService.getDiskError(projectId)
@@ -60,6 +80,12 @@ class BlankFormListViewModel(
             },
             foreground = {}
         )
+
+        formsDataService.getForms(projectId).observeForever(formsObserver)
+    }
+
+    override fun onCleared() {
+        formsDataService.getForms(projectId).removeObserver(formsObserver)
     }
 
     fun syncWithServer(): LiveData<Boolean> {
@@ -107,16 +133,14 @@ class BlankFormListViewModel(
         )
     }
 
-    private fun filterAndSortForms(
-        forms: List<Form>,
-        sort: Int?,
-        filter: String
-    ): List<BlankFormListItem> {
+    private fun createListItems(forms: List<Form>): List<ListItem> {
+        val lastStatusChangeDates = instancesRepository.getLastStatusChangeDatesByFormVersion()
+
         var newListOfForms = forms
             .filter {
                 !it.isDeleted
             }.map { form ->
-                form.toBlankFormListItem(projectId, instancesRepository)
+                form.toBlankFormListItem(projectId, lastStatusChangeDates)
             }
 
         if (!showAllVersions) {
@@ -129,24 +153,37 @@ class BlankFormListViewModel(
             }
         }
 
-        return when (sort) {
-            0 -> newListOfForms.sortedBy { it.formName.lowercase() }
-            1 -> newListOfForms.sortedByDescending { it.formName.lowercase() }
-            2 -> newListOfForms.sortedByDescending {
-                it.dateOfLastDetectedAttachmentsUpdate ?: it.dateOfCreation
+        return newListOfForms.map { ListItem(it, it.formName.lowercase()) }
+    }
+
+    private fun filterAndSortForms(
+        items: List<ListItem>,
+        sort: Int?,
+        filter: String
+    ): List<BlankFormListItem> {
+        val sortedItems = when (sort) {
+            0 -> items.sortedBy { it.lowercaseName }
+            1 -> items.sortedByDescending { it.lowercaseName }
+            2 -> items.sortedByDescending {
+                it.item.dateOfLastDetectedAttachmentsUpdate ?: it.item.dateOfCreation
             }
-            3 -> newListOfForms.sortedBy {
-                it.dateOfLastDetectedAttachmentsUpdate ?: it.dateOfCreation
+            3 -> items.sortedBy {
+                it.item.dateOfLastDetectedAttachmentsUpdate ?: it.item.dateOfCreation
             }
-            4 -> newListOfForms.sortedByDescending { it.dateOfLastUsage }
+            4 -> items.sortedByDescending { it.item.dateOfLastUsage }
             else -> {
-                newListOfForms
+                items
             }
-        }.filter {
-            filter.isBlank() || it.formName.contains(filter, true)
         }
+
+        val lowercaseFilter = filter.lowercase()
+        return sortedItems.filter {
+            filter.isBlank() || it.lowercaseName.contains(lowercaseFilter)
+        }.map { it.item }
     }
 
+    private data class ListItem(val item: BlankFormListItem, val lowercaseName: String)
+
     class Factory(
         private val instancesRepository: InstancesRepository,
         private val application: Application,
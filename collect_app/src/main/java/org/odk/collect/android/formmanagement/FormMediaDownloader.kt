@@ -1,20 +1,40 @@
 package org.odk.collect.android.formmanagement
 
 import org.odk.collect.android.utilities.FileUtils.copyFile
-import org.odk.collect.android.utilities.FileUtils.interuptablyWriteFile
 import org.odk.collect.async.OngoingWorkListener
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormSource
 import org.odk.collect.forms.FormSourceException
 import org.odk.collect.forms.FormsRepository
 import org.odk.collect.forms.MediaFile
-import org.odk.collect.shared.strings.Md5.getMd5Hash
+import org.odk.collect.forms.MediaFileStream
+import org.odk.collect.shared.files.FileHashIndex
+import org.odk.collect.shared.strings.Md5
+import timber.log.Timber
 import java.io.File
+import java.io.FileOutputStream
 import java.io.IOException
+import java.io.InputStream
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
 
-class FormMediaDownloader(
+/**
+ * Downloads the media files for a form into a temporary directory. Files are fetched
+ * concurrently (up to [parallelism] at a time) and a file that fails part way through is
+ * resumed from where it stopped before the whole download is given up on.
+ *
+ * [OngoingWorkListener.progressUpdate] is only called on the thread that called [download] and
+ * all work has stopped by the time [download] returns or throws.
+ */
+class FormMediaDownloader @JvmOverloads constructor(
     private val formsRepository: FormsRepository,
-    private val formSource: FormSource
+    private val formSource: FormSource,
+    private val fileHashIndex: FileHashIndex,
+    private val parallelism: Int = DEFAULT_PARALLELISM
 ) {
 
     @JvmOverloads
@@ -26,56 +46,232 @@ class FormMediaDownloader(
         stateListener: OngoingWorkListener,
         test: Boolean = false
     ): Boolean {
-        var atLeastOneNewMediaFileDetected = false
         val tempMediaDir = File(tempMediaPath).also { it.mkdir() }
+        val mediaFiles = formToDownload.manifest!!.mediaFiles
+        if (mediaFiles.isEmpty()) {
+            return false
+        }
+
+        val allFormVersions = formsRepository.getAllByFormId(formToDownload.formId).sortedByDescending {
+            it.date
+        }
+
+        // Workers stop between chunks once this is set and their streams are closed so that
+        // blocking reads return. Nothing is written to the temp directory after this returns.
+        val aborted = AtomicBoolean(false)
+        val openStreams: MutableSet<InputStream> = ConcurrentHashMap.newKeySet()
+        val workerListener = object : OngoingWorkListener {
+            override fun progressUpdate(progress: Int) = Unit
+
+            override val isCancelled: Boolean
+                get() = aborted.get() || stateListener.isCancelled
+        }
+
+        val executor = Executors.newFixedThreadPool(minOf(mediaFiles.size, parallelism.coerceAtLeast(1)))
+        val completionService = ExecutorCompletionService<Boolean>(executor)
+        try {
+            mediaFiles.forEach { mediaFile ->
+                completionService.submit {
+                    if (workerListener.isCancelled) {
+                        throw InterruptedException()
+                    }
+
+                    val tempMediaFile = File(tempMediaDir, mediaFile.filename)
+                    val existingFile = searchForExistingMediaFile(allFormVersions, mediaFile)
+                    downloadMediaFile(mediaFile, existingFile, tempMediaFile, tempDir, workerListener, openStreams, test)
+                }
+            }
+
+            // Progress is reported from the calling thread as files finish
+            var atLeastOneNewMediaFileDetected = false
+            for (completed in 1..mediaFiles.size) {
+                try {
+                    if (completionService.take().get()) {
+                        atLeastOneNewMediaFileDetected = true
+                    }
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+
+                stateListener.progressUpdate(completed)
+            }
+
+            return atLeastOneNewMediaFileDetected
+        } finally {
+            aborted.set(true)
+            openStreams.forEach { closeQuietly(it) }
+            executor.shutdownNow()
+
+            try {
+                if (!executor.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    Timber.w("Media downloads for %s did not stop in time", formToDownload.formId)
+                }
+            } catch (e: InterruptedException) {
+                Thread.currentThread().interrupt()
+            }
+        }
+    }
+
+    private fun downloadMediaFile(
+        mediaFile: MediaFile,
+        existingFile: File?,
+        tempMediaFile: File,
+        tempDir: File,
+        stateListener: OngoingWorkListener,
+        openStreams: MutableSet<InputStream>,
+        test: Boolean
+    ): Boolean {
+        if (existingFile != null) {
+            val existingFileHash = fileHashIndex.getMd5Hash(existingFile)
+            if (existingFileHash.contentEquals(mediaFile.hash)) {
+                copyFile(existingFile, tempMediaFile)
+                return false
+            }
+
+            val downloadedFileHash = fetchMediaFile(mediaFile, tempMediaFile, tempDir, stateListener, openStreams)
+            if (!downloadedFileHash.contentEquals(existingFileHash)) {
+                if (test) {
+                    throw Exception("Content does not equal")
+                }
+                return true
+            }
+
+            return false
+        } else {
+            if (test) {
+                throw Exception("File does not exist")
+            }
 
-        formToDownload.manifest!!.mediaFiles.forEachIndexed { i, mediaFile ->
-            stateListener.progressUpdate(i + 1)
+            fetchMediaFile(mediaFile, tempMediaFile, tempDir, stateListener, openStreams)
+            return true
+        }
+    }
 
-            val tempMediaFile = File(tempMediaDir, mediaFile.filename)
+    /**
+     * Writes the media file to [tempMediaFile] and returns its hash (computed while writing).
+     * The bytes written by a failed attempt are kept and the next attempt asks for the rest of
+     * the file. If the source sends the whole file again instead, it's written from the start.
+     */
+    private fun fetchMediaFile(
+        mediaFile: MediaFile,
+        tempMediaFile: File,
+        tempDir: File,
+        stateListener: OngoingWorkListener,
+        openStreams: MutableSet<InputStream>
+    ): String {
+        val partialFile = File.createTempFile(tempMediaFile.name, ".partial", tempDir)
+        try {
+            var attempt = 0
+            while (true) {
+                attempt++
 
-            val existingFile = searchForExistingMediaFile(formToDownload, mediaFile)
-            existingFile.let {
-                if (it != null) {
-                    if (getMd5Hash(it).contentEquals(mediaFile.hash)) {
-                        copyFile(it, tempMediaFile)
+                try {
+                    val resumeFrom = partialFile.length()
+                    val file = if (resumeFrom > 0) {
+                        formSource.fetchMediaFile(mediaFile.downloadUrl, resumeFrom)
                     } else {
-                        val existingFileHash = getMd5Hash(it)
-                        val file = formSource.fetchMediaFile(mediaFile.downloadUrl)
-                        interuptablyWriteFile(file, tempMediaFile, tempDir, stateListener)
-
-                        if (!getMd5Hash(tempMediaFile).contentEquals(existingFileHash)) {
-                            if (test) {
-                                throw Exception("Content does not equal")
-                            }
-                            atLeastOneNewMediaFileDetected = true
+                        MediaFileStream(formSource.fetchMediaFile(mediaFile.downloadUrl), 0)
+                    }
+
+                    openStreams.add(file.inputStream)
+                    try {
+                        if (stateListener.isCancelled) {
+                            throw InterruptedException()
+                        }
+
+                        val hash = writeMediaFile(file, partialFile, stateListener)
+                        if (!partialFile.renameTo(tempMediaFile)) {
+                            partialFile.copyTo(tempMediaFile, overwrite = true)
                         }
+
+                        return hash
+                    } finally {
+                        openStreams.remove(file.inputStream)
                     }
-                } else {
-                    if (test) {
-                        throw Exception("File does not exist")
+                } catch (e: IOException) {
+                    if (attempt >= MAX_ATTEMPTS || stateListener.isCancelled) {
+                        throw e
                     }
-                    val file = formSource.fetchMediaFile(mediaFile.downloadUrl)
-                    interuptablyWriteFile(file, tempMediaFile, tempDir, stateListener)
-                    atLeastOneNewMediaFileDetected = true
+
+                    Timber.w(e, "Retrying download of %s from byte %d", mediaFile.filename, partialFile.length())
                 }
             }
+        } finally {
+            partialFile.delete()
         }
+    }
+
+    /**
+     * Writes [file] to [partialFile] (appending if it starts part way through) and returns the
+     * hash of the whole of [partialFile] once it's done.
+     */
+    private fun writeMediaFile(
+        file: MediaFileStream,
+        partialFile: File,
+        stateListener: OngoingWorkListener
+    ): String {
+        val append = file.offset > 0
+        val digest = Md5.newDigest()
+        val buffer = ByteArray(BUFFER_SIZE)
+
+        if (append) {
+            // Hash the bytes we already have so that the hash is for the whole file
+            partialFile.inputStream().use { existing ->
+                while (true) {
+                    val read = existing.read(buffer)
+                    if (read == -1) {
+                        break
+                    }
 
-        return atLeastOneNewMediaFileDetected
+                    digest.update(buffer, 0, read)
+                }
+            }
+        }
+
+        file.inputStream.use { input ->
+            FileOutputStream(partialFile, append).use { output ->
+                while (true) {
+                    val read = input.read(buffer)
+                    if (read == -1) {
+                        break
+                    }
+
+                    if (stateListener.isCancelled) {
+                        throw InterruptedException()
+                    }
+
+                    output.write(buffer, 0, read)
+                    digest.update(buffer, 0, read)
+                }
+            }
+        }
+
+        return Md5.toMd5Hash(digest)
     }
 
     private fun searchForExistingMediaFile(
-        formToDownload: ServerFormDetails,
+        allFormVersions: List<Form>,
         mediaFile: MediaFile
     ): File? {
-        val allFormVersions = formsRepository.getAllByFormId(formToDownload.formId)
-        return allFormVersions.sortedByDescending {
-            it.date
-        }.map { form: Form ->
+        return allFormVersions.map { form: Form ->
             File(form.formMediaPath, mediaFile.filename)
         }.firstOrNull { file: File ->
             file.exists()
         }
     }
+
+    private fun closeQuietly(stream: InputStream) {
+        try {
+            stream.close()
+        } catch (e: IOException) {
+            // The download is being abandoned anyway
+        }
+    }
+
+    companion object {
+        private const val DEFAULT_PARALLELISM = 4
+        private const val MAX_ATTEMPTS = 3
+        private const val BUFFER_SIZE = 4096
+        private const val TERMINATION_TIMEOUT_SECONDS = 30L
+    }
 }
@@ -0,0 +1,113 @@
+package org.odk.collect.android.formmanagement;
+
+import static org.odk.collect.android.tasks.FormLoaderTask.ITEMSETS_CSV;
+
+import androidx.annotation.NonNull;
+
+import org.odk.collect.android.externaldata.ExternalDataReaderImpl;
+import org.odk.collect.android.fastexternalitemset.ItemsetDbAdapter;
+import org.odk.collect.android.fastexternalitemset.ItemsetQuery;
+import org.odk.collect.android.fastexternalitemset.ItemsetsCsvImporter;
+import org.odk.collect.android.utilities.ZipUtils;
+import org.odk.collect.shared.files.FileHashIndex;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import timber.log.Timber;
+
+/**
+ * Imports the CSVs in a form's media directory (for {@code pulldata}, {@code search} and
+ * itemsets.csv) into their databases so that this doesn't have to happen the first time the
+ * form is opened. Anything that already imports a form's media should hold
+ * {@link #getLock(File)} while it does so that two imports of the same files don't run at once.
+ */
+public final class FormMediaPreparer {
+
+    private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private FormMediaPreparer() {
+
+    }
+
+    @NonNull
+    public static Object getLock(@NonNull File formMediaDir) {
+        return LOCKS.computeIfAbsent(formMediaDir.getAbsolutePath(), path -> new Object());
+    }
+
+    /**
+     * @param itemsetsMetadataDirPath the metadata directory of the project the form belongs to
+     *                                (where the itemsets database lives)
+     * @param formsDirPath            the forms directory of the project the form belongs to
+     */
+    public static void prepare(@NonNull File formFile, @NonNull File formMediaDir, @NonNull String itemsetsMetadataDirPath, @NonNull String formsDirPath, @NonNull FileHashIndex fileHashIndex) {
+        if (!formMediaDir.exists()) {
+            return;
+        }
+
+        synchronized (getLock(formMediaDir)) {
+            long start = System.currentTimeMillis();
+
+            Map<String, File> externalDataMap = unzipAndFindExternalData(formMediaDir);
+            if (!externalDataMap.isEmpty()) {
+                new ExternalDataReaderImpl(null, fileHashIndex).doImport(externalDataMap);
+            }
+
+            File itemsetsCsv = new File(formMediaDir, ITEMSETS_CSV);
+            if (itemsetsCsv.exists()) {
+                try {
+                    if (ItemsetsCsvImporter.importIfChanged(itemsetsCsv, new ItemsetDbAdapter(itemsetsMetadataDirPath, formsDirPath), fileHashIndex, null)) {
+                        Set<String> queries = new HashSet<>();
+                        ItemsetQuery.collectQueries(formFile, queries);
+                        ItemsetsCsvImporter.createIndexes(itemsetsCsv, queries, new ItemsetDbAdapter(itemsetsMetadataDirPath, formsDirPath));
+                    }
+                } catch (Exception e) {
+                    // The import will be tried again when the form is opened
+                    Timber.w(e);
+                }
+            }
+
+            Timber.i("Prepared media for %s in %.3f seconds.", formFile.getName(), (System.currentTimeMillis() - start) / 1000F);
+        }
+    }
+
+    /**
+     * Unzips any zip files in {@code formMediaDir} and returns the external data CSVs (everything
+     * apart from itemsets.csv) by data set name.
+     */
+    @NonNull
+    public static Map<String, File> unzipAndFindExternalData(@NonNull File formMediaDir) {
+        // SCTO-594
+        File[] zipFiles = formMediaDir.listFiles(file -> file.getName().toLowerCase(Locale.US).endsWith(".zip"));
+
+        if (zipFiles != null) {
+            ZipUtils.unzip(zipFiles);
+            for (File zipFile : zipFiles) {
+                boolean deleted = zipFile.delete();
+                if (!deleted) {
+                    Timber.w("Cannot delete %s. It will be re-unzipped next time. :(", zipFile.toString());
+                }
+            }
+        }
+
+        File[] csvFiles = formMediaDir.listFiles(file -> {
+            String lowerCaseName = file.getName().toLowerCase(Locale.US);
+            return lowerCaseName.endsWith(".csv") && !lowerCaseName.equalsIgnoreCase(ITEMSETS_CSV);
+        });
+
+        Map<String, File> externalDataMap = new HashMap<>();
+        if (csvFiles != null) {
+            for (File csvFile : csvFiles) {
+                String dataSetName = csvFile.getName().substring(0, csvFile.getName().lastIndexOf("."));
+                externalDataMap.put(dataSetName, csvFile);
+            }
+        }
+
+        return externalDataMap;
+    }
+}
@@ -0,0 +1,10 @@
+package org.odk.collect.android.formmanagement
+
+import org.odk.collect.forms.Form
+
+/**
+ * Gets a form that has just been downloaded ready to be opened (see [FormMediaPreparer]).
+ */
+fun interface FormPreparer {
+    fun prepare(form: Form)
+}
@@ -2,14 +2,17 @@ package org.odk.collect.android.formmanagement
 
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
+import org.odk.collect.android.backgroundwork.FormPreparationTaskSpec
 import org.odk.collect.android.formmanagement.matchexactly.ServerFormsSynchronizer
 import org.odk.collect.android.notifications.Notifier
 import org.odk.collect.android.projects.ProjectDependencyProvider
 import org.odk.collect.android.projects.ProjectDependencyProviderFactory
 import org.odk.collect.androidshared.data.AppState
+import org.odk.collect.async.Scheduler
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormSourceException
 import org.odk.collect.settings.keys.ProjectKeys
+import org.odk.collect.shared.files.FileHashIndex
 import java.io.File
 import java.util.function.Supplier
 import java.util.stream.Collectors
@@ -18,6 +21,8 @@ class FormsDataService(
     private val appState: AppState,
     private val notifier: Notifier,
     private val projectDependencyProviderFactory: ProjectDependencyProviderFactory,
+    private val fileHashIndex: FileHashIndex,
+    private val scheduler: Scheduler,
     private val clock: Supplier<Long>
 ) {
 
@@ -51,8 +56,8 @@ class FormsDataService(
             if (acquiredLock) {
                 syncWithStorage(projectId)
 
-                val serverFormsDetailsFetcher = serverFormsDetailsFetcher(projectDependencies)
-                val formDownloader = formDownloader(projectDependencies, clock)
+                val serverFormsDetailsFetcher = serverFormsDetailsFetcher(projectDependencies, fileHashIndex)
+                val formDownloader = formDownloader(projectDependencies, clock, fileHashIndex, scheduler)
 
                 try {
                     val serverForms: List<ServerFormDetails> =
@@ -95,8 +100,8 @@ class FormsDataService(
                 startSync(projectId)
                 syncWithStorage(projectId)
 
-                val serverFormsDetailsFetcher = serverFormsDetailsFetcher(projectDependencies)
-                val formDownloader = formDownloader(projectDependencies, clock)
+                val serverFormsDetailsFetcher = serverFormsDetailsFetcher(projectDependencies, fileHashIndex)
+                val formDownloader = formDownloader(projectDependencies, clock, fileHashIndex, scheduler)
 
                 val serverFormsSynchronizer = ServerFormsSynchronizer(
                     serverFormsDetailsFetcher,
@@ -155,7 +160,8 @@ class FormsDataService(
         val projectDependencies = projectDependencyProviderFactory.create(projectId)
         val error = LocalFormUseCases.synchronizeWithDisk(
             projectDependencies.formsRepository,
-            projectDependencies.formsDir
+            projectDependencies.formsDir,
+            fileHashIndex
         )
 
         getDiskErrorLiveData(projectId).postValue(error)
@@ -197,7 +203,9 @@ class FormsDataService(
 
 private fun formDownloader(
     projectDependencyProvider: ProjectDependencyProvider,
-    clock: Supplier<Long>
+    clock: Supplier<Long>,
+    fileHashIndex: FileHashIndex,
+    scheduler: Scheduler
 ): ServerFormDownloader {
     return ServerFormDownloader(
         projectDependencyProvider.formSource,
@@ -205,15 +213,19 @@ private fun formDownloader(
         File(projectDependencyProvider.cacheDir),
         projectDependencyProvider.formsDir,
         FormMetadataParser(),
-        clock
+        clock,
+        fileHashIndex,
+        FormPreparationTaskSpec.preparer(scheduler, projectDependencyProvider.projectId)
     )
 }
 
 private fun serverFormsDetailsFetcher(
-    projectDependencyProvider: ProjectDependencyProvider
+    projectDependencyProvider: ProjectDependencyProvider,
+    fileHashIndex: FileHashIndex
 ): ServerFormsDetailsFetcher {
     return ServerFormsDetailsFetcher(
         projectDependencyProvider.formsRepository,
-        projectDependencyProvider.formSource
+        projectDependencyProvider.formSource,
+        fileHashIndex
     )
 }
@@ -31,14 +31,12 @@ class InstancesAppState(
     val sentCount: LiveData<Int> = _sent
 
     fun update() {
-        val instancesRepository = instancesRepositoryProvider.get()
+        val counts = instancesRepositoryProvider.get().getCountsByStatus()
+        fun count(vararg status: String) = status.sumOf { counts[it] ?: 0 }
 
-        val sendableInstances = instancesRepository.getCountByStatus(
-            Instance.STATUS_COMPLETE,
-            Instance.STATUS_SUBMISSION_FAILED
-        )
-        val sentInstances = instancesRepository.getCountByStatus(Instance.STATUS_SUBMITTED, Instance.STATUS_SUBMISSION_FAILED)
-        val editableInstances = instancesRepository.getCountByStatus(Instance.STATUS_INCOMPLETE)
+        val sendableInstances = count(Instance.STATUS_COMPLETE, Instance.STATUS_SUBMISSION_FAILED)
+        val sentInstances = count(Instance.STATUS_SUBMITTED, Instance.STATUS_SUBMISSION_FAILED)
+        val editableInstances = count(Instance.STATUS_INCOMPLETE)
 
         _sendable.postValue(sendableInstances)
         _sent.postValue(sentInstances)
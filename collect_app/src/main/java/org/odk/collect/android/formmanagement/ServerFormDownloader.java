@@ -13,6 +13,7 @@ import org.odk.collect.forms.FormSource;
 import org.odk.collect.forms.FormSourceException;
 import org.odk.collect.forms.FormsRepository;
 import org.odk.collect.shared.files.DirectoryUtils;
+import org.odk.collect.shared.files.FileHashIndex;
 import org.odk.collect.shared.strings.Md5;
 
 import java.io.File;
@@ -36,14 +37,26 @@ public class ServerFormDownloader implements FormDownloader {
     private final String formsDirPath;
     private final FormMetadataParser formMetadataParser;
     private final Supplier<Long> clock;
+    private final FileHashIndex fileHashIndex;
+    @Nullable
+    private final FormPreparer formPreparer;
 
-    public ServerFormDownloader(FormSource formSource, FormsRepository formsRepository, File cacheDir, String formsDirPath, FormMetadataParser formMetadataParser, Supplier<Long> clock) {
+    public ServerFormDownloader(FormSource formSource, FormsRepository formsRepository, File cacheDir, String formsDirPath, FormMetadataParser formMetadataParser, Supplier<Long> clock, FileHashIndex fileHashIndex) {
+        this(formSource, formsRepository, cacheDir, formsDirPath, formMetadataParser, clock, fileHashIndex, null);
+    }
+
+    /**
+     * @param formPreparer called for each form once it (and its media) has been installed
+     */
+    public ServerFormDownloader(FormSource formSource, FormsRepository formsRepository, File cacheDir, String formsDirPath, FormMetadataParser formMetadataParser, Supplier<Long> clock, FileHashIndex fileHashIndex, @Nullable FormPreparer formPreparer) {
         this.formSource = formSource;
         this.cacheDir = cacheDir;
         this.formsDirPath = formsDirPath;
         this.formsRepository = formsRepository;
         this.formMetadataParser = formMetadataParser;
         this.clock = clock;
+        this.fileHashIndex = fileHashIndex;
+        this.formPreparer = formPreparer;
     }
 
     @Override
@@ -93,7 +106,7 @@ public class ServerFormDownloader implements FormDownloader {
 
             // download media files if there are any
             if (fd.getManifest() != null && !fd.getManifest().getMediaFiles().isEmpty()) {
-                FormMediaDownloader mediaDownloader = new FormMediaDownloader(formsRepository, formSource);
+                FormMediaDownloader mediaDownloader = new FormMediaDownloader(formsRepository, formSource, fileHashIndex);
                 newAttachmentsDetected = mediaDownloader.download(fd, tempMediaPath, tempDir, stateListener);
             }
         } catch (FormDownloadException.DownloadingInterrupted | InterruptedException e) {
@@ -185,6 +198,10 @@ public class ServerFormDownloader implements FormDownloader {
                 throw new FormDownloadException.DiskError();
             }
         }
+
+        if (formPreparer != null) {
+            formPreparer.prepare(formResult.form);
+        }
     }
 
     private void cleanUp(FileResult fileResult, String tempMediaPath) {
@@ -243,11 +260,11 @@ public class ServerFormDownloader implements FormDownloader {
 
         String fileName = getFormFileName(formName, formsDirPath);
         File tempFormFile = new File(tempDir + File.separator + fileName);
-        interuptablyWriteFile(xform, tempFormFile, tempDir, stateListener);
+        String md5Hash = interuptablyWriteFile(xform, tempFormFile, tempDir, stateListener);
 
         // we've downloaded the file, and we may have renamed it
         // make sure it's not the same as a file we already have
-        Form form = formsRepository.getOneByMd5Hash(Md5.getMd5Hash(tempFormFile));
+        Form form = formsRepository.getOneByMd5Hash(md5Hash != null ? md5Hash : Md5.getMd5Hash(tempFormFile));
         if (form != null) {
             // delete the file we just downloaded, because it's a duplicate
             FileUtils.deleteAndReport(tempFormFile);
@@ -19,21 +19,25 @@ import org.odk.collect.android.openrosa.OpenRosaFormSource
 import org.odk.collect.android.utilities.FormUtils
 import org.odk.collect.android.utilities.WebCredentialsUtils
 import org.odk.collect.forms.Form
+import org.odk.collect.forms.FormListItem
 import org.odk.collect.forms.FormSource
 import org.odk.collect.forms.FormSourceException
 import org.odk.collect.forms.FormsRepository
 import org.odk.collect.forms.ManifestFile
 import org.odk.collect.forms.MediaFile
-import org.odk.collect.shared.strings.Md5.getMd5Hash
+import org.odk.collect.shared.files.FileHashIndex
 import timber.log.Timber
-import java.io.File
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
 
 /**
  * Open to allow mocking (used in existing Java tests)
  */
 open class ServerFormsDetailsFetcher(
     private val formsRepository: FormsRepository,
-    private val formSource: FormSource
+    private val formSource: FormSource,
+    private val fileHashIndex: FileHashIndex
 ) {
     open fun updateUrl(url: String) {
         (formSource as OpenRosaFormSource).updateUrl(url)
@@ -46,9 +50,11 @@ open class ServerFormsDetailsFetcher(
     @Throws(FormSourceException::class)
     open fun fetchFormDetails(): List<ServerFormDetails> {
         val formList = formSource.fetchFormList()
+        val manifestFiles = fetchManifestFiles(formList)
+
         return formList.map { listItem ->
             val manifestFile = listItem.manifestURL?.let {
-                getManifestFile(formSource, it)
+                manifestFiles[it]
             }
 
             val forms = formsRepository.getAllNotDeletedByFormId(listItem.formID)
@@ -95,6 +101,35 @@ open class ServerFormsDetailsFetcher(
         }
     }
 
+    /**
+     * Fetches the manifests for all forms in the list using a bounded pool so that slow
+     * responses don't hold up the whole list.
+     */
+    @Throws(FormSourceException::class)
+    private fun fetchManifestFiles(formList: List<FormListItem>): Map<String, ManifestFile?> {
+        val manifestUrls = formList.mapNotNull { it.manifestURL }.distinct()
+        if (manifestUrls.size <= 1) {
+            return manifestUrls.associateWith { getManifestFile(formSource, it) }
+        }
+
+        val executor = Executors.newFixedThreadPool(minOf(manifestUrls.size, MAX_CONCURRENT_MANIFEST_FETCHES))
+        return try {
+            val futures = manifestUrls.associateWith {
+                executor.submit(Callable { getManifestFile(formSource, it) })
+            }
+
+            futures.mapValues {
+                try {
+                    it.value.get()
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
     private fun getManifestFile(formSource: FormSource, manifestUrl: String): ManifestFile? {
         return try {
             formSource.fetchManifest(manifestUrl)
@@ -108,9 +143,13 @@ open class ServerFormsDetailsFetcher(
         existingForm: Form,
         newMediaFiles: List<MediaFile>
     ): Boolean {
-        val localMediaFiles = FormUtils.getMediaFiles(existingForm)
+        // Hash each local file once rather than once per manifest entry
+        val localMediaHashes = FormUtils.getMediaFiles(existingForm)
+            .mapNotNull { fileHashIndex.getMd5Hash(it) }
+            .toHashSet()
+
         return newMediaFiles.any {
-            !isMediaFileAlreadyDownloaded(localMediaFiles, it)
+            !isMediaFileAlreadyDownloaded(localMediaHashes, it)
         }
     }
 
@@ -119,7 +158,7 @@ open class ServerFormsDetailsFetcher(
     }
 
     private fun isMediaFileAlreadyDownloaded(
-        localMediaFiles: List<File>,
+        localMediaHashes: Set<String>,
         newMediaFile: MediaFile
     ): Boolean {
         // TODO Zip files are ignored we should find a way to take them into account too
@@ -127,8 +166,10 @@ open class ServerFormsDetailsFetcher(
             return true
         }
 
-        return localMediaFiles.any {
-            newMediaFile.hash == getMd5Hash(it)
-        }
+        return localMediaHashes.contains(newMediaFile.hash)
+    }
+
+    companion object {
+        private const val MAX_CONCURRENT_MANIFEST_FETCHES = 4
     }
 }
@@ -22,6 +22,7 @@ import org.odk.collect.android.audio.AudioRecordingControllerFragment;
 import org.odk.collect.android.audio.AudioRecordingErrorDialogFragment;
 import org.odk.collect.android.backgroundwork.AutoSendTaskSpec;
 import org.odk.collect.android.backgroundwork.AutoUpdateTaskSpec;
+import org.odk.collect.android.backgroundwork.FormPreparationTaskSpec;
 import org.odk.collect.android.backgroundwork.SyncFormsTaskSpec;
 import org.odk.collect.android.configure.qr.QRCodeScannerFragment;
 import org.odk.collect.android.configure.qr.QRCodeTabsActivity;
@@ -97,6 +98,7 @@ import org.odk.collect.permissions.PermissionsProvider;
 import org.odk.collect.projects.ProjectsRepository;
 import org.odk.collect.settings.ODKAppSettingsImporter;
 import org.odk.collect.settings.SettingsProvider;
+import org.odk.collect.shared.files.FileHashIndex;
 
 import javax.inject.Singleton;
 
@@ -211,6 +213,8 @@ public interface AppDependencyComponent {
 
     void inject(AutoUpdateTaskSpec autoUpdateTaskSpec);
 
+    void inject(FormPreparationTaskSpec formPreparationTaskSpec);
+
     void inject(ServerAuthDialogFragment serverAuthDialogFragment);
 
     void inject(BasePreferencesFragment basePreferencesFragment);
@@ -303,6 +307,8 @@ public interface AppDependencyComponent {
 
     FormsRepositoryProvider formsRepositoryProvider();
 
+    FileHashIndex fileHashIndex();
+
     InstancesRepositoryProvider instancesRepositoryProvider();
 
     FormSourceProvider formSourceProvider();
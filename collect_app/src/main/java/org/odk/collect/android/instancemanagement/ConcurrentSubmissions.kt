@@ -0,0 +1,78 @@
+package org.odk.collect.android.instancemanagement
+
+import android.net.Uri
+import org.odk.collect.android.upload.FormUploadException
+import org.odk.collect.forms.instances.Instance
+import timber.log.Timber
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+
+/**
+ * Uploads instances on up to [maxConcurrentUploads] threads with at most [maxUploadsPerHost]
+ * uploads in flight to any one host. Results are returned in the order the instances were passed
+ * in and a failure (or crash) uploading one instance doesn't affect the others. The progress
+ * listener is called on the upload threads as each instance finishes.
+ */
+internal class ConcurrentSubmissions(
+    private val maxConcurrentUploads: Int,
+    private val maxUploadsPerHost: Int
+) {
+
+    fun submit(
+        toUpload: List<Instance>,
+        getDestinationUrl: (Instance) -> String,
+        upload: (Instance, String) -> FormUploadException?,
+        progressListener: SubmissionProgressListener? = null
+    ): Map<Instance, FormUploadException?> {
+        val hostLimits = ConcurrentHashMap<String, Semaphore>()
+        val progressLock = Any()
+        var submitted = 0
+
+        val executor = Executors.newFixedThreadPool(minOf(toUpload.size, maxConcurrentUploads))
+        try {
+            val futures = toUpload.associateWith { instance ->
+                executor.submit(
+                    Callable {
+                        try {
+                            val destinationUrl = getDestinationUrl(instance)
+                            val hostLimit = hostLimits.getOrPut(Uri.parse(destinationUrl).host ?: "") {
+                                Semaphore(maxUploadsPerHost)
+                            }
+
+                            hostLimit.acquire()
+                            try {
+                                upload(instance, destinationUrl)
+                            } finally {
+                                hostLimit.release()
+                            }
+                        } finally {
+                            // Reported under a lock so that the counts arrive in order
+                            synchronized(progressLock) {
+                                submitted++
+                                progressListener?.onProgress(submitted, toUpload.size)
+                            }
+                        }
+                    }
+                )
+            }
+
+            return futures.mapValues { (instance, future) ->
+                try {
+                    future.get()
+                } catch (e: ExecutionException) {
+                    Timber.e(e.cause)
+                    FormUploadException(e.cause?.message ?: e.toString())
+                } catch (e: InterruptedException) {
+                    Thread.currentThread().interrupt()
+                    Timber.w(e, "Interrupted while submitting %s", instance.dbId)
+                    FormUploadException(e.toString())
+                }
+            }
+        } finally {
+            executor.shutdown()
+        }
+    }
+}
@@ -33,20 +33,25 @@ import org.odk.collect.android.utilities.EncryptionUtils;
 import org.odk.collect.android.utilities.FormsRepositoryProvider;
 import org.odk.collect.android.utilities.InstancesRepositoryProvider;
 import org.odk.collect.forms.Form;
+import org.odk.collect.forms.FormsRepository;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.instances.InstancesRepository;
 import org.odk.collect.settings.SettingsProvider;
 import org.odk.collect.settings.keys.ProjectKeys;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import timber.log.Timber;
 
@@ -54,6 +59,9 @@ import static org.odk.collect.strings.localization.LocalizedApplicationKt.getLoc
 
 public class InstanceDiskSynchronizer {
 
+    private static final String CHECKPOINT_FILE_NAME = "instance_scan_checkpoint";
+    private static final int MAX_CONCURRENT_READS = 4;
+
     private static int counter;
 
     private String currentStatus = "";
@@ -106,19 +114,35 @@ public class InstanceDiskSynchronizer {
 
                 final boolean instanceSyncFlag = settingsProvider.getUnprotectedSettings().getBoolean(ProjectKeys.KEY_INSTANCE_SYNC);
 
-                int counter = 0;
+                Set<String> storedInstancePaths = new HashSet<>();
+                for (Instance instance : instancesRepository.getAllByPaths(instancePaths)) {
+                    storedInstancePaths.add(instance.getInstanceFilePath());
+                }
+
+                FormsRepository formsRepository = new FormsRepositoryProvider(Collect.getInstance()).get();
+                Map<String, List<Form>> formsByFormId = new HashMap<>();
+
+                List<String> unregisteredInstancePaths = new ArrayList<>();
                 for (String instancePath : instancePaths) {
-                    if (instancesRepository.getOneByPath(instancePath) != null) {
-                        continue; // Skip instances that are already stored in repo
+                    if (!storedInstancePaths.contains(instancePath)) {
+                        unregisteredInstancePaths.add(instancePath);
                     }
+                }
+
+                File checkpointFile = new File(storagePathProvider.getOdkDirPath(StorageSubdirectory.METADATA), CHECKPOINT_FILE_NAME);
+                InstanceScanCheckpoint checkpoint = InstanceScanCheckpoint.read(checkpointFile);
+                Map<String, String> formIds = readFormIds(unregisteredInstancePaths, checkpoint);
+
+                int counter = 0;
+                for (String instancePath : unregisteredInstancePaths) {
+                    String instanceFormId = formIds.get(instancePath);
+                    boolean registered = false;
 
-                    String instanceFormId = getFormIdFromInstance(instancePath);
                     // only process if we can find the id from the instance file
                     if (instanceFormId != null) {
                         try {
-                            // TODO: optimize this by caching the previously found form definition
-                            // TODO: optimize this by caching unavailable form definition to skip
-                            List<Form> forms = new FormsRepositoryProvider(Collect.getInstance()).get().getAllByFormId(instanceFormId);
+                            // Forms that can't be found are cached as well so they're only looked up once
+                            List<Form> forms = formsByFormId.computeIfAbsent(instanceFormId, formsRepository::getAllByFormId);
 
                             if (!forms.isEmpty()) {
                                 Form form = forms.get(0);
@@ -138,6 +162,7 @@ public class InstanceDiskSynchronizer {
                                         .build()
                                 );
                                 counter++;
+                                registered = true;
 
                                 encryptInstanceIfNeeded(form, instance);
                             }
@@ -145,7 +170,13 @@ public class InstanceDiskSynchronizer {
                             Timber.w(e);
                         }
                     }
+
+                    if (!registered && formIds.containsKey(instancePath)) {
+                        checkpoint.put(new File(instancePath), instanceFormId);
+                    }
                 }
+
+                checkpoint.write();
                 if (counter > 0) {
                     currentStatus += getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.instance_scan_count, counter);
                 }
@@ -156,32 +187,49 @@ public class InstanceDiskSynchronizer {
         return currentStatus;
     }
 
-    private String getFormIdFromInstance(final String instancePath) {
-        String instanceFormId = null;
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        try {
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(new File(instancePath));
-            Element element = document.getDocumentElement();
-            instanceFormId = element.getAttribute("id");
-        } catch (Exception | Error e) {
-            Timber.w("Unable to read form id from %s", instancePath);
+    /**
+     * The form id of each instance file (or null if it couldn't be read). Files that haven't
+     * changed since the last scan aren't read again and the rest are read in parallel. Files are
+     * left out if the scan is interrupted before they've been read.
+     */
+    private Map<String, String> readFormIds(List<String> instancePaths, InstanceScanCheckpoint checkpoint) {
+        Map<String, String> formIds = new HashMap<>();
+        List<String> pathsToRead = new ArrayList<>();
+        for (String instancePath : instancePaths) {
+            File instanceFile = new File(instancePath);
+            if (checkpoint.isUnchanged(instanceFile)) {
+                formIds.put(instancePath, checkpoint.getFormId(instanceFile));
+            } else {
+                pathsToRead.add(instancePath);
+            }
+        }
+
+        if (pathsToRead.isEmpty()) {
+            return formIds;
         }
-        return instanceFormId;
-    }
 
-    private String getInstanceIdFromInstance(final String instancePath) {
-        String instanceId = null;
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(pathsToRead.size(), MAX_CONCURRENT_READS));
         try {
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(new File(instancePath));
-            Element element = document.getDocumentElement();
-            instanceId = element.getAttribute("instanceID");
-        } catch (Exception | Error e) {
-            Timber.w("Unable to read form instanceID from %s", instancePath);
+            List<Future<String>> futures = new ArrayList<>();
+            for (String instancePath : pathsToRead) {
+                futures.add(executor.submit(() -> InstanceXmlScanner.readFormId(new File(instancePath))));
+            }
+
+            for (int i = 0; i < pathsToRead.size(); i++) {
+                try {
+                    formIds.put(pathsToRead.get(i), futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Timber.w(e.getCause());
+                    formIds.put(pathsToRead.get(i), null);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
         }
-        return instanceId;
+
+        return formIds;
     }
 
     private void encryptInstanceIfNeeded(Form form, Instance instance) throws EncryptionException, IOException {
@@ -208,7 +256,7 @@ public class InstanceDiskSynchronizer {
         File instanceXml = new File(instancePath);
         if (!new File(instanceXml.getParentFile(), "submission.xml.enc").exists()) {
             Uri uri = InstancesContract.getUri(projectsDataService.getCurrentProject().getUuid(), instance.getDbId());
-            InstanceMetadata instanceMetadata = new InstanceMetadata(getInstanceIdFromInstance(instancePath), null, null);
+            InstanceMetadata instanceMetadata = new InstanceMetadata(InstanceXmlScanner.readInstanceId(instanceXml), null, null);
             EncryptionUtils.EncryptedFormInformation formInfo = EncryptionUtils.getEncryptedFormInformation(uri, instanceMetadata);
 
             if (formInfo != null) {
@@ -0,0 +1,125 @@
+package org.odk.collect.android.instancemanagement;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import timber.log.Timber;
+
+/**
+ * Remembers the form id read from each instance file that couldn't be registered the last time
+ * the instances directory was scanned (because its form isn't on the device for example) so that
+ * the file doesn't need to be read again until its length or modification time changes.
+ * <p>
+ * Only the files passed to {@link #put(File, String)} since the checkpoint was read are written
+ * back so files that have been deleted or registered drop out.
+ */
+final class InstanceScanCheckpoint {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final File file;
+    private final Map<String, Entry> previousEntries;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private InstanceScanCheckpoint(File file, Map<String, Entry> previousEntries) {
+        this.file = file;
+        this.previousEntries = previousEntries;
+    }
+
+    static InstanceScanCheckpoint read(File file) {
+        Map<String, Entry> entries = new HashMap<>();
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() == FORMAT_VERSION) {
+                int count = input.readInt();
+                for (int i = 0; i < count; i++) {
+                    String path = input.readUTF();
+                    long lastModified = input.readLong();
+                    long length = input.readLong();
+                    String formId = input.readBoolean() ? input.readUTF() : null;
+                    entries.put(path, new Entry(lastModified, length, formId));
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // nothing has been scanned yet
+        } catch (IOException e) {
+            Timber.w(e);
+            entries.clear();
+        }
+
+        return new InstanceScanCheckpoint(file, entries);
+    }
+
+    /**
+     * Whether {@code instanceFile} is unchanged since it was last scanned. {@link #getFormId(File)}
+     * returns what was read from it if so.
+     */
+    boolean isUnchanged(File instanceFile) {
+        Entry entry = previousEntries.get(instanceFile.getAbsolutePath());
+        return entry != null
+                && entry.lastModified == instanceFile.lastModified()
+                && entry.length == instanceFile.length();
+    }
+
+    @Nullable
+    String getFormId(File instanceFile) {
+        Entry entry = previousEntries.get(instanceFile.getAbsolutePath());
+        return entry != null ? entry.formId : null;
+    }
+
+    void put(File instanceFile, @Nullable String formId) {
+        entries.put(instanceFile.getAbsolutePath(), new Entry(instanceFile.lastModified(), instanceFile.length(), formId));
+    }
+
+    void write() {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeLong(entry.getValue().lastModified);
+                output.writeLong(entry.getValue().length);
+                output.writeBoolean(entry.getValue().formId != null);
+                if (entry.getValue().formId != null) {
+                    output.writeUTF(entry.getValue().formId);
+                }
+            }
+        } catch (IOException e) {
+            Timber.w(e);
+            tempFile.delete();
+            return;
+        }
+
+        if (!tempFile.renameTo(file)) {
+            Timber.w("Could not write instance scan checkpoint %s", file);
+            tempFile.delete();
+        }
+    }
+
+    private static final class Entry {
+        final long lastModified;
+        final long length;
+
+        @Nullable
+        final String formId;
+
+        Entry(long lastModified, long length, @Nullable String formId) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.formId = formId;
+        }
+    }
+}
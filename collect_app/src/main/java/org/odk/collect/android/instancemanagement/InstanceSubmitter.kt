@@ -9,6 +9,7 @@ import org.odk.collect.android.gdrive.InstanceGoogleSheetsUploader
 import org.odk.collect.android.upload.FormUploadException
 import org.odk.collect.android.upload.InstanceServerUploader
 import org.odk.collect.android.upload.InstanceUploader
+import org.odk.collect.android.upload.SubmissionEndpoints
 import org.odk.collect.android.utilities.FormsRepositoryProvider
 import org.odk.collect.android.utilities.InstanceAutoDeleteChecker
 import org.odk.collect.android.utilities.InstanceUploaderUtils
@@ -23,57 +24,80 @@ import org.odk.collect.settings.keys.ProjectKeys
 import org.odk.collect.shared.settings.Settings
 import timber.log.Timber
 
-class InstanceSubmitter(
+/**
+ * Submits instances using the project's configured protocol. Submissions to an OpenRosa server
+ * are made concurrently with at most [maxUploadsPerHost] in flight to any one host. Google
+ * Sheets submissions are made one at a time.
+ */
+class InstanceSubmitter @JvmOverloads constructor(
     private val formsRepository: FormsRepository,
     private val googleAccountsManager: GoogleAccountsManager,
     private val googleApiProvider: GoogleApiProvider,
     private val permissionsProvider: PermissionsProvider,
     private val generalSettings: Settings,
-    private val propertyManager: PropertyManager
+    private val propertyManager: PropertyManager,
+    private val submissionEndpoints: SubmissionEndpoints,
+    private val maxUploadsPerHost: Int = DEFAULT_MAX_UPLOADS_PER_HOST
 ) {
 
+    @JvmOverloads
     @Throws(SubmitException::class)
-    fun submitInstances(toUpload: List<Instance>): Map<Instance, FormUploadException?> {
+    fun submitInstances(
+        toUpload: List<Instance>,
+        progressListener: SubmissionProgressListener? = null
+    ): Map<Instance, FormUploadException?> {
         if (toUpload.isEmpty()) {
             throw SubmitException(SubmitException.Type.NOTHING_TO_SUBMIT)
         }
-        val result = mutableMapOf<Instance, FormUploadException?>()
-        val deviceId = propertyManager.getSingularProperty(PROPMGR_DEVICE_ID)
 
-        val uploader: InstanceUploader = if (isGoogleSheetsProtocol()) {
-            setUpGoogleSheetsUploader()
+        return if (isGoogleSheetsProtocol()) {
+            val uploader = setUpGoogleSheetsUploader()
+            progressListener?.onProgress(0, toUpload.size)
+
+            toUpload.withIndex().associate { (index, instance) ->
+                val result = submitToGoogleSheets(uploader, instance)
+                progressListener?.onProgress(index + 1, toUpload.size)
+                instance to result
+            }
         } else {
-            setUpODKUploader()
+            val uploader = setUpODKUploader()
+            val deviceId = propertyManager.getSingularProperty(PROPMGR_DEVICE_ID)
+            progressListener?.onProgress(0, toUpload.size)
+
+            ConcurrentSubmissions(MAX_CONCURRENT_UPLOADS, maxUploadsPerHost).submit(
+                toUpload,
+                { instance -> uploader.getUrlToSubmitTo(instance, deviceId, null, null) },
+                { instance, destinationUrl -> uploadInstance(uploader, instance, destinationUrl) },
+                progressListener
+            )
         }
+    }
 
-        for (instance in toUpload) {
-            try {
-                var destinationUrl: String
-                if (isGoogleSheetsProtocol()) {
-                    destinationUrl = uploader.getUrlToSubmitTo(
-                        instance,
-                        null,
-                        null,
-                        generalSettings.getString(ProjectKeys.KEY_GOOGLE_SHEETS_URL)
-                    )
-                    if (!InstanceUploaderUtils.doesUrlRefersToGoogleSheetsFile(destinationUrl)) {
-                        result[instance] = FormUploadException(InstanceUploaderUtils.SPREADSHEET_UPLOADED_TO_GOOGLE_DRIVE)
-                        continue
-                    }
-                } else {
-                    destinationUrl = uploader.getUrlToSubmitTo(instance, deviceId, null, null)
-                }
-                uploader.uploadOneSubmission(instance, destinationUrl)
-                result[instance] = null
-
-                deleteInstance(instance)
-                logUploadedForm(instance)
-            } catch (e: FormUploadException) {
-                Timber.d(e)
-                result[instance] = e
-            }
+    private fun submitToGoogleSheets(uploader: InstanceUploader, instance: Instance): FormUploadException? {
+        val destinationUrl = uploader.getUrlToSubmitTo(
+            instance,
+            null,
+            null,
+            generalSettings.getString(ProjectKeys.KEY_GOOGLE_SHEETS_URL)
+        )
+        if (!InstanceUploaderUtils.doesUrlRefersToGoogleSheetsFile(destinationUrl)) {
+            return FormUploadException(InstanceUploaderUtils.SPREADSHEET_UPLOADED_TO_GOOGLE_DRIVE)
+        }
+
+        return uploadInstance(uploader, instance, destinationUrl)
+    }
+
+    private fun uploadInstance(uploader: InstanceUploader, instance: Instance, destinationUrl: String): FormUploadException? {
+        return try {
+            uploader.uploadOneSubmission(instance, destinationUrl)
+
+            deleteInstance(instance)
+            logUploadedForm(instance)
+            null
+        } catch (e: FormUploadException) {
+            Timber.d(e)
+            e
         }
-        return result
     }
 
     @Throws(SubmitException::class)
@@ -98,7 +122,8 @@ class InstanceSubmitter(
         return InstanceServerUploader(
             httpInterface,
             WebCredentialsUtils(generalSettings),
-            generalSettings
+            generalSettings,
+            submissionEndpoints
         )
     }
 
@@ -125,4 +150,9 @@ class InstanceSubmitter(
 
         Analytics.log(AnalyticsEvents.SUBMISSION, key, value)
     }
+
+    companion object {
+        private const val MAX_CONCURRENT_UPLOADS = 4
+        private const val DEFAULT_MAX_UPLOADS_PER_HOST = 2
+    }
 }
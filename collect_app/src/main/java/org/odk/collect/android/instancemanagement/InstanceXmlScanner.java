@@ -0,0 +1,88 @@
+package org.odk.collect.android.instancemanagement;
+
+import androidx.annotation.Nullable;
+
+import org.kxml2.io.KXmlParser;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import timber.log.Timber;
+
+/**
+ * Reads the values needed to register an instance file found on disk with a pull parser that
+ * stops as soon as they've been found rather than building a DOM for the whole file.
+ */
+final class InstanceXmlScanner {
+
+    private static final int META_DEPTH = 2;
+
+    private InstanceXmlScanner() {
+
+    }
+
+    /**
+     * The {@code id} attribute of the root element or null if it can't be read.
+     */
+    @Nullable
+    static String readFormId(File instanceFile) {
+        try (Reader reader = new BufferedReader(new FileReader(instanceFile))) {
+            XmlPullParser parser = createParser(reader);
+            parser.nextTag();
+
+            String formId = parser.getAttributeValue(null, "id");
+            return formId != null && !formId.isEmpty() ? formId : null;
+        } catch (IOException | XmlPullParserException | RuntimeException e) {
+            Timber.w("Unable to read form id from %s", instanceFile);
+            return null;
+        }
+    }
+
+    /**
+     * The {@code instanceID} attribute of the root element or, if there isn't one, the value of
+     * {@code meta/instanceID}. Null if neither can be read.
+     */
+    @Nullable
+    static String readInstanceId(File instanceFile) {
+        try (Reader reader = new BufferedReader(new FileReader(instanceFile))) {
+            XmlPullParser parser = createParser(reader);
+            parser.nextTag();
+
+            String instanceId = parser.getAttributeValue(null, "instanceID");
+            if (instanceId != null && !instanceId.isEmpty()) {
+                return instanceId;
+            }
+
+            boolean inMeta = false;
+            int eventType;
+            while ((eventType = parser.next()) != XmlPullParser.END_DOCUMENT) {
+                if (eventType == XmlPullParser.START_TAG) {
+                    if (parser.getDepth() == META_DEPTH && "meta".equals(parser.getName())) {
+                        inMeta = true;
+                    } else if (inMeta && parser.getDepth() == META_DEPTH + 1 && "instanceID".equals(parser.getName())) {
+                        return parser.nextText();
+                    }
+                } else if (eventType == XmlPullParser.END_TAG && inMeta && parser.getDepth() == META_DEPTH) {
+                    return null;
+                }
+            }
+
+            return null;
+        } catch (IOException | XmlPullParserException | RuntimeException e) {
+            Timber.w("Unable to read form instanceID from %s", instanceFile);
+            return null;
+        }
+    }
+
+    private static XmlPullParser createParser(Reader reader) throws XmlPullParserException {
+        KXmlParser parser = new KXmlParser();
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true);
+        parser.setInput(reader);
+        return parser;
+    }
+}
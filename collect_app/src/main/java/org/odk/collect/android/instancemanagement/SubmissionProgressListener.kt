@@ -0,0 +1,9 @@
+package org.odk.collect.android.instancemanagement
+
+/**
+ * Told how many of the instances being submitted have finished (whether they succeeded or not)
+ * each time one does. This might be called from any thread.
+ */
+fun interface SubmissionProgressListener {
+    fun onProgress(submitted: Int, total: Int)
+}
@@ -1,5 +1,6 @@
 package org.odk.collect.android.instancemanagement.autosend
 
+import org.odk.collect.forms.FormVersion
 import org.odk.collect.forms.FormsRepository
 import org.odk.collect.forms.instances.Instance
 import org.odk.collect.forms.instances.InstancesRepository
@@ -8,12 +9,17 @@ class InstanceAutoSendFetcher(private val autoSendSettingsProvider: AutoSendSett
 
     fun getInstancesToAutoSend(projectId: String, instancesRepository: InstancesRepository, formsRepository: FormsRepository): List<Instance> {
         val allFinalizedForms = instancesRepository.getAllByStatus(Instance.STATUS_COMPLETE, Instance.STATUS_SUBMISSION_FAILED)
+        if (allFinalizedForms.isEmpty()) {
+            return emptyList()
+        }
+
+        val forms = formsRepository.getLatestByFormIdsAndVersions(
+            allFinalizedForms.map { FormVersion(it.formId, it.formVersion) }.toSet()
+        )
 
         val isAutoSendEnabledInSettings = autoSendSettingsProvider.isAutoSendEnabledInSettings(projectId)
         return allFinalizedForms.filter {
-            formsRepository.getLatestByFormIdAndVersion(it.formId, it.formVersion)?.let { form ->
-                form.shouldFormBeSentAutomatically(isAutoSendEnabledInSettings)
-            } ?: false
+            forms[FormVersion(it.formId, it.formVersion)]?.shouldFormBeSentAutomatically(isAutoSendEnabledInSettings) ?: false
         }
     }
 }
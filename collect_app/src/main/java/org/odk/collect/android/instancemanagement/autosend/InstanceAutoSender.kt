@@ -10,6 +10,7 @@ import org.odk.collect.android.instancemanagement.SubmitException
 import org.odk.collect.android.notifications.Notifier
 import org.odk.collect.android.projects.ProjectDependencyProvider
 import org.odk.collect.android.upload.FormUploadException
+import org.odk.collect.android.upload.SubmissionEndpointsProvider
 import org.odk.collect.forms.instances.Instance
 import org.odk.collect.metadata.PropertyManager
 import org.odk.collect.permissions.PermissionsProvider
@@ -22,7 +23,8 @@ class InstanceAutoSender(
     private val googleApiProvider: GoogleApiProvider,
     private val permissionsProvider: PermissionsProvider,
     private val instancesAppState: InstancesAppState,
-    private val propertyManager: PropertyManager
+    private val propertyManager: PropertyManager,
+    private val submissionEndpointsProvider: SubmissionEndpointsProvider
 ) {
     fun autoSendInstances(projectDependencyProvider: ProjectDependencyProvider): Boolean {
         val instanceSubmitter = InstanceSubmitter(
@@ -31,7 +33,8 @@ class InstanceAutoSender(
             googleApiProvider,
             permissionsProvider,
             projectDependencyProvider.generalSettings,
-            propertyManager
+            propertyManager,
+            submissionEndpointsProvider.get(projectDependencyProvider.projectId)
         )
         return projectDependencyProvider.changeLockProvider.getInstanceLock(projectDependencyProvider.projectId).withLock { acquiredLock: Boolean ->
             if (acquiredLock) {
@@ -42,7 +45,9 @@ class InstanceAutoSender(
                 )
 
                 try {
-                    val result: Map<Instance, FormUploadException?> = instanceSubmitter.submitInstances(toUpload)
+                    val result: Map<Instance, FormUploadException?> = instanceSubmitter.submitInstances(toUpload) { submitted, total ->
+                        notifier.onSubmissionProgress(submitted, total, projectDependencyProvider.projectId)
+                    }
                     notifier.onSubmission(result, projectDependencyProvider.projectId)
                 } catch (e: SubmitException) {
                     when (e.type) {
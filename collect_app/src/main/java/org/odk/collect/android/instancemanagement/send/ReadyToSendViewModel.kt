@@ -20,15 +20,14 @@ class ReadyToSendViewModel(
     fun update() {
         scheduler.immediate(
             background = {
-                val sentInstances = instancesRepository.getAllByStatus(Instance.STATUS_SUBMITTED)
-                val numberOfSentInstances = sentInstances.size
+                val numberOfSentInstances = instancesRepository.getCountByStatus(Instance.STATUS_SUBMITTED)
                 val numberOfInstancesReadyToSend = instancesRepository.getCountByStatus(
                     Instance.STATUS_COMPLETE,
                     Instance.STATUS_SUBMISSION_FAILED
                 )
-                val lastInstanceSentTimeMillis = if (sentInstances.isNotEmpty()) {
-                    val lastSentInstance = sentInstances.maxBy { instance -> instance.lastStatusChangeDate }
-                    clock.get() - lastSentInstance.lastStatusChangeDate
+                val lastSentTime = instancesRepository.getLastStatusChangeDateByStatus(Instance.STATUS_SUBMITTED)
+                val lastInstanceSentTimeMillis = if (lastSentTime != null) {
+                    clock.get() - lastSentTime
                 } else {
                     0
                 }
@@ -62,6 +62,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import timber.log.Timber;
@@ -103,6 +104,16 @@ public class JavaRosaFormController implements FormController {
     private final FormEntryController formEntryController;
     private FormIndex indexWaitingForData;
 
+    /**
+     * The first index for each XPath key from {@link #getXPath(FormIndex)} stepping through the
+     * form. Lookups only happen while a form is loaded (to restore a saved position) so this is
+     * normally built once then. A key that isn't in the map is a real miss. It's dropped whenever
+     * the indexes in the form could change (answers can change relevance or jr:count and repeats
+     * can be added or removed) and built again on the next lookup.
+     */
+    @Nullable
+    private Map<String, FormIndex> xPathIndexes;
+
     public JavaRosaFormController(File mediaFolder, FormEntryController fec, File instanceFile) {
         this.mediaFolder = mediaFolder;
         formEntryController = fec;
@@ -206,26 +217,32 @@ public class JavaRosaFormController implements FormController {
                 Timber.e(new Error("Unexpected string from XPath"));
                 return null;
             default:
-                FormIndex returned = null;
-                FormIndex saved = getFormIndex();
-                // the only way I know how to do this is to step through the entire form
-                // until the XPath of a form entry matches that of the supplied XPath
-                try {
-                    jumpToIndex(FormIndex.createBeginningOfFormIndex());
-                    int event = stepToNextEvent(true);
-                    while (event != FormEntryController.EVENT_END_OF_FORM) {
-                        String candidateXPath = getXPath(getFormIndex());
-                        if (candidateXPath.equals(xpath)) {
-                            returned = getFormIndex();
-                            break;
-                        }
-                        event = stepToNextEvent(true);
-                    }
-                } finally {
-                    jumpToIndex(saved);
+                if (xPathIndexes == null) {
+                    xPathIndexes = buildXPathIndexes();
                 }
-                return returned;
+
+                return xPathIndexes.get(xpath);
+        }
+    }
+
+    private Map<String, FormIndex> buildXPathIndexes() {
+        Map<String, FormIndex> indexes = new HashMap<>();
+        FormIndex saved = getFormIndex();
+        // the only way I know how to do this is to step through the entire form
+        // recording the XPath of each form entry
+        try {
+            jumpToIndex(FormIndex.createBeginningOfFormIndex());
+            int event = stepToNextEvent(true);
+            while (event != FormEntryController.EVENT_END_OF_FORM) {
+                FormIndex index = getFormIndex();
+                indexes.putIfAbsent(getXPath(index), index);
+                event = stepToNextEvent(true);
+            }
+        } finally {
+            jumpToIndex(saved);
         }
+
+        return indexes;
     }
 
     public int getEvent() {
@@ -389,6 +406,7 @@ public class JavaRosaFormController implements FormController {
 
     public int answerQuestion(FormIndex index, IAnswerData data) throws JavaRosaException {
         try {
+            xPathIndexes = null;
             return formEntryController.answerQuestion(index, data, true);
         } catch (Exception e) {
             throw new JavaRosaException(e);
@@ -413,6 +431,7 @@ public class JavaRosaFormController implements FormController {
 
     public boolean saveAnswer(FormIndex index, IAnswerData data) throws JavaRosaException {
         try {
+            xPathIndexes = null;
             return formEntryController.saveAnswer(index, data, true);
         } catch (Exception e) {
             String dataType = data != null ? data.getClass().toString() : null;
@@ -716,10 +735,12 @@ public class JavaRosaFormController implements FormController {
 
     public void newRepeat() {
         formEntryController.newRepeat();
+        xPathIndexes = null;
     }
 
     public void deleteRepeat() {
         FormIndex fi = formEntryController.deleteRepeat();
+        xPathIndexes = null;
         formEntryController.jumpToIndex(fi);
     }
 
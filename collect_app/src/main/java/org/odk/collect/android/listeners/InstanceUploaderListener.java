@@ -26,5 +26,13 @@ public interface InstanceUploaderListener {
 
     void progressUpdate(int progress, int total);
 
+    /**
+     * Like {@link #progressUpdate(int, int)} but also says how much of the current form has been
+     * sent.
+     */
+    default void progressUpdate(int progress, int total, int percentSent) {
+        progressUpdate(progress, total);
+    }
+
     void authRequest(Uri url, HashMap<String, String> doneSoFar);
 }
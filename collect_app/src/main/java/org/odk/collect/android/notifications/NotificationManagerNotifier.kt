@@ -11,6 +11,7 @@ import org.odk.collect.android.formmanagement.ServerFormDetails
 import org.odk.collect.android.notifications.builders.FormUpdatesAvailableNotificationBuilder
 import org.odk.collect.android.notifications.builders.FormUpdatesDownloadedNotificationBuilder
 import org.odk.collect.android.notifications.builders.FormsSubmissionNotificationBuilder
+import org.odk.collect.android.notifications.builders.FormsSubmissionProgressNotificationBuilder
 import org.odk.collect.android.notifications.builders.FormsSyncFailedNotificationBuilder
 import org.odk.collect.android.upload.FormUploadException
 import org.odk.collect.forms.FormSourceException
@@ -70,6 +71,19 @@ class NotificationManagerNotifier(
         }
     }
 
+    override fun onSubmissionProgress(submitted: Int, total: Int, projectId: String) {
+        // Uses the same ID as the result so that the result replaces it
+        notificationManager.notify(
+            AUTO_SEND_RESULT_NOTIFICATION_ID,
+            FormsSubmissionProgressNotificationBuilder.build(
+                application,
+                submitted,
+                total,
+                getProjectName(projectId)
+            )
+        )
+    }
+
     override fun onSubmission(result: Map<Instance, FormUploadException?>, projectId: String) {
         notificationManager.notify(
             AUTO_SEND_RESULT_NOTIFICATION_ID,
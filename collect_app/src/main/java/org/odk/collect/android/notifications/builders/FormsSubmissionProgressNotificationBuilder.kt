@@ -0,0 +1,30 @@
+package org.odk.collect.android.notifications.builders
+
+import android.app.Application
+import android.app.Notification
+import androidx.core.app.NotificationCompat
+import org.odk.collect.android.notifications.NotificationManagerNotifier
+import org.odk.collect.strings.localization.getLocalizedString
+
+object FormsSubmissionProgressNotificationBuilder {
+
+    fun build(application: Application, submitted: Int, total: Int, projectName: String): Notification {
+        return NotificationCompat.Builder(
+            application,
+            NotificationManagerNotifier.COLLECT_NOTIFICATION_CHANNEL
+        ).apply {
+            setContentTitle(application.getLocalizedString(org.odk.collect.strings.R.string.uploading_data))
+            setContentText(
+                application.getLocalizedString(
+                    org.odk.collect.strings.R.string.sending_items,
+                    minOf(submitted + 1, total),
+                    total
+                )
+            )
+            setSubText(projectName)
+            setSmallIcon(org.odk.collect.icons.R.drawable.ic_notification_small)
+            setProgress(total, submitted, false)
+            setOnlyAlertOnce(true)
+        }.build()
+    }
+}
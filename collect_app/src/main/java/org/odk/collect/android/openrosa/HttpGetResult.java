@@ -40,11 +40,26 @@ public class HttpGetResult {
         this.statusCode = statusCode;
     }
 
+    /**
+     * Creates a result whose hash is computed as {@code is} is read rather than up front.
+     */
+    public HttpGetResult(Md5InputStream is, @NonNull Map<String, String> headers, int statusCode) {
+        this(is, headers, null, statusCode);
+    }
+
     public InputStream getInputStream() {
         return inputStream;
     }
 
+    /**
+     * Returns the MD5 hash of the body. If the hash is computed as the body is read, this should
+     * only be called after the input stream has been read or closed.
+     */
     public String getHash() {
+        if (hash == null && inputStream instanceof Md5InputStream) {
+            return ((Md5InputStream) inputStream).getMd5Hash();
+        }
+
         return hash;
     }
 
@@ -0,0 +1,50 @@
+package org.odk.collect.android.openrosa;
+
+import androidx.annotation.NonNull;
+
+import org.odk.collect.shared.strings.Md5;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes the MD5 hash of a stream as it is read. Closing the stream reads any bytes the caller
+ * didn't consume so that the hash always covers the whole stream.
+ */
+public class Md5InputStream extends DigestInputStream {
+
+    private static final int DRAIN_BUFFER_SIZE = 8192;
+
+    private String hash;
+
+    public Md5InputStream(@NonNull InputStream stream) throws NoSuchAlgorithmException {
+        super(stream, Md5.newDigest());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+            while (read(buffer) != -1) {
+                // read to the end so the whole stream is hashed
+            }
+        } finally {
+            super.close();
+        }
+    }
+
+    /**
+     * Returns the hash of everything read so far. This should only be called once the stream
+     * has been fully read or closed.
+     */
+    @NonNull
+    public synchronized String getMd5Hash() {
+        if (hash == null) {
+            hash = Md5.toMd5Hash(getMessageDigest());
+        }
+
+        return hash;
+    }
+}
@@ -11,6 +11,7 @@ import org.odk.collect.forms.FormSource;
 import org.odk.collect.forms.FormSourceException;
 import org.odk.collect.forms.ManifestFile;
 import org.odk.collect.forms.MediaFile;
+import org.odk.collect.forms.MediaFileStream;
 
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -114,6 +115,20 @@ public class OpenRosaFormSource implements FormSource {
         }
     }
 
+    @Override
+    @NotNull
+    public MediaFileStream fetchMediaFile(String mediaFileURL, long offset) throws FormSourceException {
+        HttpGetResult result = mapException(() -> openRosaXMLFetcher.fetch(mediaFileURL, null, offset));
+
+        if (result.getInputStream() == null) {
+            throw new FormSourceException.ServerError(result.getStatusCode(), serverURL);
+        } else if (result.getStatusCode() == HttpURLConnection.HTTP_PARTIAL) {
+            return new MediaFileStream(result.getInputStream(), offset);
+        } else {
+            return new MediaFileStream(result.getInputStream(), 0);
+        }
+    }
+
     public void updateUrl(String url) {
         this.serverURL = url;
     }
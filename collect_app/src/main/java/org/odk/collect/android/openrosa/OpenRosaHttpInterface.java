@@ -38,6 +38,17 @@ public interface OpenRosaHttpInterface {
     @NonNull
     HttpGetResult executeGetRequest(@NonNull URI uri, @Nullable String contentType, @NonNull HttpCredentialsInterface credentials) throws Exception;
 
+    /**
+     * Like {@link #executeGetRequest(URI, String, HttpCredentialsInterface)} but asks the server
+     * for the body from byte {@code offset} onwards. The result's status code is
+     * {@link java.net.HttpURLConnection#HTTP_PARTIAL} if the server did that and any other
+     * successful result contains the whole body.
+     */
+    @NonNull
+    default HttpGetResult executeGetRequest(@NonNull URI uri, @Nullable String contentType, @NonNull HttpCredentialsInterface credentials, long offset) throws Exception {
+        return executeGetRequest(uri, contentType, credentials);
+    }
+
     /**
      * Performs a Http Head request.
      *
@@ -66,6 +77,40 @@ public interface OpenRosaHttpInterface {
                                             @NonNull HttpCredentialsInterface credentials,
                                             @NonNull long contentLength) throws Exception;
 
+    /**
+     * Uploads submission files and then list of other files to server, reporting progress to
+     * {@code listener}. When the attachments need to be split over multiple requests, the
+     * listener is told which attachments each successful request delivered.
+     *
+     * @see #uploadSubmissionAndFiles(File, List, URI, HttpCredentialsInterface, long)
+     */
+    @NonNull
+    default HttpPostResult uploadSubmissionAndFiles(@NonNull File submissionFile,
+                                                    @NonNull List<File> fileList,
+                                                    @NonNull URI uri,
+                                                    @NonNull HttpCredentialsInterface credentials,
+                                                    @NonNull long contentLength,
+                                                    @Nullable SubmissionUploadListener listener) throws Exception {
+        return uploadSubmissionAndFiles(submissionFile, fileList, uri, credentials, contentLength);
+    }
+
+    interface SubmissionUploadListener {
+
+        /**
+         * Called as the body of the current request is written with the total number of bytes
+         * written for the submission so far.
+         */
+        default void onBytesWritten(long bytesWritten) {
+        }
+
+        /**
+         * Called after a request has been accepted by the server with the attachments it
+         * contained.
+         */
+        default void onAttachmentsAcknowledged(@NonNull List<File> files) {
+        }
+    }
+
     interface FileToContentTypeMapper {
 
         @NonNull
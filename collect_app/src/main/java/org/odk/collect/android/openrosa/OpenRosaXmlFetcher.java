@@ -86,6 +86,23 @@ class OpenRosaXmlFetcher {
 
     @NonNull
     public HttpGetResult fetch(@NonNull String downloadUrl, @Nullable final String contentType) throws Exception {
+        URI uri = toUri(downloadUrl);
+        return httpInterface.executeGetRequest(uri, contentType, webCredentialsUtils.getCredentials(uri));
+    }
+
+    /**
+     * Like {@link #fetch(String, String)} but asks for the body from byte {@code offset} onwards
+     *
+     * @see OpenRosaHttpInterface#executeGetRequest(URI, String, HttpCredentialsInterface, long)
+     */
+    @NonNull
+    public HttpGetResult fetch(@NonNull String downloadUrl, @Nullable final String contentType, long offset) throws Exception {
+        URI uri = toUri(downloadUrl);
+        return httpInterface.executeGetRequest(uri, contentType, webCredentialsUtils.getCredentials(uri), offset);
+    }
+
+    @NonNull
+    private static URI toUri(@NonNull String downloadUrl) throws Exception {
         URI uri;
         try {
             // assume the downloadUrl is escaped properly
@@ -101,7 +118,7 @@ class OpenRosaXmlFetcher {
             throw new Exception("Invalid server URL (no hostname): " + downloadUrl);
         }
 
-        return httpInterface.executeGetRequest(uri, contentType, webCredentialsUtils.getCredentials(uri));
+        return uri;
     }
 
     public WebCredentialsUtils getWebCredentialsUtils() {
@@ -3,18 +3,16 @@ package org.odk.collect.android.openrosa.okhttp;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import org.apache.commons.io.IOUtils;
 import org.odk.collect.android.openrosa.CaseInsensitiveEmptyHeaders;
 import org.odk.collect.android.openrosa.CaseInsensitiveHeaders;
 import org.odk.collect.android.openrosa.HttpCredentialsInterface;
 import org.odk.collect.android.openrosa.HttpGetResult;
 import org.odk.collect.android.openrosa.HttpHeadResult;
 import org.odk.collect.android.openrosa.HttpPostResult;
+import org.odk.collect.android.openrosa.Md5InputStream;
 import org.odk.collect.android.openrosa.OpenRosaHttpInterface;
 import org.odk.collect.android.openrosa.OpenRosaServerClient;
-import org.odk.collect.shared.strings.Md5;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -24,7 +22,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import okhttp3.CacheControl;
 import okhttp3.Headers;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
@@ -37,6 +37,26 @@ import timber.log.Timber;
 public class OkHttpConnection implements OpenRosaHttpInterface {
 
     private static final String HTTP_CONTENT_TYPE_TEXT_XML = "text/xml";
+    private static final int DISCARD_BUFFER_SIZE = 8192;
+    private static final long MAX_DISCARD_BYTES = 64 * 1024;
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    /**
+     * XML documents (form lists and manifests) are always checked with the server, but if we have
+     * a cached copy its validators are sent so that the server can reply with a 304 instead of
+     * the whole document.
+     */
+    private static final CacheControl REVALIDATE = new CacheControl.Builder()
+            .maxAge(0, TimeUnit.SECONDS)
+            .build();
+
+    /**
+     * Forms and media files are only downloaded when their hash has changed, so storing them in
+     * the HTTP cache would just duplicate them on disk and push out the XML documents.
+     */
+    private static final CacheControl NO_STORE = new CacheControl.Builder()
+            .noStore()
+            .build();
 
     private final OkHttpOpenRosaServerClientProvider clientFactory;
 
@@ -55,16 +75,34 @@ public class OkHttpConnection implements OpenRosaHttpInterface {
     @NonNull
     @Override
     public HttpGetResult executeGetRequest(@NonNull URI uri, @Nullable String contentType, @Nullable HttpCredentialsInterface credentials) throws Exception {
+        return executeGetRequest(uri, contentType, credentials, 0);
+    }
+
+    @NonNull
+    @Override
+    public HttpGetResult executeGetRequest(@NonNull URI uri, @Nullable String contentType, @Nullable HttpCredentialsInterface credentials, long offset) throws Exception {
         OpenRosaServerClient httpClient = clientFactory.get(uri.getScheme(), userAgent, credentials);
-        Request request = new Request.Builder()
+        Request.Builder requestBuilder = new Request.Builder()
                 .url(uri.toURL())
-                .get()
-                .build();
+                .cacheControl(HTTP_CONTENT_TYPE_TEXT_XML.equals(contentType) ? REVALIDATE : NO_STORE)
+                .get();
 
-        Response response = httpClient.makeRequest(request, new Date());
+        if (offset > 0) {
+            requestBuilder.header("Range", "bytes=" + offset + "-");
+        }
+
+        Response response = httpClient.makeRequest(requestBuilder.build(), new Date());
         int statusCode = response.code();
 
-        if (statusCode != HttpURLConnection.HTTP_OK) {
+        // If the server can't give us the part we asked for (the file might have changed) we
+        // start again from the beginning rather than failing the download
+        if (offset > 0 && (statusCode == HTTP_RANGE_NOT_SATISFIABLE
+                || (statusCode == HttpURLConnection.HTTP_PARTIAL && !isRangeFrom(response, offset)))) {
+            discardEntityBytes(response);
+            return executeGetRequest(uri, contentType, credentials, 0);
+        }
+
+        if (statusCode != HttpURLConnection.HTTP_OK && !(offset > 0 && statusCode == HttpURLConnection.HTTP_PARTIAL)) {
             discardEntityBytes(response);
             Timber.i("Error: %s (%s at %s", response.message(), String.valueOf(statusCode), uri.toString());
 
@@ -92,16 +130,6 @@ public class OkHttpConnection implements OpenRosaHttpInterface {
             }
         }
 
-        InputStream downloadStream = body.byteStream();
-
-        String hash = "";
-
-        if (HTTP_CONTENT_TYPE_TEXT_XML.equals(contentType)) {
-            byte[] bytes = IOUtils.toByteArray(downloadStream);
-            downloadStream = new ByteArrayInputStream(bytes);
-            hash = Md5.getMd5Hash(new ByteArrayInputStream(bytes));
-        }
-
         Map<String, String> responseHeaders = new HashMap<>();
         Headers headers = response.headers();
 
@@ -109,7 +137,12 @@ public class OkHttpConnection implements OpenRosaHttpInterface {
             responseHeaders.put(headers.name(i), headers.value(i));
         }
 
-        return new HttpGetResult(downloadStream, responseHeaders, hash, statusCode);
+        // The hash is computed as the caller reads the body rather than buffering it up front
+        if (HTTP_CONTENT_TYPE_TEXT_XML.equals(contentType)) {
+            return new HttpGetResult(new Md5InputStream(body.byteStream()), responseHeaders, statusCode);
+        } else {
+            return new HttpGetResult(body.byteStream(), responseHeaders, "", statusCode);
+        }
     }
 
     @NonNull
@@ -139,11 +172,18 @@ public class OkHttpConnection implements OpenRosaHttpInterface {
     @NonNull
     @Override
     public HttpPostResult uploadSubmissionAndFiles(@NonNull File submissionFile, @NonNull List<File> fileList, @NonNull URI uri, @Nullable HttpCredentialsInterface credentials, @NonNull long contentLength) throws Exception {
+        return uploadSubmissionAndFiles(submissionFile, fileList, uri, credentials, contentLength, null);
+    }
+
+    @NonNull
+    @Override
+    public HttpPostResult uploadSubmissionAndFiles(@NonNull File submissionFile, @NonNull List<File> fileList, @NonNull URI uri, @Nullable HttpCredentialsInterface credentials, @NonNull long contentLength, @Nullable SubmissionUploadListener listener) throws Exception {
         HttpPostResult postResult = null;
 
         boolean first = true;
         int fileIndex = 0;
         int lastFileIndex;
+        long bytesWrittenInPreviousRequests = 0L;
         while (fileIndex < fileList.size() || first) {
             lastFileIndex = fileIndex;
             first = false;
@@ -182,7 +222,12 @@ public class OkHttpConnection implements OpenRosaHttpInterface {
                 }
             }
 
-            MultipartBody multipartBody = multipartBuilder.build();
+            RequestBody multipartBody = multipartBuilder.build();
+            if (listener != null) {
+                final long previousBytes = bytesWrittenInPreviousRequests;
+                multipartBody = new ProgressRequestBody(multipartBody, bytesWritten -> listener.onBytesWritten(previousBytes + bytesWritten));
+            }
+
             postResult = executePostRequest(uri, credentials, multipartBody);
 
             if (postResult.getResponseCode() != HttpURLConnection.HTTP_CREATED &&
@@ -190,13 +235,17 @@ public class OkHttpConnection implements OpenRosaHttpInterface {
                 return postResult;
             }
 
+            bytesWrittenInPreviousRequests += multipartBody.contentLength();
+            if (listener != null) {
+                listener.onAttachmentsAcknowledged(fileList.subList(lastFileIndex, fileIndex));
+            }
         }
 
         return postResult;
     }
 
     @NonNull
-    private HttpPostResult executePostRequest(@NonNull URI uri, @Nullable HttpCredentialsInterface credentials, MultipartBody multipartBody) throws Exception {
+    private HttpPostResult executePostRequest(@NonNull URI uri, @Nullable HttpCredentialsInterface credentials, RequestBody multipartBody) throws Exception {
         OpenRosaServerClient httpClient = clientFactory.get(uri.getScheme(), userAgent, credentials);
         HttpPostResult postResult;
         Request request = new Request.Builder()
@@ -219,23 +268,43 @@ public class OkHttpConnection implements OpenRosaHttpInterface {
         return postResult;
     }
 
+    private static boolean isRangeFrom(Response response, long offset) {
+        String contentRange = response.header("Content-Range");
+        return contentRange != null && contentRange.startsWith("bytes " + offset + "-");
+    }
+
     /**
      * Utility to ensure that the entity stream of a response is drained of
      * bytes.
      * Apparently some servers require that we manually read all data from the
      * stream to allow its re-use.  Please add more details or bug ID here if
      * you know them.
+     * <p>
+     * Draining is skipped when the server has said it will close the connection
+     * (or the body is too big to be worth reading) as the connection can't be
+     * reused in that case anyway.
      */
     private void discardEntityBytes(Response response) {
         ResponseBody body = response.body();
-        if (body != null) {
-            try (InputStream is = body.byteStream()) {
-                while (is.read() != -1) {
-                    // loop until all bytes read
-                }
-            } catch (Exception e) {
-                Timber.i(e);
+        if (body == null) {
+            return;
+        }
+
+        if ("close".equalsIgnoreCase(response.header("Connection"))
+                || body.contentLength() > MAX_DISCARD_BYTES) {
+            body.close();
+            return;
+        }
+
+        try (InputStream is = body.byteStream()) {
+            byte[] buffer = new byte[DISCARD_BUFFER_SIZE];
+            long discarded = 0;
+            int read;
+            while (discarded <= MAX_DISCARD_BYTES && (read = is.read(buffer)) != -1) {
+                discarded += read;
             }
+        } catch (Exception e) {
+            Timber.i(e);
         }
     }
 }
@@ -85,12 +85,15 @@ public class OkHttpOpenRosaServerClientProvider implements OpenRosaServerClientP
                 .connectTimeout(CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
                 .writeTimeout(WRITE_CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
                 .readTimeout(READ_CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
-                .followRedirects(true);
+                .followRedirects(true)
+                .eventListenerFactory(RequestMetricsListener.FACTORY);
 
+        // Only form lists and manifests are stored (see OkHttpConnection) so the cache is mostly
+        // used to hold validators for conditional requests and doesn't need to be big
         if (cacheDir != null && new File(cacheDir).exists()) {
             builder.cache(new Cache(
                     new File(cacheDir, "http_" + credentials.hashCode()),
-                    50L * 1024L * 1024L // 50 MiB
+                    10L * 1024L * 1024L // 10 MiB
             ));
         }
 
@@ -0,0 +1,61 @@
+package org.odk.collect.android.openrosa.okhttp;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+
+/**
+ * Streams another {@link RequestBody} and reports how many bytes have been written. The count
+ * starts again each time the body is written (when it is resent after an auth challenge for
+ * example).
+ */
+class ProgressRequestBody extends RequestBody {
+
+    private final RequestBody delegate;
+    private final Listener listener;
+
+    ProgressRequestBody(RequestBody delegate, Listener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        BufferedSink countingSink = Okio.buffer(new ForwardingSink(sink) {
+            private long bytesWritten;
+
+            @Override
+            public void write(@NonNull Buffer source, long byteCount) throws IOException {
+                super.write(source, byteCount);
+                bytesWritten += byteCount;
+                listener.onBytesWritten(bytesWritten);
+            }
+        });
+
+        delegate.writeTo(countingSink);
+        countingSink.flush();
+    }
+
+    interface Listener {
+        void onBytesWritten(long bytesWritten);
+    }
+}
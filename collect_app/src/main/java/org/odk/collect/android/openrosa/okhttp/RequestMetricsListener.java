@@ -0,0 +1,131 @@
+package org.odk.collect.android.openrosa.okhttp;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Response;
+import timber.log.Timber;
+
+/**
+ * Records how long each call takes and how many bytes it sends and receives. The totals are
+ * passed to a {@link Reporter} when the call ends. {@link #FACTORY} logs them.
+ */
+class RequestMetricsListener extends EventListener {
+
+    static final EventListener.Factory FACTORY = factory(RequestMetricsListener::log);
+
+    private final Reporter reporter;
+
+    private long callStart;
+    private long responseHeadersEnd;
+    private long requestBytes;
+    private long responseBytes;
+    private boolean connectStarted;
+    private boolean connectionAcquired;
+
+    RequestMetricsListener(Reporter reporter) {
+        this.reporter = reporter;
+    }
+
+    static EventListener.Factory factory(Reporter reporter) {
+        return call -> new RequestMetricsListener(reporter);
+    }
+
+    @Override
+    public void callStart(@NonNull Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+        connectStarted = true;
+    }
+
+    @Override
+    public void connectionAcquired(@NonNull Call call, @NonNull Connection connection) {
+        connectionAcquired = true;
+    }
+
+    @Override
+    public void requestBodyEnd(@NonNull Call call, long byteCount) {
+        requestBytes += byteCount;
+    }
+
+    @Override
+    public void responseHeadersEnd(@NonNull Call call, @NonNull Response response) {
+        responseHeadersEnd = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(@NonNull Call call, long byteCount) {
+        responseBytes += byteCount;
+    }
+
+    @Override
+    public void callEnd(@NonNull Call call) {
+        reporter.report(call, getMetrics(), null);
+    }
+
+    @Override
+    public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+        reporter.report(call, getMetrics(), ioe);
+    }
+
+    @NonNull
+    private Metrics getMetrics() {
+        long now = System.nanoTime();
+        long firstByte = responseHeadersEnd != 0 ? responseHeadersEnd : now;
+        return new Metrics(
+                toMillis(firstByte - callStart),
+                toMillis(now - callStart),
+                requestBytes,
+                responseBytes,
+                // Cached responses never acquire a connection
+                connectionAcquired && !connectStarted
+        );
+    }
+
+    private static void log(Call call, Metrics metrics, @Nullable IOException failure) {
+        Timber.d("%s %s %s in %d ms (first byte %d ms), sent %d bytes, received %d bytes%s",
+                call.request().method(),
+                call.request().url().encodedPath(),
+                failure == null ? "completed" : "failed",
+                metrics.totalMillis,
+                metrics.timeToFirstByteMillis,
+                metrics.requestBytes,
+                metrics.responseBytes,
+                metrics.reusedConnection ? " on a reused connection" : "");
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    interface Reporter {
+        void report(@NonNull Call call, @NonNull Metrics metrics, @Nullable IOException failure);
+    }
+
+    static class Metrics {
+
+        final long timeToFirstByteMillis;
+        final long totalMillis;
+        final long requestBytes;
+        final long responseBytes;
+        final boolean reusedConnection;
+
+        Metrics(long timeToFirstByteMillis, long totalMillis, long requestBytes, long responseBytes, boolean reusedConnection) {
+            this.timeToFirstByteMillis = timeToFirstByteMillis;
+            this.totalMillis = totalMillis;
+            this.requestBytes = requestBytes;
+            this.responseBytes = responseBytes;
+            this.reusedConnection = reusedConnection;
+        }
+    }
+}
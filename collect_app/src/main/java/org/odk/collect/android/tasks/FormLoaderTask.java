@@ -18,12 +18,10 @@ import static org.odk.collect.android.utilities.FormUtils.setupReferenceManagerF
 import static org.odk.collect.strings.localization.LocalizedApplicationKt.getLocalizedString;
 
 import android.content.Intent;
-import android.database.Cursor;
 import android.database.SQLException;
 
 import androidx.annotation.NonNull;
 
-import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
 
 import org.javarosa.core.model.FormDef;
@@ -45,23 +43,20 @@ import org.odk.collect.android.externaldata.ExternalDataManagerImpl;
 import org.odk.collect.android.externaldata.ExternalDataReader;
 import org.odk.collect.android.externaldata.ExternalDataReaderImpl;
 import org.odk.collect.android.externaldata.handler.ExternalDataHandlerPull;
-import org.odk.collect.android.fastexternalitemset.ItemsetDbAdapter;
+import org.odk.collect.android.externaldata.handler.ExternalDataHandlerSearch;
+import org.odk.collect.android.fastexternalitemset.ItemsetsCsvImporter;
+import org.odk.collect.android.formmanagement.FormMediaPreparer;
 import org.odk.collect.android.javarosawrapper.FormController;
 import org.odk.collect.android.javarosawrapper.JavaRosaFormController;
 import org.odk.collect.android.listeners.FormLoaderListener;
 import org.odk.collect.android.utilities.FileUtils;
 import org.odk.collect.android.utilities.FormDefCache;
-import org.odk.collect.android.utilities.ZipUtils;
 import org.odk.collect.async.Scheduler;
 import org.odk.collect.async.SchedulerAsyncTaskMimic;
-import org.odk.collect.shared.strings.Md5;
+import org.odk.collect.shared.files.FileHashIndex;
 
 import java.io.File;
-import java.io.FileFilter;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
 
 import timber.log.Timber;
@@ -73,7 +68,7 @@ import timber.log.Timber;
  * @author Yaw Anokwa (yanokwa@gmail.com)
  */
 public class FormLoaderTask extends SchedulerAsyncTaskMimic<String, String, FormLoaderTask.FECWrapper> {
-    private static final String ITEMSETS_CSV = "itemsets.csv";
+    public static final String ITEMSETS_CSV = "itemsets.csv";
 
     private FormLoaderListener stateListener;
     private String errorMsg;
@@ -88,6 +83,7 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<String, String, Form
     private Intent intent;
     private ExternalDataManager externalDataManager;
     private FormDef formDef;
+    private final FileHashIndex fileHashIndex;
 
     @Override
     protected void onPreExecute() {
@@ -118,12 +114,13 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<String, String, Form
 
     FECWrapper data;
 
-    public FormLoaderTask(String instancePath, String xpath, String waitingXPath, FormEntryControllerFactory formEntryControllerFactory, Scheduler scheduler) {
+    public FormLoaderTask(String instancePath, String xpath, String waitingXPath, FormEntryControllerFactory formEntryControllerFactory, Scheduler scheduler, FileHashIndex fileHashIndex) {
         super(scheduler);
         this.instancePath = instancePath;
         this.xpath = xpath;
         this.waitingXPath = waitingXPath;
         this.formEntryControllerFactory = formEntryControllerFactory;
+        this.fileHashIndex = fileHashIndex;
     }
 
     /**
@@ -171,7 +168,7 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<String, String, Form
         formDef.getEvaluationContext().addFunctionHandler(externalDataHandlerPull);
 
         try {
-            loadExternalData(formMediaDir);
+            loadExternalData(formMediaDir, formDef);
         } catch (Exception e) {
             Timber.e(e, "Exception thrown while loading external data");
             errorMsg = e.getMessage();
@@ -209,7 +206,7 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<String, String, Form
             }
         }
 
-        processItemSets(formMediaDir);
+        processItemSets(formDef, formMediaDir);
 
         final FormController fc = new JavaRosaFormController(formMediaDir, fec, instancePath == null ? null
                 : new File(instancePath));
@@ -235,7 +232,7 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<String, String, Form
         publishProgress(
                 getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.survey_loading_reading_form_message));
 
-        final FormDef formDefFromCache = FormDefCache.readCache(formXml);
+        final FormDef formDefFromCache = FormDefCache.readCache(formXml, fileHashIndex);
         if (formDefFromCache != null) {
             return formDefFromCache;
         }
@@ -254,7 +251,7 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<String, String, Form
             formDef = formDefFromXml;
 
             try {
-                FormDefCache.writeCache(formDef, formXml.getPath());
+                FormDefCache.writeCache(formDef, formXml.getPath(), fileHashIndex);
             } catch (IOException e) {
                 Timber.e(e);
             }
@@ -265,41 +262,32 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<String, String, Form
         return null;
     }
 
-    private void processItemSets(File formMediaDir) {
+    private void processItemSets(FormDef formDef, File formMediaDir) {
         // for itemsets.csv, we only check to see if the itemset file has been
         // updated
         final File csv = new File(formMediaDir.getAbsolutePath() + "/" + ITEMSETS_CSV);
-        String csvmd5;
         if (csv.exists()) {
-            csvmd5 = Md5.getMd5Hash(csv);
-            boolean readFile = false;
-            final ItemsetDbAdapter ida = new ItemsetDbAdapter();
-            ida.open();
-            // get the database entry (if exists) for this itemsets.csv, based
-            // on the path
-            final Cursor c = ida.getItemsets(csv.getAbsolutePath());
-            if (c != null) {
-                if (c.getCount() == 1) {
-                    c.moveToFirst(); // should be only one, ever, if any
-                    final String oldmd5 = c.getString(c.getColumnIndex("hash"));
-                    if (oldmd5.equals(csvmd5)) {
-                        // they're equal, do nothing
-                    } else {
-                        // the csv has been updated, delete the old entries
-                        ida.dropTable(ItemsetDbAdapter.getMd5FromString(csv.getAbsolutePath()),
-                                csv.getAbsolutePath());
-                        // and read the new
-                        readFile = true;
+            synchronized (FormMediaPreparer.getLock(formMediaDir)) {
+                try {
+                    boolean imported = ItemsetsCsvImporter.importIfChanged(csv, fileHashIndex, new ItemsetsCsvImporter.Listener() {
+                        @Override
+                        public boolean isCancelled() {
+                            return FormLoaderTask.this.isCancelled();
+                        }
+
+                        @Override
+                        public void onProgress(int rowsImported) {
+                            publishProgress(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_import_progress_message,
+                                    csv.getName(), " (" + rowsImported + " records so far)"));
+                        }
+                    });
+
+                    if (imported) {
+                        ItemsetsCsvImporter.createIndexes(csv, formDef);
                     }
-                } else {
-                    // new csv, add it
-                    readFile = true;
+                } catch (IOException | SQLException | CsvValidationException e) {
+                    warningMsg = e.getMessage();
                 }
-                c.close();
-            }
-            ida.close();
-            if (readFile) {
-                readCSV(csv, csvmd5, ItemsetDbAdapter.getMd5FromString(csv.getAbsolutePath()));
             }
         }
     }
@@ -313,6 +301,7 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<String, String, Form
 
             // Use the savepoint file only if it's newer than the last manual save
             final File savepointFile = SaveFormToDisk.getSavepointFile(instanceXml.getName());
+            final File savepointJournalFile = SaveFormToDisk.getSavepointJournalFile(instanceXml.getName());
             if (savepointFile.exists()
                     && savepointFile.lastModified() > instanceXml.lastModified()) {
                 usedSavepoint = true;
@@ -327,6 +316,10 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<String, String, Form
                     Timber.i("Importing data");
                     publishProgress(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.survey_loading_reading_data_message));
                     importData(instanceXml, fec);
+                    if (usedSavepoint) {
+                        // apply the answers changed since the savepoint was written
+                        SavePointJournal.replay(savepointFile, savepointJournalFile, formDef);
+                    }
                     formDef.initialize(false, instanceInit);
                 } catch (IOException | RuntimeException e) {
                     // Skip a savepoint file that is corrupted or 0-sized
@@ -351,52 +344,19 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<String, String, Form
         return usedSavepoint;
     }
 
-    @SuppressWarnings("unchecked")
-    private void loadExternalData(File mediaFolder) {
-        // SCTO-594
-        File[] zipFiles = mediaFolder.listFiles(new FileFilter() {
-            @Override
-            public boolean accept(File file) {
-                return file.getName().toLowerCase(Locale.US).endsWith(".zip");
-            }
-        });
-
-        if (zipFiles != null) {
-            ZipUtils.unzip(zipFiles);
-            for (File zipFile : zipFiles) {
-                boolean deleted = zipFile.delete();
-                if (!deleted) {
-                    Timber.w("Cannot delete %s. It will be re-unzipped next time. :(", zipFile.toString());
-                }
-            }
-        }
-
-        File[] csvFiles = mediaFolder.listFiles(new FileFilter() {
-            @Override
-            public boolean accept(File file) {
-                String lowerCaseName = file.getName().toLowerCase(Locale.US);
-                return lowerCaseName.endsWith(".csv") && !lowerCaseName.equalsIgnoreCase(
-                        ITEMSETS_CSV);
-            }
-        });
-
-        Map<String, File> externalDataMap = new HashMap<>();
-
-        if (csvFiles != null) {
-
-            for (File csvFile : csvFiles) {
-                String dataSetName = csvFile.getName().substring(0,
-                        csvFile.getName().lastIndexOf("."));
-                externalDataMap.put(dataSetName, csvFile);
-            }
-
+    private void loadExternalData(File mediaFolder, FormDef formDef) {
+        synchronized (FormMediaPreparer.getLock(mediaFolder)) {
+            Map<String, File> externalDataMap = FormMediaPreparer.unzipAndFindExternalData(mediaFolder);
             if (!externalDataMap.isEmpty()) {
-
                 publishProgress(Collect.getInstance()
                         .getString(org.odk.collect.strings.R.string.survey_loading_reading_csv_message));
 
-                ExternalDataReader externalDataReader = new ExternalDataReaderImpl(this);
+                ExternalDataReader externalDataReader = new ExternalDataReaderImpl(this, fileHashIndex);
                 externalDataReader.doImport(externalDataMap);
+
+                if (!isCancelled()) {
+                    ExternalDataHandlerSearch.createIndexes(formDef, externalDataManager);
+                }
             }
         }
     }
@@ -532,49 +492,6 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<String, String, Form
         this.intent = intent;
     }
 
-    private void readCSV(File csv, String formHash, String pathHash) {
-
-        CSVReader reader;
-        ItemsetDbAdapter ida = new ItemsetDbAdapter();
-        ida.open();
-        boolean withinTransaction = false;
-
-        try {
-            reader = new CSVReader(new FileReader(csv));
-
-            String[] nextLine;
-            String[] columnHeaders = null;
-            int lineNumber = 0;
-            while ((nextLine = reader.readNext()) != null) {
-                lineNumber++;
-                if (lineNumber == 1) {
-                    // first line of csv is column headers
-                    columnHeaders = nextLine;
-                    ida.createTable(formHash, pathHash, columnHeaders,
-                            csv.getAbsolutePath());
-                    continue;
-                }
-                // add the rest of the lines to the specified database
-                // nextLine[] is an array of values from the line
-                // System.out.println(nextLine[4] + "etc...");
-                if (lineNumber == 2) {
-                    // start a transaction for the inserts
-                    withinTransaction = true;
-                    ida.beginTransaction();
-                }
-                ida.addRow(pathHash, columnHeaders, nextLine);
-
-            }
-        } catch (IOException | SQLException | CsvValidationException e) {
-            warningMsg = e.getMessage();
-        } finally {
-            if (withinTransaction) {
-                ida.commit();
-            }
-            ida.close();
-        }
-    }
-
     public FormDef getFormDef() {
         return formDef;
     }
@@ -18,9 +18,11 @@ import org.odk.collect.analytics.Analytics;
 import org.odk.collect.android.application.Collect;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.android.openrosa.OpenRosaHttpInterface;
+import org.odk.collect.android.projects.ProjectsDataService;
 import org.odk.collect.android.upload.InstanceServerUploader;
 import org.odk.collect.android.upload.FormUploadAuthRequestedException;
 import org.odk.collect.android.upload.FormUploadException;
+import org.odk.collect.android.upload.SubmissionEndpointsProvider;
 import org.odk.collect.android.utilities.WebCredentialsUtils;
 import org.odk.collect.metadata.PropertyManager;
 
@@ -46,6 +48,12 @@ public class InstanceServerUploaderTask extends InstanceUploaderTask {
     @Inject
     PropertyManager propertyManager;
 
+    @Inject
+    SubmissionEndpointsProvider submissionEndpointsProvider;
+
+    @Inject
+    ProjectsDataService projectsDataService;
+
     // Custom submission URL, username and password that can be sent via intent extras by external
     // applications
     private String completeDestinationUrl;
@@ -60,7 +68,8 @@ public class InstanceServerUploaderTask extends InstanceUploaderTask {
     public Outcome doInBackground(Long... instanceIdsToUpload) {
         Outcome outcome = new Outcome();
 
-        InstanceServerUploader uploader = new InstanceServerUploader(httpInterface, webCredentialsUtils, settingsProvider.getUnprotectedSettings());
+        InstanceServerUploader uploader = new InstanceServerUploader(httpInterface, webCredentialsUtils, settingsProvider.getUnprotectedSettings(),
+                submissionEndpointsProvider.get(projectsDataService.getCurrentProject().getUuid()));
         List<Instance> instancesToUpload = uploader.getInstancesFromIds(instanceIdsToUpload);
 
         String deviceId = propertyManager.getSingularProperty(PropertyManager.PROPMGR_DEVICE_ID);
@@ -71,11 +80,26 @@ public class InstanceServerUploaderTask extends InstanceUploaderTask {
             }
             Instance instance = instancesToUpload.get(i);
 
-            publishProgress(i + 1, instancesToUpload.size());
+            final int position = i + 1;
+            final int total = instancesToUpload.size();
+            publishProgress(position, total);
 
             try {
                 String destinationUrl = uploader.getUrlToSubmitTo(instance, deviceId, completeDestinationUrl, null);
-                String customMessage = uploader.uploadOneSubmission(instance, destinationUrl);
+                String customMessage = uploader.uploadOneSubmission(instance, destinationUrl, new InstanceServerUploader.UploadProgressListener() {
+                    private int lastPercentSent = -1;
+
+                    @Override
+                    public void onProgress(long bytesSent, long totalBytes) {
+                        int percentSent = totalBytes > 0 ? (int) (bytesSent * 100 / totalBytes) : 100;
+
+                        // Bytes are reported for every write so only update the UI when it would change
+                        if (percentSent != lastPercentSent) {
+                            lastPercentSent = percentSent;
+                            publishProgress(position, total, percentSent);
+                        }
+                    }
+                });
                 outcome.messagesByInstanceId.put(instance.getDbId().toString(),
                         customMessage != null ? customMessage : getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.success));
 
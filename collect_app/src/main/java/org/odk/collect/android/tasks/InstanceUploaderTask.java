@@ -81,7 +81,11 @@ public abstract class InstanceUploaderTask extends AsyncTask<Long, Integer, Inst
     protected void onProgressUpdate(Integer... values) {
         synchronized (this) {
             if (stateListener != null) {
-                stateListener.progressUpdate(values[0], values[1]);
+                if (values.length > 2) {
+                    stateListener.progressUpdate(values[0], values[1], values[2]);
+                } else {
+                    stateListener.progressUpdate(values[0], values[1]);
+                }
             }
         }
     }
@@ -312,6 +312,14 @@ public class SaveFormToDisk {
         return new File(tempDir, instanceName + ".save");
     }
 
+    /**
+     * Return the file for the journal of answers changed since the savepoint for a given instance.
+     */
+    static File getSavepointJournalFile(String instanceName) {
+        File tempDir = new File(new StoragePathProvider().getOdkDirPath(StorageSubdirectory.CACHE));
+        return new File(tempDir, instanceName + ".journal");
+    }
+
     /**
      * Return the formIndex file for a given instance.
      */
@@ -322,8 +330,10 @@ public class SaveFormToDisk {
 
     public static void removeSavepointFiles(String instanceName) {
         File savepointFile = getSavepointFile(instanceName);
+        File savepointJournalFile = getSavepointJournalFile(instanceName);
         File formIndexFile = getFormIndexFile(instanceName);
         FileUtils.deleteAndReport(savepointFile);
+        FileUtils.deleteAndReport(savepointJournalFile);
         FileUtils.deleteAndReport(formIndexFile);
     }
 
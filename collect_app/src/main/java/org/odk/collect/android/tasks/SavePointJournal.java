@@ -0,0 +1,278 @@
+package org.odk.collect.android.tasks;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.javarosa.core.model.FormDef;
+import org.javarosa.core.model.data.IAnswerData;
+import org.javarosa.core.model.data.UncastData;
+import org.javarosa.core.model.instance.TreeElement;
+import org.javarosa.core.model.instance.TreeReference;
+import org.javarosa.xform.util.XFormAnswerDataParser;
+import org.odk.collect.android.javarosawrapper.FormController;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import timber.log.Timber;
+
+/**
+ * An append-only log of the answers that have changed since a savepoint was written. Appending
+ * the few answers that changed on a screen is much cheaper than serializing and writing the whole
+ * instance so savepoints only need to be rewritten in full every so often (or when the structure
+ * of the instance changes because repeats have been added or removed).
+ * <p>
+ * The journal starts with the length and modification time of the savepoint it applies to so that
+ * it's ignored if the savepoint has been rewritten since (if the app dies between writing a new
+ * savepoint and deleting the old journal for example). Each entry is the path of an element and
+ * its value; a partially written entry at the end (if the app died while appending) is ignored.
+ */
+final class SavePointJournal {
+
+    private static final int MAX_ENTRIES = 1000;
+
+    @Nullable
+    private static SavePointJournal current;
+
+    private final FormController formController;
+    private final File savepointFile;
+    private final File journalFile;
+
+    @Nullable
+    private Map<String, String> snapshot;
+    private long savepointLength;
+    private long savepointLastModified;
+    private int entryCount;
+
+    private SavePointJournal(FormController formController, File savepointFile, File journalFile) {
+        this.formController = formController;
+        this.savepointFile = savepointFile;
+        this.journalFile = journalFile;
+    }
+
+    /**
+     * Returns the journal for {@code formController}. Only one form is filled at a time so a new
+     * controller (or instance) replaces the previous journal and starts with a full savepoint.
+     * Callers must hold the savepoint lock.
+     */
+    static SavePointJournal get(FormController formController, File savepointFile, File journalFile) {
+        if (current == null || current.formController != formController || !current.savepointFile.equals(savepointFile)) {
+            current = new SavePointJournal(formController, savepointFile, journalFile);
+        }
+
+        return current;
+    }
+
+    /**
+     * Appends the answers that have changed since the last savepoint or append.
+     *
+     * @return {@code false} if a full savepoint needs to be written instead
+     */
+    boolean append(@NonNull TreeElement root) throws IOException {
+        if (snapshot == null || entryCount >= MAX_ENTRIES || !isSavepointUnchanged()) {
+            return false;
+        }
+
+        Map<String, String> values = readValues(root);
+        if (!values.keySet().equals(snapshot.keySet())) {
+            // repeats have been added or removed
+            return false;
+        }
+
+        List<Map.Entry<String, String>> changes = new ArrayList<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String previous = snapshot.get(entry.getKey());
+            if (previous == null ? entry.getValue() != null : !previous.equals(entry.getValue())) {
+                changes.add(entry);
+            }
+        }
+
+        if (changes.isEmpty()) {
+            return true;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        if (!journalFile.exists()) {
+            output.writeLong(savepointLength);
+            output.writeLong(savepointLastModified);
+        }
+
+        for (Map.Entry<String, String> change : changes) {
+            writeString(output, change.getKey());
+            output.writeBoolean(change.getValue() != null);
+            if (change.getValue() != null) {
+                writeString(output, change.getValue());
+            }
+        }
+        output.flush();
+
+        try (FileOutputStream fileOutput = new FileOutputStream(journalFile, true)) {
+            fileOutput.write(bytes.toByteArray());
+            fileOutput.getChannel().force(false);
+        }
+
+        snapshot = values;
+        entryCount += changes.size();
+        return true;
+    }
+
+    /**
+     * Records that a full savepoint of {@code root} has just been written, which replaces
+     * anything in the journal.
+     */
+    void onSavepointWritten(@NonNull TreeElement root) {
+        snapshot = readValues(root);
+        savepointLength = savepointFile.length();
+        savepointLastModified = savepointFile.lastModified();
+        entryCount = 0;
+        delete(journalFile);
+    }
+
+    /**
+     * Applies the journal for {@code savepointFile} (if there is one) to {@code formDef}'s main
+     * instance. This should happen after the savepoint has been imported and before the form
+     * is initialized.
+     */
+    static void replay(File savepointFile, File journalFile, FormDef formDef) {
+        if (!journalFile.exists()) {
+            return;
+        }
+
+        TreeElement root = formDef.getMainInstance().getRoot();
+        int replayed = 0;
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            long length = input.readLong();
+            long lastModified = input.readLong();
+            if (length != savepointFile.length() || lastModified != savepointFile.lastModified()) {
+                Timber.w("Ignoring savepoint journal for a different savepoint: %s", journalFile);
+                return;
+            }
+
+            while (true) {
+                String path;
+                String value;
+                try {
+                    path = readString(input);
+                    value = input.readBoolean() ? readString(input) : null;
+                } catch (EOFException e) {
+                    // the end of the journal (or an entry that didn't finish being written)
+                    break;
+                }
+
+                TreeElement element = resolve(root, path);
+                if (element != null) {
+                    element.setAnswer(parseAnswer(element, value, formDef));
+                    replayed++;
+                } else {
+                    Timber.w("Savepoint journal entry for missing element %s", path);
+                }
+            }
+        } catch (IOException e) {
+            Timber.w(e);
+        }
+
+        Timber.i("Replayed %d savepoint journal entries from %s", replayed, journalFile);
+    }
+
+    static void delete(File journalFile) {
+        if (journalFile.exists() && !journalFile.delete()) {
+            Timber.w("Could not delete savepoint journal %s", journalFile);
+        }
+    }
+
+    private boolean isSavepointUnchanged() {
+        return savepointFile.exists()
+                && savepointFile.length() == savepointLength
+                && savepointFile.lastModified() == savepointLastModified;
+    }
+
+    /**
+     * The values of every element without children by path (in document order).
+     */
+    private static Map<String, String> readValues(TreeElement root) {
+        Map<String, String> values = new LinkedHashMap<>();
+        readValues(root, "", values);
+        return values;
+    }
+
+    private static void readValues(TreeElement element, String parentPath, Map<String, String> values) {
+        if (element.getMult() == TreeReference.INDEX_TEMPLATE) {
+            return;
+        }
+
+        String path = parentPath + "/" + element.getName() + "[" + element.getMult() + "]";
+        int numChildren = element.getNumChildren();
+        if (numChildren == 0) {
+            IAnswerData value = element.getValue();
+            values.put(path, value != null ? value.uncast().getString() : null);
+        } else {
+            for (int i = 0; i < numChildren; i++) {
+                readValues(element.getChildAt(i), path, values);
+            }
+        }
+    }
+
+    @Nullable
+    private static TreeElement resolve(TreeElement root, String path) {
+        String[] steps = path.substring(1).split("/");
+        TreeElement element = null;
+
+        for (String step : steps) {
+            int bracket = step.lastIndexOf('[');
+            String name = step.substring(0, bracket);
+            int mult = Integer.parseInt(step.substring(bracket + 1, step.length() - 1));
+
+            if (element == null) {
+                if (!root.getName().equals(name)) {
+                    return null;
+                }
+
+                element = root;
+            } else {
+                element = element.getChild(name, mult);
+                if (element == null) {
+                    return null;
+                }
+            }
+        }
+
+        return element;
+    }
+
+    @Nullable
+    private static IAnswerData parseAnswer(TreeElement element, @Nullable String value, FormDef formDef) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        IAnswerData answer = XFormAnswerDataParser.getAnswerData(value, element.getDataType(),
+                FormDef.findQuestionByRef(element.getRef(), formDef));
+        return answer != null ? answer : new UncastData(value);
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -20,6 +20,7 @@ package org.odk.collect.android.tasks;
 
 import android.os.AsyncTask;
 
+import org.javarosa.core.model.instance.TreeElement;
 import org.javarosa.core.services.transport.payload.ByteArrayPayload;
 import org.odk.collect.android.javarosawrapper.FormController;
 import org.odk.collect.android.listeners.SavePointListener;
@@ -41,11 +42,21 @@ public class SavePointTask extends AsyncTask<Void, Void, String> {
     private final SavePointListener listener;
     private final FormController formController;
     private final int priority;
+    private final boolean compact;
 
     public SavePointTask(SavePointListener listener, FormController formController) {
+        this(listener, formController, false);
+    }
+
+    /**
+     * @param compact write the whole instance to the savepoint rather than just appending the
+     *                answers that have changed to its journal (see {@link SavePointJournal})
+     */
+    public SavePointTask(SavePointListener listener, FormController formController, boolean compact) {
         this.listener = listener;
         this.formController = formController;
         this.priority = ++lastPriorityUsed;
+        this.compact = compact;
     }
 
     @Override
@@ -59,7 +70,17 @@ public class SavePointTask extends AsyncTask<Void, Void, String> {
             long start = System.currentTimeMillis();
 
             try {
-                File temp = SaveFormToDisk.getSavepointFile(formController.getInstanceFile().getName());
+                String instanceName = formController.getInstanceFile().getName();
+                File temp = SaveFormToDisk.getSavepointFile(instanceName);
+                SavePointJournal journal = SavePointJournal.get(formController, temp, SaveFormToDisk.getSavepointJournalFile(instanceName));
+                TreeElement root = formController.getFormDef().getMainInstance().getRoot();
+
+                if (!compact && journal.append(root)) {
+                    long end = System.currentTimeMillis();
+                    Timber.i("Savepoint journal ms: %s to %s", Long.toString(end - start), temp.toString());
+                    return null;
+                }
+
                 ByteArrayPayload payload = formController.getFilledInFormXml();
 
                 if (priority < lastPriorityUsed) {
@@ -69,6 +90,7 @@ public class SavePointTask extends AsyncTask<Void, Void, String> {
 
                 // write out xml
                 SaveFormToDisk.writeFile(payload, temp.getAbsolutePath());
+                journal.onSavepointWritten(root);
 
                 long end = System.currentTimeMillis();
                 Timber.i("Savepoint ms: %s to %s", Long.toString(end - start), temp.toString());
@@ -0,0 +1,58 @@
+package org.odk.collect.android.upload
+
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+
+/**
+ * Records which attachments of an instance a server has already accepted as part of a submission
+ * that was split over multiple requests, so a failed submission can be resumed without sending
+ * them again. The record is kept in a hidden file in the instance folder so it is never uploaded
+ * itself and is removed along with the instance.
+ *
+ * Acknowledgements are only valid for the [submissionUri] they were made to so that attachments
+ * are sent again if the form's submission URL changes or the server redirects elsewhere.
+ */
+class AcknowledgedAttachments(instanceDir: File, private val submissionUri: String) {
+
+    private val file = File(instanceDir, FILE_NAME)
+
+    fun filterUnacknowledged(files: List<File>): List<File> {
+        if (!file.exists()) {
+            return files
+        }
+
+        val acknowledged = try {
+            file.readLines().toHashSet()
+        } catch (e: IOException) {
+            Timber.w(e)
+            return files
+        }
+
+        return files.filterNot { acknowledged.contains(key(it)) }
+    }
+
+    fun acknowledge(files: List<File>) {
+        if (files.isEmpty()) {
+            return
+        }
+
+        try {
+            file.appendText(files.joinToString(separator = "") { key(it) + "\n" })
+        } catch (e: IOException) {
+            Timber.w(e)
+        }
+    }
+
+    fun clear() {
+        file.delete()
+    }
+
+    private fun key(file: File): String {
+        return "$submissionUri\t${file.name}\t${file.length()}\t${file.lastModified()}"
+    }
+
+    companion object {
+        private const val FILE_NAME = ".acknowledged_attachments"
+    }
+}
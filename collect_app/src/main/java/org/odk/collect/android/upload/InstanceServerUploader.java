@@ -17,6 +17,7 @@ package org.odk.collect.android.upload;
 import android.net.Uri;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import org.odk.collect.android.application.Collect;
 import org.odk.collect.android.openrosa.CaseInsensitiveHeaders;
@@ -36,9 +37,7 @@ import java.net.URI;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import javax.net.ssl.HttpsURLConnection;
 
@@ -48,18 +47,21 @@ import static org.odk.collect.strings.localization.LocalizedApplicationKt.getLoc
 
 public class InstanceServerUploader extends InstanceUploader {
     private static final String URL_PATH_SEP = "/";
+    private static final long DEFAULT_ACCEPT_CONTENT_LENGTH = 10000000L;
 
     private final OpenRosaHttpInterface httpInterface;
     private final WebCredentialsUtils webCredentialsUtils;
     private final Settings generalSettings;
-    private final Map<Uri, Uri> uriRemap = new HashMap<>();
+    private final SubmissionEndpoints submissionEndpoints;
 
     public InstanceServerUploader(OpenRosaHttpInterface httpInterface,
                                   WebCredentialsUtils webCredentialsUtils,
-                                  Settings generalSettings) {
+                                  Settings generalSettings,
+                                  SubmissionEndpoints submissionEndpoints) {
         this.httpInterface = httpInterface;
         this.webCredentialsUtils = webCredentialsUtils;
         this.generalSettings = generalSettings;
+        this.submissionEndpoints = submissionEndpoints;
     }
 
     /**
@@ -70,16 +72,27 @@ public class InstanceServerUploader extends InstanceUploader {
      */
     @Override
     public String uploadOneSubmission(Instance instance, String urlString) throws FormUploadException {
-        Uri submissionUri = Uri.parse(urlString);
+        return uploadOneSubmission(instance, urlString, null);
+    }
+
+    /**
+     * Like {@link #uploadOneSubmission(Instance, String)} but tells {@code progressListener} how
+     * much of the submission has been sent as it goes.
+     */
+    public String uploadOneSubmission(Instance instance, String urlString, @Nullable UploadProgressListener progressListener) throws FormUploadException {
+        final Uri requestedUri = Uri.parse(urlString);
+        Uri submissionUri = requestedUri;
 
-        long contentLength = 10000000L;
+        long contentLength = DEFAULT_ACCEPT_CONTENT_LENGTH;
 
         // We already issued a head request and got a response, so we know it was an
         // OpenRosa-compliant server. We also know the proper URL to send the submission to and
         // the proper scheme.
-        if (uriRemap.containsKey(submissionUri)) {
-            submissionUri = uriRemap.get(submissionUri);
-            Timber.i("Using Uri remap for submission %s. Now: %s", instance.getDbId(),
+        SubmissionEndpoints.Endpoint endpoint = submissionEndpoints.get(requestedUri);
+        if (endpoint != null) {
+            submissionUri = endpoint.getUri();
+            contentLength = endpoint.getAcceptContentLength();
+            Timber.i("Using known endpoint for submission %s. Now: %s", instance.getDbId(),
                     submissionUri.toString());
         } else {
             if (submissionUri.getHost() == null) {
@@ -134,7 +147,6 @@ public class InstanceServerUploader extends InstanceUploader {
                                         .encodedQuery(submissionUri.getEncodedQuery())
                                         .build();
                             }
-                            uriRemap.put(submissionUri, newURI);
                             submissionUri = newURI;
                         } else {
                             // Don't follow a redirection attempt to a different host.
@@ -149,6 +161,8 @@ public class InstanceServerUploader extends InstanceUploader {
                         throw new FormUploadException(FAIL + urlString + " " + e.toString());
                     }
                 }
+
+                submissionEndpoints.put(requestedUri, new SubmissionEndpoints.Endpoint(submissionUri, contentLength));
             } else {
                 if (headResult.getStatusCode() >= HttpsURLConnection.HTTP_OK
                         && headResult.getStatusCode() < HttpsURLConnection.HTTP_MULT_CHOICE) {
@@ -185,14 +199,42 @@ public class InstanceServerUploader extends InstanceUploader {
             throw new FormUploadException("Error reading files to upload");
         }
 
+        // Don't resend attachments the server accepted during a previous attempt that was split
+        // over multiple requests
+        AcknowledgedAttachments acknowledgedAttachments = new AcknowledgedAttachments(instanceFile.getParentFile(), submissionUri.toString());
+        List<File> filesToUpload = acknowledgedAttachments.filterUnacknowledged(files);
+        if (filesToUpload.size() < files.size()) {
+            Timber.i("Resuming submission %s. %d of %d attachments were already sent.", instance.getDbId(),
+                    files.size() - filesToUpload.size(), files.size());
+        }
+
+        // Only an estimate as the XML is sent again with each batch when the upload is split
+        long totalBytes = submissionFile.length();
+        for (File file : filesToUpload) {
+            totalBytes += file.length();
+        }
+        final long bytesToSend = totalBytes;
+
         HttpPostResult postResult;
         ResponseMessageParser messageParser = new ResponseMessageParser();
 
         try {
             URI uri = URI.create(submissionUri.toString());
 
-            postResult = httpInterface.uploadSubmissionAndFiles(submissionFile, files, uri,
-                    webCredentialsUtils.getCredentials(uri), contentLength);
+            postResult = httpInterface.uploadSubmissionAndFiles(submissionFile, filesToUpload, uri,
+                    webCredentialsUtils.getCredentials(uri), contentLength, new OpenRosaHttpInterface.SubmissionUploadListener() {
+                        @Override
+                        public void onBytesWritten(long bytesWritten) {
+                            if (progressListener != null) {
+                                progressListener.onProgress(Math.min(bytesWritten, bytesToSend), bytesToSend);
+                            }
+                        }
+
+                        @Override
+                        public void onAttachmentsAcknowledged(@NonNull List<File> files) {
+                            acknowledgedAttachments.acknowledge(files);
+                        }
+                    });
 
             int responseCode = postResult.getResponseCode();
             messageParser.setMessageResponse(postResult.getHttpResponse());
@@ -220,11 +262,14 @@ public class InstanceServerUploader extends InstanceUploader {
             }
 
         } catch (Exception e) {
+            // The server may have been reconfigured so negotiate again next time
+            submissionEndpoints.remove(requestedUri);
             markSubmissionFailed(instance);
             throw new FormUploadException(FAIL + "Generic Exception: "
                     + (e.getMessage() != null ? e.getMessage() : e.toString()));
         }
 
+        acknowledgedAttachments.clear();
         markSubmissionComplete(instance);
 
         if (messageParser.isValid()) {
@@ -234,6 +279,10 @@ public class InstanceServerUploader extends InstanceUploader {
         return null;
     }
 
+    public interface UploadProgressListener {
+        void onProgress(long bytesSent, long totalBytes);
+    }
+
     private List<File> getFilesInParentDirectory(File instanceFile, File submissionFile) {
         List<File> files = new ArrayList<>();
 
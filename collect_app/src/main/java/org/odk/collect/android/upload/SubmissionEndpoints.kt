@@ -0,0 +1,46 @@
+package org.odk.collect.android.upload
+
+import android.app.Application
+import android.net.Uri
+import org.odk.collect.androidshared.data.getState
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Remembers the outcome of the OpenRosa HEAD request for submission URLs (the URL submissions
+ * should actually be posted to and the server's accepted content length) so that it only needs
+ * to be made again if a submission to that URL fails.
+ */
+class SubmissionEndpoints {
+
+    private val endpoints = ConcurrentHashMap<String, Endpoint>()
+
+    fun get(submissionUri: Uri): Endpoint? {
+        return endpoints[submissionUri.toString()]
+    }
+
+    fun put(submissionUri: Uri, endpoint: Endpoint) {
+        endpoints[submissionUri.toString()] = endpoint
+    }
+
+    fun remove(submissionUri: Uri) {
+        endpoints.remove(submissionUri.toString())
+    }
+
+    data class Endpoint(val uri: Uri, val acceptContentLength: Long)
+}
+
+class SubmissionEndpointsProvider(application: Application) {
+
+    private val endpoints =
+        application.getState().get(MAP_KEY, ConcurrentHashMap<String, SubmissionEndpoints>())
+
+    fun get(projectId: String): SubmissionEndpoints {
+        return endpoints.getOrPut(projectId) {
+            SubmissionEndpoints()
+        }
+    }
+
+    companion object {
+        private const val MAP_KEY = "submission_endpoints_map"
+    }
+}
@@ -41,6 +41,7 @@ import org.javarosa.xform.parse.XFormParser;
 import org.javarosa.xform.util.XFormUtils;
 import org.odk.collect.android.application.Collect;
 import org.odk.collect.async.OngoingWorkListener;
+import org.odk.collect.shared.strings.Md5;
 import org.odk.collect.shared.strings.StringUtils;
 
 import java.io.File;
@@ -54,6 +55,8 @@ import java.net.FileNameMap;
 import java.net.URLConnection;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -476,8 +479,12 @@ public final class FileUtils {
      * <p>
      * The file is saved into a temp folder and is moved to the final place if everything
      * is okay, so that garbage is not left over on cancel.
+     *
+     * @return the MD5 hash of the written file computed while it was being written, or null if
+     * it could not be computed
      */
-    public static void interuptablyWriteFile(InputStream inputStream, File destinationFile, File tempDir, OngoingWorkListener listener)
+    @Nullable
+    public static String interuptablyWriteFile(InputStream inputStream, File destinationFile, File tempDir, OngoingWorkListener listener)
             throws IOException, InterruptedException {
 
         File tempFile = File.createTempFile(
@@ -492,6 +499,7 @@ public final class FileUtils {
         boolean success = false;
         int attemptCount = 0;
         final int maxAttemptCount = 2;
+        String md5Hash = null;
         while (!success && ++attemptCount <= maxAttemptCount) {
             // write connection to file
             InputStream is = null;
@@ -500,14 +508,19 @@ public final class FileUtils {
             try {
                 is = inputStream;
                 os = new FileOutputStream(tempFile);
+                MessageDigest digest = newDigestOrNull();
 
                 byte[] buf = new byte[4096];
                 int len;
                 while ((len = is.read(buf)) > 0 && (listener == null || !listener.isCancelled())) {
                     os.write(buf, 0, len);
+                    if (digest != null) {
+                        digest.update(buf, 0, len);
+                    }
                 }
                 os.flush();
                 success = true;
+                md5Hash = digest != null ? Md5.toMd5Hash(digest) : null;
 
             } catch (Exception e) {
                 Timber.e(e);
@@ -565,6 +578,18 @@ public final class FileUtils {
                     tempFile.getAbsolutePath(), destinationFile.getAbsolutePath(), errorMessage);
             throw new RuntimeException(msg);
         }
+
+        return md5Hash;
+    }
+
+    @Nullable
+    private static MessageDigest newDigestOrNull() {
+        try {
+            return Md5.newDigest();
+        } catch (NoSuchAlgorithmException e) {
+            Timber.w(e);
+            return null;
+        }
     }
 
     public static void copyFileFromAssets(Context context, String fileDestPath, String fileSourcePath) throws IOException {
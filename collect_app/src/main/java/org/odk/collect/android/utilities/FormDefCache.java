@@ -1,23 +1,44 @@
 package org.odk.collect.android.utilities;
 
+import android.util.LruCache;
+
 import org.javarosa.core.model.FormDef;
 import org.javarosa.core.util.externalizable.ExtUtil;
 import org.odk.collect.android.storage.StoragePathProvider;
 import org.odk.collect.android.storage.StorageSubdirectory;
-import org.odk.collect.shared.strings.Md5;
+import org.odk.collect.shared.files.FileHashIndex;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 
 import timber.log.Timber;
 
-/** Methods for reading from and writing to the FormDef cache */
+/**
+ * Methods for reading from and writing to the FormDef cache. The cache has two tiers: serialized
+ * FormDefs are kept in a bounded in-memory LRU (keyed by the MD5 of the form XML) in front of the
+ * .formdef files on disk. Every read deserializes a fresh FormDef so that form sessions never
+ * share mutable state.
+ */
 public final class FormDefCache {
 
+    /**
+     * Serialized FormDefs of large forms can take several megabytes so the memory tier is bounded
+     * by bytes rather than entries.
+     */
+    private static final int MEMORY_CACHE_SIZE = (int) Math.min(Runtime.getRuntime().maxMemory() / 16, 32 * 1024 * 1024);
+
+    private static final LruCache<String, byte[]> MEMORY_CACHE = new LruCache<String, byte[]>(MEMORY_CACHE_SIZE) {
+        @Override
+        protected int sizeOf(String key, byte[] value) {
+            return value.length;
+        }
+    };
+
     private FormDefCache() {
         // Private constructor
     }
@@ -29,20 +50,33 @@ public final class FormDefCache {
      *
      * @param formDef  - The FormDef to be cached
      * @param formPath - The form XML file
+     * @param fileHashIndex - Used to hash the form XML file
      */
-    public static void writeCache(FormDef formDef, String formPath) throws IOException {
+    public static void writeCache(FormDef formDef, String formPath, FileHashIndex fileHashIndex) throws IOException {
         final long formSaveStart = System.currentTimeMillis();
-        File cachedFormDefFile = FormDefCache.getCacheFile(new File(formPath));
+        String formHash = fileHashIndex.getMd5Hash(new File(formPath));
+        if (formHash == null) {
+            return;
+        }
+
+        File cachedFormDefFile = FormDefCache.getCacheFile(formHash);
         final File tempCacheFile = File.createTempFile("cache", null,
                 new File(new StoragePathProvider().getOdkDirPath(StorageSubdirectory.CACHE)));
         Timber.i("Started saving %s to the cache via temp file %s",
                 formDef.getTitle(), tempCacheFile.getName());
 
         Exception caughtException = null;
+        byte[] serializedFormDef = null;
         try {
-            DataOutputStream dos = new DataOutputStream(new FileOutputStream(tempCacheFile));
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(bos);
             formDef.writeExternal(dos);
             dos.close();
+
+            serializedFormDef = bos.toByteArray();
+            try (FileOutputStream fos = new FileOutputStream(tempCacheFile)) {
+                fos.write(serializedFormDef);
+            }
         } catch (IOException exception) {
             caughtException = exception;
         }
@@ -58,6 +92,8 @@ public final class FormDefCache {
             }
         } else {
             if (tempCacheFile.renameTo(cachedFormDefFile)) {
+                // Only remember the form in memory once it's on disk so the tiers agree
+                MEMORY_CACHE.put(formHash, serializedFormDef);
                 Timber.i("Renamed %s to %s",
                         tempCacheFile.getName(), cachedFormDefFile.getName());
                 Timber.i("Caching %s took %.3f seconds.", formDef.getTitle(),
@@ -73,22 +109,44 @@ public final class FormDefCache {
     }
 
     /**
-     * If a form is present in the cache, deserializes and returns it as as FormDef.
+     * If a form is present in the cache, deserializes and returns it as as FormDef. The memory
+     * tier is checked first and the .formdef file is only read if that misses.
      * @param formXml a File containing the XML version of the form
+     * @param fileHashIndex used to hash the form XML file
      * @return a FormDef, or null if the form is not present in the cache
      */
-    public static FormDef readCache(File formXml) {
-        final File cachedForm = getCacheFile(formXml);
+    public static FormDef readCache(File formXml, FileHashIndex fileHashIndex) {
+        final String formHash = fileHashIndex.getMd5Hash(formXml);
+        if (formHash == null) {
+            return null;
+        }
+
+        final long start = System.currentTimeMillis();
+        final byte[] serializedFormDef = MEMORY_CACHE.get(formHash);
+        if (serializedFormDef != null) {
+            Timber.i("Attempting to load %s from memory cache.", formXml.getName());
+
+            try {
+                final FormDef deserializedFormDef = deserializeFormDef(serializedFormDef);
+                Timber.i("Loaded in %.3f seconds.", (System.currentTimeMillis() - start) / 1000F);
+                return deserializedFormDef;
+            } catch (Exception e) {
+                Timber.w("Deserialization from memory FAILED! Evicting: %s", formXml.getName());
+                Timber.w(e);
+                MEMORY_CACHE.remove(formHash);
+            }
+        }
+
+        final File cachedForm = getCacheFile(formHash);
         if (cachedForm.exists()) {
             Timber.i("Attempting to load %s from cached file: %s.", formXml.getName(), cachedForm.getName());
-            final long start = System.currentTimeMillis();
 
             try {
-                final FormDef deserializedFormDef = deserializeFormDef(cachedForm);
-                if (deserializedFormDef != null) {
-                    Timber.i("Loaded in %.3f seconds.", (System.currentTimeMillis() - start) / 1000F);
-                    return deserializedFormDef;
-                }
+                final byte[] serializedFromDisk = org.apache.commons.io.FileUtils.readFileToByteArray(cachedForm);
+                final FormDef deserializedFormDef = deserializeFormDef(serializedFromDisk);
+                MEMORY_CACHE.put(formHash, serializedFromDisk);
+                Timber.i("Loaded in %.3f seconds.", (System.currentTimeMillis() - start) / 1000F);
+                return deserializedFormDef;
             } catch (Exception e) {
                 // New .formdef will be created from XML
                 Timber.w("Deserialization FAILED! Deleting cache file: %s", cachedForm.getAbsolutePath());
@@ -101,17 +159,17 @@ public final class FormDefCache {
 
     /**
      * Builds and returns a File object for the cached version of a form.
-     * @param formXml the File containing the XML form
+     * @param formHash the MD5 hash of the XML form
      * @return a File object
      */
-    private static File getCacheFile(File formXml) {
+    private static File getCacheFile(String formHash) {
         return new File(new StoragePathProvider().getOdkDirPath(StorageSubdirectory.CACHE) + File.separator +
-                Md5.getMd5Hash(formXml) + ".formdef");
+                formHash + ".formdef");
     }
 
-    private static FormDef deserializeFormDef(File serializedFormDef) throws Exception {
+    private static FormDef deserializeFormDef(byte[] serializedFormDef) throws Exception {
         FormDef fd;
-        try (DataInputStream dis = new DataInputStream(new FileInputStream(serializedFormDef))) {
+        try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(serializedFormDef))) {
             fd = new FormDef();
             fd.readExternal(dis, ExtUtil.defaultPrototypes());
         }
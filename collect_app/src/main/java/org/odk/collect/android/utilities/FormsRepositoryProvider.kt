@@ -2,13 +2,16 @@ package org.odk.collect.android.utilities
 
 import android.content.Context
 import org.odk.collect.android.database.forms.DatabaseFormsRepository
+import org.odk.collect.android.injection.DaggerUtils
 import org.odk.collect.android.storage.StoragePathProvider
 import org.odk.collect.android.storage.StorageSubdirectory
 import org.odk.collect.forms.FormsRepository
+import org.odk.collect.shared.files.FileHashIndex
 
 class FormsRepositoryProvider @JvmOverloads constructor(
     private val context: Context,
-    private val storagePathProvider: StoragePathProvider = StoragePathProvider()
+    private val storagePathProvider: StoragePathProvider = StoragePathProvider(),
+    private val fileHashIndex: FileHashIndex = DaggerUtils.getComponent(context).fileHashIndex()
 ) {
 
     private val clock = { System.currentTimeMillis() }
@@ -18,6 +21,6 @@ class FormsRepositoryProvider @JvmOverloads constructor(
         val dbPath = storagePathProvider.getOdkDirPath(StorageSubdirectory.METADATA, projectId)
         val formsPath = storagePathProvider.getOdkDirPath(StorageSubdirectory.FORMS, projectId)
         val cachePath = storagePathProvider.getOdkDirPath(StorageSubdirectory.CACHE, projectId)
-        return DatabaseFormsRepository(context, dbPath, formsPath, cachePath, clock)
+        return DatabaseFormsRepository(context, dbPath, formsPath, cachePath, clock, fileHashIndex)
     }
 }
@@ -8,6 +8,12 @@ import java.util.Arrays;
 import java.util.List;
 
 public final class SQLiteUtils {
+
+    /**
+     * The most arguments a single statement can have on older versions of SQLite.
+     */
+    public static final int MAX_SELECTION_ARGS = 999;
+
     private SQLiteUtils() {
     }
 
@@ -65,6 +71,29 @@ public final class SQLiteUtils {
             .end();
     }
 
+    /**
+     * Creates an index (named after the table and columns) on {@code columns} if it doesn't
+     * already exist.
+     */
+    public static void createIndex(SQLiteDatabase db, String table, String... columns) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS "
+                + CustomSQLiteQueryBuilder.quoteIdentifier(table + "_" + String.join("_", columns))
+                + " ON " + CustomSQLiteQueryBuilder.quoteIdentifier(table)
+                + " (" + String.join(", ", columns) + ");");
+    }
+
+    /**
+     * A selection matching rows where {@code column} is one of {@code count} arguments.
+     */
+    public static String getInSelection(String column, int count) {
+        StringBuilder selection = new StringBuilder(column).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            selection.append(i == 0 ? "?" : ", ?");
+        }
+
+        return selection.append(")").toString();
+    }
+
     public static void dropTable(SQLiteDatabase db, String table) {
         CustomSQLiteQueryExecutor.begin(db)
             .dropIfExists(table)
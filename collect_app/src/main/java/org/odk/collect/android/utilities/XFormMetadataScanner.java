@@ -0,0 +1,266 @@
+package org.odk.collect.android.utilities;
+
+import static org.odk.collect.android.utilities.FileUtils.AUTO_DELETE;
+import static org.odk.collect.android.utilities.FileUtils.AUTO_SEND;
+import static org.odk.collect.android.utilities.FileUtils.BASE64_RSA_PUBLIC_KEY;
+import static org.odk.collect.android.utilities.FileUtils.FORMID;
+import static org.odk.collect.android.utilities.FileUtils.GEOMETRY_XPATH;
+import static org.odk.collect.android.utilities.FileUtils.SUBMISSIONURI;
+import static org.odk.collect.android.utilities.FileUtils.TITLE;
+import static org.odk.collect.android.utilities.FileUtils.VERSION;
+
+import androidx.annotation.Nullable;
+
+import org.kxml2.io.KXmlParser;
+import org.odk.collect.shared.strings.StringUtils;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the metadata returned by {@link FileUtils#getMetadataFromFormDefinition(File)} by
+ * streaming through the form definition instead of building a {@link org.javarosa.core.model.FormDef}.
+ * Only the title, the primary instance's root element, the submission element and (if there are
+ * geopoint questions) the binds and body are looked at.
+ * <p>
+ * Forms where the result might not match a full parse (ones with {@code setgeopoint} actions or
+ * relative references for example) aren't scanned so that callers can fall back to parsing them.
+ * The form isn't validated so this can't replace the full parse when forms are downloaded or
+ * found on disk, as that parse is what rejects invalid forms.
+ */
+public final class XFormMetadataScanner {
+
+    private static final String GEOPOINT = "geopoint";
+    private static final String SETGEOPOINT = "setgeopoint";
+
+    private static final int HEAD_CHILD_DEPTH = 3;
+    private static final int MODEL_CHILD_DEPTH = 4;
+    private static final int BODY_DEPTH = 2;
+
+    private final XmlPullParser parser;
+
+    private String title;
+    private String formId;
+    private String version;
+    private Map<String, String> submission;
+    private String geometryXPath;
+    private boolean primaryInstanceRead;
+
+    private final Map<String, Boolean> geopointsByNodeset = new HashMap<>();
+    private final Map<String, String> nodesetsByBindId = new HashMap<>();
+
+    private XFormMetadataScanner(XmlPullParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * @return the form's metadata or null if the form needs to be parsed to read it (or isn't
+     * well-formed XML)
+     */
+    @Nullable
+    public static HashMap<String, String> scan(File formDefinitionXml) {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(formDefinitionXml))) {
+            KXmlParser parser = new KXmlParser();
+            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true);
+            parser.setInput(inputStream, null);
+
+            return new XFormMetadataScanner(parser).read();
+        } catch (IOException | XmlPullParserException | UnsupportedFormException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private HashMap<String, String> read() throws IOException, XmlPullParserException, UnsupportedFormException {
+        int eventType;
+        while ((eventType = parser.next()) != XmlPullParser.END_DOCUMENT) {
+            if (eventType != XmlPullParser.START_TAG) {
+                continue;
+            }
+
+            String name = parser.getName();
+            int depth = parser.getDepth();
+
+            if (SETGEOPOINT.equals(name)) {
+                throw new UnsupportedFormException();
+            } else if (depth == HEAD_CHILD_DEPTH && "title".equals(name) && title == null) {
+                title = parser.nextText().trim();
+            } else if (depth == MODEL_CHILD_DEPTH && "instance".equals(name) && !primaryInstanceRead) {
+                readPrimaryInstance();
+            } else if (depth == MODEL_CHILD_DEPTH && "submission".equals(name) && submission == null && parser.getAttributeValue(null, "id") == null) {
+                readSubmission();
+            } else if (depth == MODEL_CHILD_DEPTH && "bind".equals(name)) {
+                readBind();
+            } else if (depth == BODY_DEPTH && "body".equals(name)) {
+                if (!geopointsByNodeset.containsValue(true)) {
+                    // Nothing after the model matters without geopoint questions
+                    break;
+                }
+
+                geometryXPath = findFirstGeopoint(null);
+            }
+        }
+
+        if (title == null || formId == null) {
+            throw new UnsupportedFormException();
+        }
+
+        HashMap<String, String> fields = new HashMap<>();
+        fields.put(TITLE, title);
+        fields.put(FORMID, formId);
+        fields.put(VERSION, version != null && StringUtils.isBlank(version) ? null : version);
+
+        if (submission != null) {
+            fields.put(SUBMISSIONURI, submission.get("action"));
+
+            String key = submission.get("base64RsaPublicKey");
+            if (key != null && key.trim().length() > 0) {
+                fields.put(BASE64_RSA_PUBLIC_KEY, key.trim());
+            }
+
+            fields.put(AUTO_DELETE, submission.get("auto-delete"));
+            fields.put(AUTO_SEND, submission.get("auto-send"));
+        }
+
+        fields.put(GEOMETRY_XPATH, geometryXPath);
+        return fields;
+    }
+
+    private void readPrimaryInstance() throws IOException, XmlPullParserException, UnsupportedFormException {
+        primaryInstanceRead = true;
+
+        if (parser.nextTag() != XmlPullParser.START_TAG) {
+            throw new UnsupportedFormException();
+        }
+
+        formId = parser.getAttributeValue(null, "id");
+        version = parser.getAttributeValue(null, "version");
+
+        skipSubtree();
+    }
+
+    private void readSubmission() {
+        submission = new HashMap<>();
+        for (int i = 0; i < parser.getAttributeCount(); i++) {
+            submission.put(parser.getAttributeName(i), parser.getAttributeValue(i));
+        }
+    }
+
+    private void readBind() throws UnsupportedFormException {
+        String nodeset = parser.getAttributeValue(null, "nodeset");
+        if (nodeset == null) {
+            return;
+        }
+
+        nodeset = nodeset.trim();
+        if (!nodeset.startsWith("/")) {
+            throw new UnsupportedFormException();
+        }
+
+        String id = parser.getAttributeValue(null, "id");
+        if (id != null) {
+            nodesetsByBindId.put(id, nodeset);
+        }
+
+        String type = parser.getAttributeValue(null, "type");
+        if (type != null) {
+            // Later binds for the same node override the type of earlier ones
+            geopointsByNodeset.put(nodeset, GEOPOINT.equals(type.substring(type.indexOf(':') + 1)));
+        }
+    }
+
+    /**
+     * Returns the reference of the first geopoint question (in document order) under the current
+     * element that isn't in a repeat and leaves the parser at the element's end tag.
+     */
+    @Nullable
+    private String findFirstGeopoint(@Nullable String context) throws IOException, XmlPullParserException, UnsupportedFormException {
+        int depth = parser.getDepth();
+        String firstGeopoint = null;
+
+        while (true) {
+            int eventType = parser.next();
+            if (eventType == XmlPullParser.END_TAG && parser.getDepth() == depth) {
+                return firstGeopoint;
+            } else if (eventType == XmlPullParser.END_DOCUMENT) {
+                throw new UnsupportedFormException();
+            } else if (eventType != XmlPullParser.START_TAG) {
+                continue;
+            }
+
+            String name = parser.getName();
+            if (SETGEOPOINT.equals(name)) {
+                throw new UnsupportedFormException();
+            } else if ("group".equals(name)) {
+                String ref = getRef(context);
+                String groupGeopoint = findFirstGeopoint(ref != null ? ref : context);
+                if (firstGeopoint == null) {
+                    firstGeopoint = groupGeopoint;
+                }
+            } else if ("repeat".equals(name) || "label".equals(name) || "hint".equals(name)) {
+                skipSubtree();
+            } else {
+                String ref = getRef(context);
+                if (firstGeopoint == null && ref != null && Boolean.TRUE.equals(geopointsByNodeset.get(ref))) {
+                    firstGeopoint = ref;
+                }
+
+                skipSubtree();
+            }
+        }
+    }
+
+    @Nullable
+    private String getRef(@Nullable String context) throws UnsupportedFormException {
+        String bindId = parser.getAttributeValue(null, "bind");
+        if (bindId != null) {
+            String nodeset = nodesetsByBindId.get(bindId);
+            if (nodeset == null) {
+                throw new UnsupportedFormException();
+            }
+
+            return nodeset;
+        }
+
+        String ref = parser.getAttributeValue(null, "ref");
+        if (ref == null) {
+            return null;
+        }
+
+        ref = ref.trim();
+        if (ref.startsWith("/")) {
+            return ref;
+        } else if (context == null || ref.startsWith(".") || ref.contains("..")) {
+            throw new UnsupportedFormException();
+        } else {
+            return context + "/" + ref;
+        }
+    }
+
+    /**
+     * Skips to the end tag of the current element.
+     */
+    private void skipSubtree() throws IOException, XmlPullParserException, UnsupportedFormException {
+        int depth = parser.getDepth();
+
+        while (true) {
+            int eventType = parser.next();
+            if (eventType == XmlPullParser.END_TAG && parser.getDepth() == depth) {
+                return;
+            } else if (eventType == XmlPullParser.END_DOCUMENT) {
+                throw new UnsupportedFormException();
+            } else if (eventType == XmlPullParser.START_TAG && SETGEOPOINT.equals(parser.getName())) {
+                throw new UnsupportedFormException();
+            }
+        }
+    }
+
+    private static class UnsupportedFormException extends Exception {
+    }
+}
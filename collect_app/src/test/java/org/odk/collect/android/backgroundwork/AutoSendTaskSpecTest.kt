@@ -25,6 +25,7 @@ import org.odk.collect.android.projects.ProjectDependencyProvider
 import org.odk.collect.android.projects.ProjectDependencyProviderFactory
 import org.odk.collect.android.storage.StoragePathProvider
 import org.odk.collect.android.support.CollectHelpers
+import org.odk.collect.android.upload.SubmissionEndpointsProvider
 import org.odk.collect.android.utilities.ChangeLockProvider
 import org.odk.collect.android.utilities.FormsRepositoryProvider
 import org.odk.collect.android.utilities.InstancesRepositoryProvider
@@ -54,7 +55,8 @@ class AutoSendTaskSpecTest {
                 googleApiProvider: GoogleApiProvider?,
                 permissionsProvider: PermissionsProvider?,
                 instancesAppState: InstancesAppState?,
-                propertyManager: PropertyManager?
+                propertyManager: PropertyManager?,
+                submissionEndpointsProvider: SubmissionEndpointsProvider?
             ): InstanceAutoSender {
                 return instanceAutoSender
             }
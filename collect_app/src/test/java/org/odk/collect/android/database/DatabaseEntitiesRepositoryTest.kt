@@ -0,0 +1,19 @@
+package org.odk.collect.android.database
+
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.runner.RunWith
+import org.odk.collect.android.database.entities.DatabaseEntitiesRepository
+import org.odk.collect.android.entities.EntitiesRepositoryTest
+import org.odk.collect.entities.EntitiesRepository
+import org.odk.collect.shared.TempFiles
+
+@RunWith(AndroidJUnit4::class)
+class DatabaseEntitiesRepositoryTest : EntitiesRepositoryTest() {
+
+    private val dbDir = TempFiles.createTempDir()
+
+    override fun buildSubject(): EntitiesRepository {
+        return DatabaseEntitiesRepository(ApplicationProvider.getApplicationContext(), dbDir.absolutePath)
+    }
+}
@@ -13,10 +13,12 @@ import org.junit.runner.RunWith;
 import org.odk.collect.android.database.forms.FormDatabaseMigrator;
 import org.odk.collect.android.utilities.SQLiteUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertTrue;
@@ -53,7 +55,7 @@ public class FormDatabaseMigratorTest {
 
     @Before
     public void setup() {
-        assertThat("Test expects different Forms DB version", DatabaseConstants.FORMS_DATABASE_VERSION, is(12));
+        assertThat("Test expects different Forms DB version", DatabaseConstants.FORMS_DATABASE_VERSION, is(13));
         database = SQLiteDatabase.create(null);
     }
 
@@ -62,6 +64,36 @@ public class FormDatabaseMigratorTest {
         database.close();
     }
 
+    @Test
+    public void onUpgrade_fromVersion12_addsIndexes() {
+        int oldVersion = 12;
+        assertTrue(oldVersion < DatabaseConstants.FORMS_DATABASE_VERSION);
+        database.setVersion(oldVersion);
+
+        createVersion11Database(database);
+        database.execSQL("ALTER TABLE " + FORMS_TABLE_NAME + " ADD COLUMN " + LAST_DETECTED_ATTACHMENTS_UPDATE_DATE + " integer;");
+        ContentValues contentValues = createVersion11Form();
+        database.insert(FORMS_TABLE_NAME, null, contentValues);
+
+        new FormDatabaseMigrator().onUpgrade(database, oldVersion);
+
+        try (Cursor cursor = database.rawQuery("SELECT * FROM " + FORMS_TABLE_NAME + ";", new String[]{})) {
+            assertThat(cursor.getCount(), is(1));
+        }
+
+        try (Cursor cursor = database.rawQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = ? AND sql IS NOT NULL", new String[]{FORMS_TABLE_NAME})) {
+            List<String> indexes = new ArrayList<>();
+            while (cursor.moveToNext()) {
+                indexes.add(cursor.getString(0));
+            }
+
+            assertThat(indexes, containsInAnyOrder(
+                    FORMS_TABLE_NAME + "_" + JR_FORM_ID + "_" + JR_VERSION,
+                    FORMS_TABLE_NAME + "_" + FORM_FILE_PATH
+            ));
+        }
+    }
+
     @Test
     public void onUpgrade_fromVersion11() {
         int oldVersion = 11;
@@ -1,6 +1,8 @@
 package org.odk.collect.android.entities
 
 import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.contains
+import org.hamcrest.Matchers.containsInAnyOrder
 import org.hamcrest.Matchers.equalTo
 import org.junit.Test
 import org.odk.collect.entities.EntitiesRepository
@@ -27,4 +29,86 @@ abstract class EntitiesRepositoryTest {
         assertThat(whiskys.size, equalTo(1))
         assertThat(whiskys[0], equalTo(whisky))
     }
+
+    @Test
+    fun `getEntities returns properties in the order they were saved`() {
+        val repository = buildSubject()
+
+        val wine = Entity("wines", listOf(Pair("vintage", "1975"), Pair("label", "Léoville Barton")), "1")
+        repository.save(wine)
+
+        assertThat(repository.getEntities("wines"), contains(wine))
+    }
+
+    @Test
+    fun `getDatasets returns datasets of saved entities`() {
+        val repository = buildSubject()
+
+        repository.save(Entity("wines", emptyList()))
+        repository.save(Entity("wines", emptyList()))
+        repository.save(Entity("whiskys", emptyList()))
+
+        assertThat(repository.getDatasets(), containsInAnyOrder("wines", "whiskys"))
+    }
+
+    @Test
+    fun `save replaces entity with the same id in the same dataset`() {
+        val repository = buildSubject()
+
+        repository.save(Entity("wines", listOf(Pair("label", "Léoville Barton")), "1"))
+        repository.save(Entity("wines", listOf(Pair("label", "Pontet-Canet")), "2"))
+        repository.save(Entity("whiskys", listOf(Pair("label", "Lagavulin")), "1"))
+
+        val updated = Entity("wines", listOf(Pair("label", "Léoville Barton 1975")), "1")
+        repository.save(updated)
+
+        assertThat(
+            repository.getEntities("wines"),
+            contains(updated, Entity("wines", listOf(Pair("label", "Pontet-Canet")), "2"))
+        )
+        assertThat(
+            repository.getEntities("whiskys"),
+            contains(Entity("whiskys", listOf(Pair("label", "Lagavulin")), "1"))
+        )
+    }
+
+    @Test
+    fun `save adds entities without ids`() {
+        val repository = buildSubject()
+
+        repository.save(Entity("wines", listOf(Pair("label", "Léoville Barton"))))
+        repository.save(Entity("wines", listOf(Pair("label", "Léoville Barton"))))
+
+        assertThat(repository.getEntities("wines").size, equalTo(2))
+    }
+
+    @Test
+    fun `getEntities with property only returns entities with that property value`() {
+        val repository = buildSubject()
+
+        val leoville = Entity("wines", listOf(Pair("region", "Saint-Julien")), "1")
+        val pontetCanet = Entity("wines", listOf(Pair("region", "Pauillac")), "2")
+        val beychevelle = Entity("wines", listOf(Pair("region", "Saint-Julien")), "3")
+        repository.save(leoville)
+        repository.save(pontetCanet)
+        repository.save(beychevelle)
+        repository.save(Entity("whiskys", listOf(Pair("region", "Saint-Julien")), "1"))
+
+        assertThat(
+            repository.getEntities("wines", "region", "Saint-Julien", 0, Int.MAX_VALUE),
+            contains(leoville, beychevelle)
+        )
+    }
+
+    @Test
+    fun `getEntities with offset and limit returns page of entities`() {
+        val repository = buildSubject()
+
+        val wines = (1..5).map { Entity("wines", listOf(Pair("label", "Wine $it")), it.toString()) }
+        wines.forEach(repository::save)
+
+        assertThat(repository.getEntities("wines", null, null, 0, 2), contains(wines[0], wines[1]))
+        assertThat(repository.getEntities("wines", null, null, 2, 2), contains(wines[2], wines[3]))
+        assertThat(repository.getEntities("wines", null, null, 4, 2), contains(wines[4]))
+    }
 }
@@ -55,6 +55,7 @@ import org.odk.collect.settings.SettingsProvider
 import org.odk.collect.settings.keys.ProjectKeys
 import org.odk.collect.settings.keys.ProtectedProjectKeys
 import org.odk.collect.shared.TempFiles
+import org.odk.collect.shared.files.FileHashIndex
 import org.odk.collect.shared.strings.UUIDGenerator
 import java.io.File
 
@@ -96,7 +97,11 @@ class FormUriActivityTest {
                 return projectsDataService
             }
 
-            override fun providesFormsRepositoryProvider(application: Application): FormsRepositoryProvider {
+            override fun providesFormsRepositoryProvider(
+                application: Application,
+                storagePathProvider: StoragePathProvider,
+                fileHashIndex: FileHashIndex
+            ): FormsRepositoryProvider {
                 return mock<FormsRepositoryProvider>().apply {
                     whenever(get()).thenReturn(formsRepository)
                 }
@@ -9,12 +9,14 @@ import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.odk.collect.android.exception.ExternalDataException;
 import org.odk.collect.android.storage.StoragePathProvider;
 import org.odk.collect.android.storage.StorageSubdirectory;
 import org.odk.collect.android.support.CollectHelpers;
 import org.odk.collect.android.utilities.CustomSQLiteQueryBuilder;
 import org.odk.collect.android.utilities.FileUtils;
 import org.odk.collect.android.utilities.SQLiteUtils;
+import org.odk.collect.shared.files.FileHashIndex;
 import org.odk.collect.shared.strings.Md5;
 
 import java.io.BufferedWriter;
@@ -32,6 +34,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 import static org.odk.collect.android.externaldata.ExternalDataUtil.COLUMN_DATASET_FILENAME;
 import static org.odk.collect.android.externaldata.ExternalDataUtil.COLUMN_MD5_HASH;
 import static org.odk.collect.android.externaldata.ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME;
@@ -75,7 +78,7 @@ public class ExternalDataReaderTest {
 
     @Test
     public void doImport_createsDataAndMetadataTables() {
-        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null);
+        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null, new FileHashIndex(null));
         externalDataReader.doImport(formDefToCsvMedia);
 
         assertThat(dbFile.exists(), is(true));
@@ -92,7 +95,7 @@ public class ExternalDataReaderTest {
      */
     @Test
     public void doImport_doesNotModifyOriginalCsv() {
-        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null);
+        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null, new FileHashIndex(null));
         externalDataReader.doImport(formDefToCsvMedia);
 
         assertThat(dbFile.exists(), is(true));
@@ -105,7 +108,7 @@ public class ExternalDataReaderTest {
 
         SQLiteDatabase.OpenParams.Builder paramsBuilder = new SQLiteDatabase.OpenParams.Builder();
         SQLiteDatabase db = SQLiteDatabase.createInMemory(paramsBuilder.build());
-        ExternalSQLiteOpenHelper.createAndPopulateMetadataTable(db, testMetadataTable, csvFile);
+        ExternalSQLiteOpenHelper.createAndPopulateMetadataTable(db, testMetadataTable, csvFile, new FileHashIndex(null));
 
         assertThat(SQLiteUtils.doesTableExist(db, testMetadataTable), is(true));
 
@@ -123,14 +126,14 @@ public class ExternalDataReaderTest {
     @Test
     public void doImport_reimportsCsvIfDatabaseFileIsDeleted() {
         // Create the DB file with an initial import
-        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null);
+        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null, new FileHashIndex(null));
         externalDataReader.doImport(formDefToCsvMedia);
         assertThat(dbFile.exists(), is(true));
 
         dbFile.delete();
 
         // Reimport
-        externalDataReader = new ExternalDataReaderImpl(null);
+        externalDataReader = new ExternalDataReaderImpl(null, new FileHashIndex(null));
         externalDataReader.doImport(formDefToCsvMedia);
         assertThat(dbFile.exists(), is(true));
     }
@@ -138,7 +141,7 @@ public class ExternalDataReaderTest {
     @Test
     public void doImport_reimportsCsvIfMetadataTableIsMissing() {
         // Create the DB file with an initial import
-        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null);
+        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null, new FileHashIndex(null));
         externalDataReader.doImport(formDefToCsvMedia);
         assertThat(dbFile.exists(), is(true));
 
@@ -148,7 +151,7 @@ public class ExternalDataReaderTest {
         db.close();
 
         // Reimport
-        externalDataReader = new ExternalDataReaderImpl(null);
+        externalDataReader = new ExternalDataReaderImpl(null, new FileHashIndex(null));
         externalDataReader.doImport(formDefToCsvMedia);
         assertThat(dbFile.exists(), is(true));
         db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READWRITE);
@@ -159,7 +162,7 @@ public class ExternalDataReaderTest {
     @Test
     public void doImport_reimportsCsvIfFileIsUpdated() throws IOException, InterruptedException {
         // Create the DB file with an initial import
-        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null);
+        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null, new FileHashIndex(null));
         externalDataReader.doImport(formDefToCsvMedia);
         assertThat(dbFile.exists(), is(true));
 
@@ -178,7 +181,7 @@ public class ExternalDataReaderTest {
         assertThat(newHash, is(not(originalHash)));
 
         // Reimport
-        externalDataReader = new ExternalDataReaderImpl(null);
+        externalDataReader = new ExternalDataReaderImpl(null, new FileHashIndex(null));
         externalDataReader.doImport(formDefToCsvMedia);
 
         db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY);
@@ -192,7 +195,7 @@ public class ExternalDataReaderTest {
     @Test
     public void doImport_skipsImportIfFileNotUpdated() {
         // Create the DB file with an initial import
-        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null);
+        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null, new FileHashIndex(null));
         externalDataReader.doImport(formDefToCsvMedia);
         assertThat(dbFile.exists(), is(true));
         SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READWRITE);
@@ -207,13 +210,106 @@ public class ExternalDataReaderTest {
         db.close();
 
         // Reimport
-        externalDataReader = new ExternalDataReaderImpl(null);
+        externalDataReader = new ExternalDataReaderImpl(null, new FileHashIndex(null));
         externalDataReader.doImport(formDefToCsvMedia);
         db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READWRITE);
         cursor = db.rawQuery(SELECT_ALL_DATA_QUERY, null);
         assertThat("expected zero rows of data after reimporting unchanged file", cursor.getCount(), is(0));
     }
 
+    @Test
+    public void doImport_whenThereAreMultipleDataSets_importsEachIntoItsOwnDatabase() throws IOException {
+        File secondCsvFile = new File(csvFile.getParentFile(), "second.csv");
+        org.apache.commons.io.FileUtils.copyFile(csvFile, secondCsvFile);
+        File secondDbFile = new File(csvFile.getParentFile(), "second.db");
+
+        Map<String, File> externalDataMap = makeExternalDataMap();
+        externalDataMap.put("second", secondCsvFile);
+
+        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(null, new FileHashIndex(null), 2);
+        externalDataReader.doImport(externalDataMap);
+
+        for (File db : new File[]{dbFile, secondDbFile}) {
+            SQLiteDatabase database = SQLiteDatabase.openDatabase(db.getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY);
+            Cursor cursor = database.rawQuery(SELECT_ALL_DATA_QUERY, null);
+            assertThat(cursor.getCount(), is(3));
+            cursor.close();
+            database.close();
+        }
+    }
+
+    @Test
+    public void doImport_storesEachValueInItsColumnAndFillsUpShortRows() throws IOException {
+        writeCsv("name_key,name,color\nmango,Mango,yellow\noranges,Oranges\n");
+
+        new ExternalDataReaderImpl(null, new FileHashIndex(null)).doImport(formDefToCsvMedia);
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY);
+        Cursor cursor = db.rawQuery("SELECT c_name_key, c_name, c_color, c_sortby FROM " + EXTERNAL_DATA_TABLE_NAME + " ORDER BY c_sortby", null);
+        assertThat(cursor.getCount(), is(2));
+
+        cursor.moveToFirst();
+        assertThat(cursor.getString(0), is("mango"));
+        assertThat(cursor.getString(1), is("Mango"));
+        assertThat(cursor.getString(2), is("yellow"));
+        assertThat(cursor.getDouble(3), is(1.0));
+
+        cursor.moveToNext();
+        assertThat(cursor.getString(0), is("oranges"));
+        assertThat(cursor.getString(1), is("Oranges"));
+        assertThat(cursor.getString(2), is(""));
+        assertThat(cursor.getDouble(3), is(2.0));
+
+        cursor.close();
+        db.close();
+    }
+
+    @Test
+    public void doImport_whenCsvHasSortByColumn_storesItsValuesAsNumbers() throws IOException {
+        writeCsv("name_key,name,sortby\nmango,Mango,10\noranges,Oranges,2.5\n");
+
+        new ExternalDataReaderImpl(null, new FileHashIndex(null)).doImport(formDefToCsvMedia);
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY);
+        Cursor cursor = db.rawQuery("SELECT c_name_key FROM " + EXTERNAL_DATA_TABLE_NAME + " ORDER BY c_sortby", null);
+        assertThat(cursor.getCount(), is(2));
+
+        cursor.moveToFirst();
+        assertThat(cursor.getString(0), is("oranges"));
+        cursor.moveToNext();
+        assertThat(cursor.getString(0), is("mango"));
+
+        cursor.close();
+        db.close();
+    }
+
+    @Test
+    public void doImport_whenSortByValueIsNotNumeric_failsAndCanBeImportedAgainOnceFixed() throws IOException {
+        writeCsv("name_key,name,sortby\nmango,Mango,first\n");
+
+        try {
+            new ExternalDataReaderImpl(null, new FileHashIndex(null)).doImport(formDefToCsvMedia);
+            fail("Expected import to fail");
+        } catch (ExternalDataException e) {
+            // expected
+        }
+
+        writeCsv("name_key,name,sortby\nmango,Mango,1\n");
+        new ExternalDataReaderImpl(null, new FileHashIndex(null)).doImport(formDefToCsvMedia);
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY);
+        Cursor cursor = db.rawQuery(SELECT_ALL_DATA_QUERY, null);
+        assertThat(cursor.getCount(), is(1));
+        cursor.close();
+        db.close();
+    }
+
+    private static void writeCsv(String contents) throws IOException {
+        try (Writer out = new BufferedWriter(new FileWriter(csvFile))) {
+            out.write(contents);
+        }
+    }
+
     private static Map<String, File> makeExternalDataMap() {
         Map<String, File> externalDataMap = new HashMap<>();
         externalDataMap.put(SIMPLE_SEARCH_EXTERNAL_CSV_NAME, csvFile);
@@ -0,0 +1,113 @@
+package org.odk.collect.android.externaldata.handler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.odk.collect.android.externaldata.ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.odk.collect.android.externaldata.ExternalDataManagerImpl;
+import org.odk.collect.android.externaldata.ExternalDataReaderImpl;
+import org.odk.collect.android.support.CollectHelpers;
+import org.odk.collect.shared.TempFiles;
+import org.odk.collect.shared.files.FileHashIndex;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+public class ExternalDataHandlerPullTest {
+
+    private File mediaDir;
+    private ExternalDataManagerImpl externalDataManager;
+    private ExternalDataHandlerPull handler;
+
+    @Before
+    public void setup() throws IOException {
+        CollectHelpers.setupDemoProject();
+
+        mediaDir = TempFiles.createTempDir();
+        importCsv("fruits", "name_key,name\nmango,Mango\n");
+        importCsv("vegetables", "name_key,name\ncarrot,Carrot\n");
+
+        externalDataManager = new ExternalDataManagerImpl(mediaDir);
+        handler = new ExternalDataHandlerPull(externalDataManager);
+    }
+
+    @After
+    public void teardown() {
+        externalDataManager.close();
+    }
+
+    @Test
+    public void eval_returnsValueFromDataSet() {
+        assertThat(pull("fruits", "name", "name_key", "mango"), equalTo("Mango"));
+        assertThat(pull("fruits.csv", "name", "name_key", "mango"), equalTo("Mango"));
+        assertThat(pull("fruits", "name", "name_key", "banana"), equalTo(""));
+    }
+
+    @Test
+    public void eval_whenDataSetHasNotBeenImportedAgain_returnsCachedValue() {
+        assertThat(pull("fruits", "name", "name_key", "mango"), equalTo("Mango"));
+
+        updateName("fruits", "Changed");
+
+        assertThat(pull("fruits", "name", "name_key", "mango"), equalTo("Mango"));
+    }
+
+    @Test
+    public void eval_whenDataSetIsImportedAgain_returnsNewValue() throws IOException {
+        assertThat(pull("fruits", "name", "name_key", "mango"), equalTo("Mango"));
+
+        importCsv("fruits", "name_key,name\nmango,Ripe mango\n");
+
+        assertThat(pull("fruits", "name", "name_key", "mango"), equalTo("Ripe mango"));
+    }
+
+    @Test
+    public void eval_whenAnotherDataSetIsImportedAgain_stillReturnsCachedValue() throws IOException {
+        assertThat(pull("fruits", "name", "name_key", "mango"), equalTo("Mango"));
+        assertThat(pull("vegetables", "name", "name_key", "carrot"), equalTo("Carrot"));
+
+        updateName("vegetables", "Changed");
+        importCsv("fruits", "name_key,name\nmango,Ripe mango\n");
+
+        assertThat(pull("fruits", "name", "name_key", "mango"), equalTo("Ripe mango"));
+        assertThat(pull("vegetables", "name", "name_key", "carrot"), equalTo("Carrot"));
+    }
+
+    private Object pull(String dataSetName, String queriedColumn, String referenceColumn, String referenceValue) {
+        return handler.eval(new Object[]{dataSetName, queriedColumn, referenceColumn, referenceValue}, null);
+    }
+
+    private void importCsv(String dataSetName, String contents) throws IOException {
+        File csvFile = new File(mediaDir, dataSetName + ".csv");
+        try (Writer out = new BufferedWriter(new FileWriter(csvFile))) {
+            out.write(contents);
+        }
+
+        Map<String, File> externalDataMap = new HashMap<>();
+        externalDataMap.put(dataSetName, csvFile);
+        new ExternalDataReaderImpl(null, new FileHashIndex(null)).doImport(externalDataMap);
+    }
+
+    /**
+     * Changes the database without importing so that only cached values are returned unchanged.
+     */
+    private void updateName(String dataSetName, String name) {
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(new File(mediaDir, dataSetName + ".db").getAbsolutePath(), null, SQLiteDatabase.OPEN_READWRITE);
+        db.execSQL("UPDATE " + EXTERNAL_DATA_TABLE_NAME + " SET c_name = ?", new Object[]{name});
+        db.close();
+    }
+}
@@ -0,0 +1,131 @@
+package org.odk.collect.android.externaldata.handler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static java.util.Arrays.asList;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.javarosa.core.model.FormDef;
+import org.javarosa.core.model.QuestionDef;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.odk.collect.android.externaldata.ExternalDataManagerImpl;
+import org.odk.collect.android.externaldata.ExternalDataReaderImpl;
+import org.odk.collect.android.support.CollectHelpers;
+import org.odk.collect.shared.TempFiles;
+import org.odk.collect.shared.files.FileHashIndex;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RunWith(AndroidJUnit4.class)
+public class ExternalDataHandlerSearchTest {
+
+    @Before
+    public void setup() {
+        CollectHelpers.setupDemoProject();
+    }
+
+    @Test
+    public void collectIndexedColumns_includesQueriedAndFilterColumnsForEachDataSet() {
+        FormDef formDef = createForm(
+                "search('fruits', 'matches', 'name_key', /data/fruit, 'color', /data/color)",
+                "quick search('Vegetables.csv', 'startsWith', 'name name_key', /data/vegetable)"
+        );
+
+        Map<String, Set<String>> columnsByDataSet = new HashMap<>();
+        ExternalDataHandlerSearch.collectIndexedColumns(formDef, columnsByDataSet);
+
+        assertThat(columnsByDataSet.keySet(), containsInAnyOrder("fruits", "vegetables"));
+        assertThat(columnsByDataSet.get("fruits"), containsInAnyOrder("c_name_key", "c_color"));
+        assertThat(columnsByDataSet.get("vegetables"), containsInAnyOrder("c_name", "c_name_key"));
+    }
+
+    @Test
+    public void collectIndexedColumns_whenSearchCanNotUseIndex_onlyIncludesFilterColumn() {
+        FormDef formDef = createForm(
+                "search('fruits', 'contains', 'name', /data/fruit, 'color', /data/color)",
+                "search('vegetables', 'endsWith', 'name', /data/vegetable)"
+        );
+
+        Map<String, Set<String>> columnsByDataSet = new HashMap<>();
+        ExternalDataHandlerSearch.collectIndexedColumns(formDef, columnsByDataSet);
+
+        assertThat(columnsByDataSet.keySet(), containsInAnyOrder("fruits"));
+        assertThat(columnsByDataSet.get("fruits"), containsInAnyOrder("c_color"));
+    }
+
+    @Test
+    public void collectIndexedColumns_ignoresSearchesWithoutLiteralNamesAndOtherAppearances() {
+        FormDef formDef = createForm(
+                "search(/data/dataset, 'matches', 'name', /data/fruit)",
+                "search('fruits')",
+                "minimal"
+        );
+
+        Map<String, Set<String>> columnsByDataSet = new HashMap<>();
+        ExternalDataHandlerSearch.collectIndexedColumns(formDef, columnsByDataSet);
+
+        assertThat(columnsByDataSet.isEmpty(), is(true));
+    }
+
+    @Test
+    public void createIndexes_createsIndexesInImportedDataSets() throws IOException {
+        File mediaDir = TempFiles.createTempDir();
+        File csvFile = new File(mediaDir, "fruits.csv");
+        try (Writer out = new BufferedWriter(new FileWriter(csvFile))) {
+            out.write("name_key,name,color\nmango,Mango,yellow\n");
+        }
+
+        Map<String, File> externalDataMap = new HashMap<>();
+        externalDataMap.put("fruits", csvFile);
+        new ExternalDataReaderImpl(null, new FileHashIndex(null)).doImport(externalDataMap);
+
+        FormDef formDef = createForm(
+                "search('fruits', 'matches', 'name_key', /data/fruit, 'color', /data/color)",
+                "search('vegetables', 'matches', 'name_key', /data/vegetable)"
+        );
+
+        ExternalDataManagerImpl externalDataManager = new ExternalDataManagerImpl(mediaDir);
+        ExternalDataHandlerSearch.createIndexes(formDef, externalDataManager);
+        externalDataManager.close();
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(new File(mediaDir, "fruits.db").getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY);
+        List<String> indexes = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND name LIKE '%_search_idx'", null)) {
+            while (cursor.moveToNext()) {
+                indexes.add(cursor.getString(0));
+            }
+        }
+        db.close();
+
+        assertThat(indexes, containsInAnyOrder("c_name_key_search_idx", "c_color_search_idx"));
+        assertThat(new File(mediaDir, "vegetables.db").exists(), equalTo(false));
+    }
+
+    private static FormDef createForm(String... appearances) {
+        FormDef formDef = new FormDef();
+        for (String appearance : asList(appearances)) {
+            QuestionDef question = new QuestionDef();
+            question.setAppearanceAttr(appearance);
+            formDef.addChild(question);
+        }
+
+        return formDef;
+    }
+}
@@ -0,0 +1,44 @@
+package org.odk.collect.android.fastexternalitemset
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.sameInstance
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class ItemsetQueryTest {
+
+    @Test
+    fun `parse builds selection with list name and each comparison`() {
+        val query = ItemsetQuery.parse("instance('cities')/root/item[state=/data/state and county=/data/county]")
+
+        assertThat(query.listName, equalTo("cities"))
+        assertThat(query.selection, equalTo("list_name=? and \"state\"=? and \"county\"=?"))
+        assertThat(query.columns, equalTo(listOf("state", "county")))
+        assertThat(query.arguments, equalTo(listOf("/data/state", "/data/county")))
+    }
+
+    @Test
+    fun `parse keeps or comparisons`() {
+        val query = ItemsetQuery.parse("instance('towns')/root/item[state=/data/state or county=/data/county]")
+
+        assertThat(query.selection, equalTo("list_name=? and \"state\"=? or \"county\"=?"))
+        assertThat(query.columns, equalTo(listOf("state", "county")))
+    }
+
+    @Test
+    fun `parse with no comparisons only selects on list name`() {
+        val query = ItemsetQuery.parse("instance('states')/root/item[true()]")
+
+        assertThat(query.selection, equalTo("list_name=?"))
+        assertThat(query.columns, equalTo(emptyList()))
+    }
+
+    @Test
+    fun `parse returns the same query for the same nodeset`() {
+        val nodeset = "instance('villages')/root/item[district=/data/district]"
+        assertThat(ItemsetQuery.parse(nodeset), sameInstance(ItemsetQuery.parse(nodeset)))
+    }
+}
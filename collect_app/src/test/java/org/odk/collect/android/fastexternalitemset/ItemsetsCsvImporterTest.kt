@@ -0,0 +1,122 @@
+package org.odk.collect.android.fastexternalitemset
+
+import android.database.SQLException
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.Assert.assertThrows
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.odk.collect.android.support.CollectHelpers
+import org.odk.collect.shared.TempFiles.createTempDir
+import org.odk.collect.shared.files.FileHashIndex
+import java.io.File
+import java.io.IOException
+
+@RunWith(AndroidJUnit4::class)
+class ItemsetsCsvImporterTest {
+
+    private val formsDir = createTempDir()
+    private val csv = File(formsDir, "itemsets.csv")
+    private val ida = ItemsetDbAdapter(createTempDir().absolutePath, formsDir.absolutePath)
+
+    @Before
+    fun setup() {
+        CollectHelpers.setupDemoProject()
+    }
+
+    @Test
+    fun `importIfChanged imports every row and fills up short rows`() {
+        csv.writeText("list_name,name,label\nfruit,mango,Mango\nfruit,orange\n")
+
+        assertThat(ItemsetsCsvImporter.importIfChanged(csv, ida, FileHashIndex(null), null), equalTo(true))
+
+        assertThat(isRecorded(), equalTo(true))
+        assertThat(queryNames("fruit"), equalTo(listOf("mango" to "Mango", "orange" to null)))
+    }
+
+    @Test
+    fun `importIfChanged with an empty CSV returns false and does not record the itemsets`() {
+        csv.writeText("")
+
+        assertThat(ItemsetsCsvImporter.importIfChanged(csv, ida, FileHashIndex(null), null), equalTo(false))
+        assertThat(isRecorded(), equalTo(false))
+
+        // Nothing is recorded so the CSV is checked again next time
+        assertThat(ItemsetsCsvImporter.importIfChanged(csv, ida, FileHashIndex(null), null), equalTo(false))
+    }
+
+    @Test
+    fun `importIfChanged with only a header row records an empty table`() {
+        csv.writeText("list_name,name,label\n")
+
+        assertThat(ItemsetsCsvImporter.importIfChanged(csv, ida, FileHashIndex(null), null), equalTo(true))
+
+        assertThat(isRecorded(), equalTo(true))
+        assertThat(queryNames("fruit"), equalTo(emptyList()))
+    }
+
+    @Test
+    fun `importIfChanged with a malformed CSV throws and does not record the itemsets`() {
+        csv.writeText("list_name,name,label\nfruit,mango,\"Mango\n")
+
+        assertThrows(IOException::class.java) {
+            ItemsetsCsvImporter.importIfChanged(csv, ida, FileHashIndex(null), null)
+        }
+
+        assertThat(isRecorded(), equalTo(false))
+    }
+
+    @Test
+    fun `importIfChanged with duplicate columns throws and does not record the itemsets`() {
+        csv.writeText("list_name,name,name\nfruit,mango,Mango\n")
+
+        assertThrows(SQLException::class.java) {
+            ItemsetsCsvImporter.importIfChanged(csv, ida, FileHashIndex(null), null)
+        }
+
+        assertThat(isRecorded(), equalTo(false))
+    }
+
+    @Test
+    fun `importIfChanged when cancelled does not record the itemsets`() {
+        csv.writeText("list_name,name,label\nfruit,mango,Mango\n")
+
+        val imported = ItemsetsCsvImporter.importIfChanged(
+            csv,
+            ida,
+            FileHashIndex(null),
+            object : ItemsetsCsvImporter.Listener {
+                override fun isCancelled() = true
+                override fun onProgress(rowsImported: Int) = Unit
+            }
+        )
+
+        assertThat(imported, equalTo(false))
+        assertThat(isRecorded(), equalTo(false))
+    }
+
+    private fun isRecorded(): Boolean {
+        ida.open()
+        try {
+            return ida.getItemsets(csv.absolutePath).use { it.count == 1 }
+        } finally {
+            ida.close()
+        }
+    }
+
+    private fun queryNames(listName: String): List<Pair<String, String?>> {
+        ida.open()
+        try {
+            val pathHash = ItemsetDbAdapter.getMd5FromString(csv.absolutePath)
+            return ida.query(pathHash, "list_name=?", arrayOf(listName)).use { cursor ->
+                generateSequence { if (cursor.moveToNext()) cursor else null }
+                    .map { it.getString(it.getColumnIndexOrThrow("name")) to it.getString(it.getColumnIndexOrThrow("label")) }
+                    .toList()
+            }
+        } finally {
+            ida.close()
+        }
+    }
+}
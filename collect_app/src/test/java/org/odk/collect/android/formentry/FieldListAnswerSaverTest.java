@@ -0,0 +1,87 @@
+package org.odk.collect.android.formentry;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+import org.javarosa.core.model.FormIndex;
+import org.javarosa.core.model.data.IAnswerData;
+import org.javarosa.core.model.data.StringData;
+import org.javarosa.form.api.FormEntryPrompt;
+import org.junit.Test;
+import org.odk.collect.android.javarosawrapper.FormController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class FieldListAnswerSaverTest {
+
+    private final FormController formController = mock(FormController.class);
+
+    @Test
+    public void onlySavesAnswersThatAreDifferentFromTheForm() throws Exception {
+        FormEntryPrompt changed = question("old");
+        FormEntryPrompt unchanged = question("same");
+
+        Map<FormIndex, IAnswerData> answers = new LinkedHashMap<>();
+        answers.put(changed.getIndex(), new StringData("new"));
+        answers.put(unchanged.getIndex(), new StringData("same"));
+
+        FieldListAnswerSaver.saveChangedAnswers(formController, asList(changed, unchanged), answers);
+
+        verify(formController).saveOneScreenAnswer(changed.getIndex(), answers.get(changed.getIndex()), false);
+        verify(formController, never()).saveOneScreenAnswer(eq(unchanged.getIndex()), any(), anyBoolean());
+    }
+
+    @Test
+    public void whenSavingAnAnswerRecalculatesAnotherChangedAnswer_doesNotOverwriteTheRecalculatedAnswer() throws Exception {
+        FormEntryPrompt source = question("1");
+        FormEntryPrompt calculated = question("2");
+
+        Map<FormIndex, IAnswerData> answers = new LinkedHashMap<>();
+        answers.put(source.getIndex(), new StringData("5"));
+        answers.put(calculated.getIndex(), new StringData("stale"));
+
+        doAnswer(invocation -> {
+            setAnswer(calculated, "10");
+            return null;
+        }).when(formController).saveOneScreenAnswer(eq(source.getIndex()), any(), anyBoolean());
+
+        FieldListAnswerSaver.saveChangedAnswers(formController, asList(source, calculated), answers);
+
+        verify(formController).saveOneScreenAnswer(source.getIndex(), answers.get(source.getIndex()), false);
+        verify(formController, never()).saveOneScreenAnswer(eq(calculated.getIndex()), any(), anyBoolean());
+    }
+
+    @Test
+    public void savesAnswersForQuestionsThatAreNotInTheForm() throws Exception {
+        FormIndex index = mock(FormIndex.class);
+        StringData answer = new StringData("new");
+
+        Map<FormIndex, IAnswerData> answers = new LinkedHashMap<>();
+        answers.put(index, answer);
+
+        FieldListAnswerSaver.saveChangedAnswers(formController, emptyList(), answers);
+
+        verify(formController).saveOneScreenAnswer(index, answer, false);
+    }
+
+    private static FormEntryPrompt question(String answer) {
+        FormEntryPrompt question = mock(FormEntryPrompt.class);
+        when(question.getIndex()).thenReturn(mock(FormIndex.class));
+        setAnswer(question, answer);
+        return question;
+    }
+
+    private static void setAnswer(FormEntryPrompt question, String answer) {
+        when(question.getAnswerValue()).thenReturn(new StringData(answer));
+        when(question.getAnswerText()).thenReturn(answer);
+    }
+}
@@ -0,0 +1,121 @@
+package org.odk.collect.android.formentry;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.odk.collect.android.widgets.support.QuestionWidgetHelpers.widgetTestActivity;
+
+import androidx.lifecycle.MutableLiveData;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.javarosa.core.model.Constants;
+import org.javarosa.core.model.FormIndex;
+import org.javarosa.form.api.FormEntryCaption;
+import org.javarosa.form.api.FormEntryPrompt;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.odk.collect.android.audio.AudioHelper;
+import org.odk.collect.android.support.MockFormEntryPromptBuilder;
+import org.odk.collect.android.support.WidgetTestActivity;
+import org.odk.collect.android.widgets.BarcodeWidget;
+import org.odk.collect.android.widgets.QuestionWidget;
+import org.odk.collect.android.widgets.interfaces.WidgetDataReceiver;
+import org.odk.collect.android.widgets.support.FakeWaitingForDataRegistry;
+
+@RunWith(AndroidJUnit4.class)
+public class ODKViewTest {
+
+    private final FakeWaitingForDataRegistry waitingForDataRegistry = new FakeWaitingForDataRegistry();
+    private final AudioHelper audioHelper = mock(AudioHelper.class);
+
+    private WidgetTestActivity activity;
+
+    @Before
+    public void setup() {
+        activity = widgetTestActivity();
+        when(audioHelper.getError()).thenReturn(new MutableLiveData<>());
+    }
+
+    @Test
+    public void whenThereAreFewQuestions_createsAllWidgets() {
+        ODKView odkView = createView(prompts(5));
+        assertThat(odkView.getWidgets().size(), equalTo(5));
+    }
+
+    @Test
+    public void whenThereAreManyQuestions_onlyCreatesTheFirstWidgets() {
+        FormEntryPrompt[] prompts = prompts(40);
+        ODKView odkView = createView(prompts);
+
+        assertThat(odkView.getWidgets().size(), equalTo(10));
+        for (int i = 0; i < 10; i++) {
+            assertThat(odkView.getWidgets().get(i).getFormEntryPrompt(), sameInstance(prompts[i]));
+        }
+    }
+
+    @Test
+    public void getOrCreateWidget_createsTheWidgetForAPlaceholder() {
+        FormEntryPrompt[] prompts = prompts(40);
+        ODKView odkView = createView(prompts);
+
+        QuestionWidget widget = odkView.getOrCreateWidget(prompts[35].getIndex());
+        assertThat(widget.getFormEntryPrompt(), sameInstance(prompts[35]));
+        assertThat(odkView.getWidgets().size(), equalTo(11));
+        assertThat(odkView.getWidgets().contains(widget), is(true));
+
+        assertThat(odkView.getOrCreateWidget(prompts[35].getIndex()), sameInstance(widget));
+        assertThat(odkView.getWidgets().size(), equalTo(11));
+    }
+
+    @Test
+    public void getOrCreateWidget_whenQuestionIsNotInView_returnsNull() {
+        ODKView odkView = createView(prompts(40));
+        assertThat(odkView.getOrCreateWidget(mock(FormIndex.class)), nullValue());
+    }
+
+    @Test
+    public void getWidgetWaitingForData_whenWidgetHasNotBeenCreated_createsItSoDataCanBeDelivered() {
+        FormEntryPrompt[] prompts = prompts(40);
+        ODKView odkView = createView(prompts);
+        waitingForDataRegistry.waitForData(prompts[35].getIndex());
+
+        QuestionWidget widget = odkView.getWidgetWaitingForData(waitingForDataRegistry);
+        assertThat(widget, instanceOf(BarcodeWidget.class));
+        assertThat(widget.getFormEntryPrompt(), sameInstance(prompts[35]));
+
+        ((WidgetDataReceiver) widget).setData("blah");
+        assertThat(odkView.getAnswers().get(prompts[35].getIndex()).getDisplayText(), equalTo("blah"));
+    }
+
+    @Test
+    public void getWidgetWaitingForData_whenNothingIsWaiting_returnsNullWithoutCreatingWidgets() {
+        ODKView odkView = createView(prompts(40));
+
+        assertThat(odkView.getWidgetWaitingForData(waitingForDataRegistry), nullValue());
+        assertThat(odkView.getWidgets().size(), equalTo(10));
+    }
+
+    private ODKView createView(FormEntryPrompt[] prompts) {
+        return new ODKView(activity, prompts, new FormEntryCaption[0], false, null, waitingForDataRegistry,
+                null, null, mock(FormEntryViewModel.class), null, null, audioHelper);
+    }
+
+    private static FormEntryPrompt[] prompts(int count) {
+        FormEntryPrompt[] prompts = new FormEntryPrompt[count];
+        for (int i = 0; i < count; i++) {
+            prompts[i] = new MockFormEntryPromptBuilder()
+                    .withIndex(String.valueOf(i))
+                    .withControlType(Constants.CONTROL_INPUT)
+                    .withDataType(Constants.DATATYPE_BARCODE)
+                    .build();
+        }
+
+        return prompts;
+    }
+}
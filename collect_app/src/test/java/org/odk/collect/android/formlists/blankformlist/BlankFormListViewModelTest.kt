@@ -462,7 +462,7 @@ class BlankFormListViewModelTest {
         assertThat(
             blankFormListItem,
             `is`(
-                form.toBlankFormListItem(projectId, instancesRepository)
+                form.toBlankFormListItem(projectId, instancesRepository.getLastStatusChangeDatesByFormVersion())
             )
         )
     }
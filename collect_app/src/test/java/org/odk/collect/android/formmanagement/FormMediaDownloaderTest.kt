@@ -2,17 +2,28 @@ package org.odk.collect.android.formmanagement
 
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers.equalTo
+import org.junit.Assert.fail
 import org.junit.Test
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import org.odk.collect.async.OngoingWorkListener
 import org.odk.collect.forms.FormSource
+import org.odk.collect.forms.FormSourceException
 import org.odk.collect.forms.ManifestFile
 import org.odk.collect.forms.MediaFile
+import org.odk.collect.forms.MediaFileStream
 import org.odk.collect.formstest.FormFixtures
 import org.odk.collect.formstest.InMemFormsRepository
 import org.odk.collect.shared.TempFiles
+import org.odk.collect.shared.files.FileHashIndex
 import org.odk.collect.shared.strings.Md5
 import java.io.File
+import java.io.IOException
+import java.io.InputStream
+import java.util.concurrent.CountDownLatch
 
 class FormMediaDownloaderTest {
 
@@ -47,7 +58,7 @@ class FormMediaDownloaderTest {
                 .inputStream()
         }
 
-        val formMediaDownloader = FormMediaDownloader(formsRepository, formSource)
+        val formMediaDownloader = FormMediaDownloader(formsRepository, formSource, FileHashIndex(null))
         val result = formMediaDownloader.download(
             serverFormDetails,
             File(TempFiles.createTempDir(), "temp").absolutePath,
@@ -89,7 +100,7 @@ class FormMediaDownloaderTest {
                 .inputStream()
         }
 
-        val formMediaDownloader = FormMediaDownloader(formsRepository, formSource)
+        val formMediaDownloader = FormMediaDownloader(formsRepository, formSource, FileHashIndex(null))
         val result = formMediaDownloader.download(
             serverFormDetails,
             File(TempFiles.createTempDir(), "temp").absolutePath,
@@ -99,4 +110,230 @@ class FormMediaDownloaderTest {
 
         assertThat(result, equalTo(false))
     }
+
+    @Test
+    fun `downloads all media files to the temp media directory`() {
+        val mediaFiles = (1..10).map { MediaFile("file$it", "hash$it", "downloadUrl$it") }
+        val serverFormDetails =
+            ServerFormDetails(null, null, "formId", "1", null, true, false, ManifestFile(null, mediaFiles))
+        val formSource = mock<FormSource>()
+        mediaFiles.forEachIndexed { index, mediaFile ->
+            whenever(formSource.fetchMediaFile(mediaFile.downloadUrl)).thenReturn(
+                "contents${index + 1}".toByteArray().inputStream()
+            )
+        }
+
+        val tempMediaDir = File(TempFiles.createTempDir(), "temp")
+        val formMediaDownloader = FormMediaDownloader(InMemFormsRepository(), formSource, FileHashIndex(null))
+        val result = formMediaDownloader.download(
+            serverFormDetails,
+            tempMediaDir.absolutePath,
+            TempFiles.createTempDir(),
+            mock()
+        )
+
+        assertThat(result, equalTo(true))
+        mediaFiles.forEachIndexed { index, mediaFile ->
+            assertThat(File(tempMediaDir, mediaFile.filename).readText(), equalTo("contents${index + 1}"))
+        }
+    }
+
+    @Test
+    fun `fetches a media file again when its download fails part way through`() {
+        val mediaFile = MediaFile("file", "hash", "downloadUrl")
+        val serverFormDetails =
+            ServerFormDetails(null, null, "formId", "1", null, true, false, ManifestFile(null, listOf(mediaFile)))
+        val failingStream = object : InputStream() {
+            override fun read(): Int {
+                throw IOException()
+            }
+        }
+        val formSource = mock<FormSource>()
+        whenever(formSource.fetchMediaFile(mediaFile.downloadUrl)).thenReturn(
+            failingStream,
+            "contents".toByteArray().inputStream()
+        )
+
+        val tempMediaDir = File(TempFiles.createTempDir(), "temp")
+        val formMediaDownloader = FormMediaDownloader(InMemFormsRepository(), formSource, FileHashIndex(null))
+        formMediaDownloader.download(
+            serverFormDetails,
+            tempMediaDir.absolutePath,
+            TempFiles.createTempDir(),
+            mock()
+        )
+
+        verify(formSource, times(2)).fetchMediaFile(mediaFile.downloadUrl)
+        assertThat(File(tempMediaDir, mediaFile.filename).readText(), equalTo("contents"))
+    }
+
+    @Test
+    fun `resumes a media file from where it stopped when its download fails part way through`() {
+        val formsRepository = InMemFormsRepository()
+        formsRepository.save(FormFixtures.form(version = "1", mediaFiles = listOf(Pair("file", "contents"))))
+
+        val mediaFile = MediaFile("file", "somethingElse", "downloadUrl")
+        val serverFormDetails =
+            ServerFormDetails(null, null, "formId", "2", null, false, true, ManifestFile(null, listOf(mediaFile)))
+        val formSource = mock<FormSource>()
+        whenever(formSource.fetchMediaFile(mediaFile.downloadUrl)).thenReturn(FailingAfterInputStream("cont"))
+        whenever(formSource.fetchMediaFile(mediaFile.downloadUrl, 4)).thenReturn(
+            MediaFileStream("ents".toByteArray().inputStream(), 4)
+        )
+
+        val tempMediaDir = File(TempFiles.createTempDir(), "temp")
+        val formMediaDownloader = FormMediaDownloader(formsRepository, formSource, FileHashIndex(null))
+        val result = formMediaDownloader.download(
+            serverFormDetails,
+            tempMediaDir.absolutePath,
+            TempFiles.createTempDir(),
+            mock()
+        )
+
+        assertThat(File(tempMediaDir, mediaFile.filename).readText(), equalTo("contents"))
+
+        // The hash of the resumed file matches the existing copy so it isn't treated as new
+        assertThat(result, equalTo(false))
+    }
+
+    @Test
+    fun `writes a media file from the start when resuming it returns the whole file`() {
+        val mediaFile = MediaFile("file", "hash", "downloadUrl")
+        val serverFormDetails =
+            ServerFormDetails(null, null, "formId", "1", null, true, false, ManifestFile(null, listOf(mediaFile)))
+        val formSource = mock<FormSource>()
+        whenever(formSource.fetchMediaFile(mediaFile.downloadUrl)).thenReturn(FailingAfterInputStream("cont"))
+        whenever(formSource.fetchMediaFile(mediaFile.downloadUrl, 4)).thenReturn(
+            MediaFileStream("contents".toByteArray().inputStream(), 0)
+        )
+
+        val tempMediaDir = File(TempFiles.createTempDir(), "temp")
+        val formMediaDownloader = FormMediaDownloader(InMemFormsRepository(), formSource, FileHashIndex(null))
+        formMediaDownloader.download(
+            serverFormDetails,
+            tempMediaDir.absolutePath,
+            TempFiles.createTempDir(),
+            mock()
+        )
+
+        assertThat(File(tempMediaDir, mediaFile.filename).readText(), equalTo("contents"))
+    }
+
+    @Test
+    fun `closes in-flight downloads and waits for them to stop when another file fails`() {
+        val failingFile = MediaFile("failing", "hash1", "failingUrl")
+        val blockingFile = MediaFile("blocking", "hash2", "blockingUrl")
+        val serverFormDetails = ServerFormDetails(
+            null,
+            null,
+            "formId",
+            "1",
+            null,
+            true,
+            false,
+            ManifestFile(null, listOf(blockingFile, failingFile))
+        )
+
+        val blockingStream = BlockingInputStream()
+        val formSource = mock<FormSource>()
+        whenever(formSource.fetchMediaFile(blockingFile.downloadUrl)).thenReturn(blockingStream)
+        whenever(formSource.fetchMediaFile(failingFile.downloadUrl)).thenAnswer {
+            blockingStream.started.await()
+            throw FormSourceException.FetchError()
+        }
+
+        val formMediaDownloader = FormMediaDownloader(InMemFormsRepository(), formSource, FileHashIndex(null))
+        try {
+            formMediaDownloader.download(
+                serverFormDetails,
+                File(TempFiles.createTempDir(), "temp").absolutePath,
+                TempFiles.createTempDir(),
+                mock()
+            )
+            fail()
+        } catch (e: FormSourceException.FetchError) {
+            // expected
+        }
+
+        assertThat(blockingStream.closed, equalTo(true))
+        assertThat(blockingStream.reading, equalTo(false))
+    }
+
+    @Test
+    fun `reports progress on the calling thread`() {
+        val mediaFiles = (1..5).map { MediaFile("file$it", "hash$it", "downloadUrl$it") }
+        val serverFormDetails =
+            ServerFormDetails(null, null, "formId", "1", null, true, false, ManifestFile(null, mediaFiles))
+        val formSource = mock<FormSource>()
+        mediaFiles.forEach {
+            whenever(formSource.fetchMediaFile(it.downloadUrl)).thenReturn("contents".toByteArray().inputStream())
+        }
+
+        val progressThreads = mutableListOf<Thread>()
+        val progress = mutableListOf<Int>()
+        val stateListener = object : OngoingWorkListener {
+            override fun progressUpdate(value: Int) {
+                progressThreads.add(Thread.currentThread())
+                progress.add(value)
+            }
+
+            override val isCancelled = false
+        }
+
+        FormMediaDownloader(InMemFormsRepository(), formSource, FileHashIndex(null)).download(
+            serverFormDetails,
+            File(TempFiles.createTempDir(), "temp").absolutePath,
+            TempFiles.createTempDir(),
+            stateListener
+        )
+
+        assertThat(progress, equalTo(listOf(1, 2, 3, 4, 5)))
+        assertThat(progressThreads.all { it == Thread.currentThread() }, equalTo(true))
+    }
+
+    private class FailingAfterInputStream(contents: String) : InputStream() {
+        private val bytes = contents.toByteArray().inputStream()
+
+        override fun read(): Int {
+            val read = bytes.read()
+            if (read == -1) {
+                throw IOException()
+            }
+
+            return read
+        }
+
+        override fun read(b: ByteArray, off: Int, len: Int): Int {
+            val read = bytes.read(b, off, len)
+            if (read == -1) {
+                throw IOException()
+            }
+
+            return read
+        }
+    }
+
+    private class BlockingInputStream : InputStream() {
+        val started = CountDownLatch(1)
+        private val closedLatch = CountDownLatch(1)
+
+        @Volatile
+        var closed = false
+
+        @Volatile
+        var reading = false
+
+        override fun read(): Int {
+            reading = true
+            started.countDown()
+            closedLatch.await()
+            reading = false
+            throw IOException("closed")
+        }
+
+        override fun close() {
+            closed = true
+            closedLatch.countDown()
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package org.odk.collect.android.formmanagement
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.odk.collect.android.fastexternalitemset.ItemsetDbAdapter
+import org.odk.collect.android.support.CollectHelpers
+import org.odk.collect.shared.TempFiles.createTempDir
+import org.odk.collect.shared.files.FileHashIndex
+import java.io.File
+
+@RunWith(AndroidJUnit4::class)
+class FormMediaPreparerTest {
+
+    @Before
+    fun setup() {
+        CollectHelpers.setupDemoProject()
+    }
+
+    @Test
+    fun `prepare records itemsets for a project that is not the current one relative to its forms dir`() {
+        val projectDir = createTempDir()
+        val formsDir = File(projectDir, "forms").also { it.mkdir() }
+        val metadataDir = File(projectDir, "metadata").also { it.mkdir() }
+
+        val formFile = File(formsDir, "form.xml")
+        formFile.writeText("<h:html xmlns:h=\"http://www.w3.org/1999/xhtml\"><h:head><h:title>Form</h:title></h:head></h:html>")
+        val mediaDir = File(formsDir, "form-media").also { it.mkdir() }
+        val itemsetsCsv = File(mediaDir, "itemsets.csv")
+        itemsetsCsv.writeText("list_name,name,label\nfruit,mango,Mango\n")
+
+        FormMediaPreparer.prepare(formFile, mediaDir, metadataDir.absolutePath, formsDir.absolutePath, FileHashIndex(null))
+
+        val ida = ItemsetDbAdapter(metadataDir.absolutePath, formsDir.absolutePath).open()
+        try {
+            ida.getItemsets(itemsetsCsv.absolutePath).use {
+                assertThat(it.count, equalTo(1))
+
+                it.moveToFirst()
+                assertThat(
+                    it.getString(it.getColumnIndexOrThrow(ItemsetDbAdapter.KEY_PATH)),
+                    equalTo("form-media" + File.separator + "itemsets.csv")
+                )
+            }
+        } finally {
+            ida.close()
+        }
+    }
+
+    @Test
+    fun `itemsets prepared for a project that is not the current one can be deleted by path`() {
+        val projectDir = createTempDir()
+        val formsDir = File(projectDir, "forms").also { it.mkdir() }
+        val metadataDir = File(projectDir, "metadata").also { it.mkdir() }
+
+        val formFile = File(formsDir, "form.xml")
+        formFile.writeText("<h:html xmlns:h=\"http://www.w3.org/1999/xhtml\"><h:head><h:title>Form</h:title></h:head></h:html>")
+        val mediaDir = File(formsDir, "form-media").also { it.mkdir() }
+        val itemsetsCsv = File(mediaDir, "itemsets.csv")
+        itemsetsCsv.writeText("list_name,name,label\nfruit,mango,Mango\n")
+
+        FormMediaPreparer.prepare(formFile, mediaDir, metadataDir.absolutePath, formsDir.absolutePath, FileHashIndex(null))
+
+        val ida = ItemsetDbAdapter(metadataDir.absolutePath, formsDir.absolutePath).open()
+        try {
+            ida.delete(itemsetsCsv.absolutePath)
+            ida.getItemsets(itemsetsCsv.absolutePath).use {
+                assertThat(it.count, equalTo(0))
+            }
+        } finally {
+            ida.close()
+        }
+    }
+}
@@ -33,8 +33,10 @@ import org.odk.collect.forms.FormSourceException
 import org.odk.collect.formstest.FormUtils
 import org.odk.collect.projects.Project
 import org.odk.collect.settings.keys.ProjectKeys
+import org.odk.collect.shared.files.FileHashIndex
 import org.odk.collect.shared.strings.Md5.getMd5Hash
 import org.odk.collect.testshared.BooleanChangeLock
+import org.odk.collect.testshared.FakeScheduler
 
 @RunWith(AndroidJUnit4::class)
 class FormsDataServiceTest {
@@ -85,7 +87,9 @@ class FormsDataServiceTest {
         formsDataService = FormsDataService(
             appState = AppState(),
             notifier = notifier,
-            projectDependencyProviderFactory = projectDependencyProviderFactory
+            projectDependencyProviderFactory = projectDependencyProviderFactory,
+            fileHashIndex = FileHashIndex(null),
+            scheduler = FakeScheduler()
         ) { 0 }
     }
 
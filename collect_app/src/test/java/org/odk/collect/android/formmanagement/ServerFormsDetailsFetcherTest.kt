@@ -11,12 +11,14 @@ import org.mockito.kotlin.whenever
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormListItem
 import org.odk.collect.forms.FormSource
+import org.odk.collect.forms.FormSourceException
 import org.odk.collect.forms.FormsRepository
 import org.odk.collect.forms.ManifestFile
 import org.odk.collect.forms.MediaFile
 import org.odk.collect.formstest.FormUtils
 import org.odk.collect.formstest.InMemFormsRepository
 import org.odk.collect.shared.TempFiles
+import org.odk.collect.shared.files.FileHashIndex
 import org.odk.collect.shared.strings.Md5.getMd5Hash
 import java.io.BufferedWriter
 import java.io.ByteArrayInputStream
@@ -36,7 +38,7 @@ class ServerFormsDetailsFetcherTest {
     }
 
     private val fetcher =
-        ServerFormsDetailsFetcher(formsRepository, formSource)
+        ServerFormsDetailsFetcher(formsRepository, formSource, FileHashIndex(null))
 
     @Test
     fun whenFormHasManifestUrl_returnsMediaFilesInDetails() {
@@ -52,6 +54,29 @@ class ServerFormsDetailsFetcherTest {
         )
     }
 
+    @Test
+    fun whenMultipleFormsHaveManifestUrls_returnsEachFormsMediaFilesInDetails() {
+        val otherMediaFile = MediaFile("other.txt", "other-hash", "http://example.com/other-media-file")
+        whenever(formSource.fetchManifest(OTHER_MANIFEST_URL)).thenReturn(
+            ManifestFile("other-manifest-hash", listOf(otherMediaFile))
+        )
+        whenever(formSource.fetchManifest(FAILING_MANIFEST_URL)).thenThrow(FormSourceException.FetchError())
+
+        whenever(formSource.fetchFormList()).thenReturn(
+            listOf(
+                FORM_WITH_MANIFEST,
+                FORM_WITH_MANIFEST.copy(formID = "form-3", manifestURL = OTHER_MANIFEST_URL),
+                FORM_WITH_MANIFEST.copy(formID = "form-4", manifestURL = FAILING_MANIFEST_URL)
+            )
+        )
+
+        val serverFormDetails = fetcher.fetchFormDetails()
+        assertThat(serverFormDetails.map { it.formId }, contains("form-2", "form-3", "form-4"))
+        assertThat(getFormFromList(serverFormDetails, "form-2").manifest!!.mediaFiles, contains(MEDIA_FILE))
+        assertThat(getFormFromList(serverFormDetails, "form-3").manifest!!.mediaFiles, contains(otherMediaFile))
+        assertThat(getFormFromList(serverFormDetails, "form-4").manifest, nullValue())
+    }
+
     @Test
     fun whenFormDoesNotExist_isNotOnDevice() {
         whenever(formSource.fetchFormList()).thenReturn(listOf(FORM_WITHOUT_MANIFEST))
@@ -329,6 +354,8 @@ class ServerFormsDetailsFetcherTest {
 }
 
 private const val MANIFEST_URL = "http://example.com/form-3-manifest"
+private const val OTHER_MANIFEST_URL = "http://example.com/other-manifest"
+private const val FAILING_MANIFEST_URL = "http://example.com/failing-manifest"
 private const val FILE_CONTENT = "blah"
 private val MEDIA_FILE = MediaFile(
     "blah.txt",
@@ -0,0 +1,137 @@
+package org.odk.collect.android.instancemanagement
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.lessThanOrEqualTo
+import org.hamcrest.Matchers.nullValue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.odk.collect.android.upload.FormUploadException
+import org.odk.collect.forms.instances.Instance
+import org.odk.collect.formstest.InstanceUtils.buildInstance
+import org.odk.collect.shared.TempFiles.createTempDir
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+@RunWith(AndroidJUnit4::class)
+class ConcurrentSubmissionsTest {
+
+    private val instancesDir = createTempDir().absolutePath
+
+    @Test
+    fun `returns results in the order instances were passed in`() {
+        val instances = (1..6).map { createInstance(it.toLong()) }
+
+        val result = ConcurrentSubmissions(4, 4).submit(
+            instances,
+            { "https://server.example.com/submission" },
+            { instance, _ ->
+                // Make earlier instances finish last
+                Thread.sleep((instances.size - instances.indexOf(instance)) * 10L)
+                FormUploadException(instance.dbId.toString())
+            }
+        )
+
+        assertThat(result.keys.toList(), equalTo(instances))
+        assertThat(result.values.map { it!!.message }, equalTo(instances.map { it.dbId.toString() }))
+    }
+
+    @Test
+    fun `a failure uploading one instance does not affect the others`() {
+        val instances = (1..3).map { createInstance(it.toLong()) }
+
+        val result = ConcurrentSubmissions(4, 4).submit(
+            instances,
+            { "https://server.example.com/submission" },
+            { instance, _ ->
+                when (instance.dbId) {
+                    1L -> throw IllegalStateException("Crashed")
+                    2L -> FormUploadException("Failed")
+                    else -> null
+                }
+            }
+        )
+
+        assertThat(result[instances[0]]!!.message, equalTo("Crashed"))
+        assertThat(result[instances[1]]!!.message, equalTo("Failed"))
+        assertThat(result[instances[2]], nullValue())
+    }
+
+    @Test
+    fun `no more than the per host limit of uploads are in flight to one host`() {
+        val instances = (1..8).map { createInstance(it.toLong()) }
+        val inFlight = ConcurrentHashMap<String, AtomicInteger>()
+        val maxInFlight = ConcurrentHashMap<String, Int>()
+
+        ConcurrentSubmissions(4, 2).submit(
+            instances,
+            { instance -> if (instance.dbId % 2 == 0L) "https://one.example.com/submission" else "https://two.example.com/submission" },
+            { _, destinationUrl ->
+                val count = inFlight.getOrPut(destinationUrl) { AtomicInteger() }.incrementAndGet()
+                maxInFlight.merge(destinationUrl, count, ::maxOf)
+
+                Thread.sleep(20)
+                inFlight[destinationUrl]!!.decrementAndGet()
+                null
+            }
+        )
+
+        assertThat(maxInFlight["https://one.example.com/submission"]!!, lessThanOrEqualTo(2))
+        assertThat(maxInFlight["https://two.example.com/submission"]!!, lessThanOrEqualTo(2))
+    }
+
+    @Test
+    fun `uploads to different hosts are not limited by each other`() {
+        val instances = (1..2).map { createInstance(it.toLong()) }
+        val bothStarted = CountDownLatch(2)
+
+        val result = ConcurrentSubmissions(4, 1).submit(
+            instances,
+            { instance -> "https://server${instance.dbId}.example.com/submission" },
+            { _, _ ->
+                bothStarted.countDown()
+                if (bothStarted.await(5, TimeUnit.SECONDS)) {
+                    null
+                } else {
+                    FormUploadException("Uploads were not concurrent")
+                }
+            }
+        )
+
+        assertThat(result.values.toList(), equalTo(listOf<FormUploadException?>(null, null)))
+    }
+
+    @Test
+    fun `reports progress as each instance finishes including ones that fail`() {
+        val instances = (1..3).map { createInstance(it.toLong()) }
+        val progress = mutableListOf<Pair<Int, Int>>()
+
+        ConcurrentSubmissions(4, 4).submit(
+            instances,
+            { "https://server.example.com/submission" },
+            { instance, _ ->
+                if (instance.dbId == 1L) {
+                    throw IllegalStateException("Crashed")
+                } else {
+                    null
+                }
+            },
+            { submitted, total ->
+                synchronized(progress) {
+                    progress.add(Pair(submitted, total))
+                }
+            }
+        )
+
+        assertThat(progress, equalTo(listOf(Pair(1, 3), Pair(2, 3), Pair(3, 3))))
+    }
+
+    private fun createInstance(dbId: Long): Instance {
+        return buildInstance("formId", "1", instancesDir)
+            .dbId(dbId)
+            .build()
+    }
+}
@@ -0,0 +1,81 @@
+package org.odk.collect.android.instancemanagement;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.odk.collect.shared.TempFiles;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+public class InstanceScanCheckpointTest {
+
+    private final File dir = TempFiles.createTempDir();
+    private final File checkpointFile = new File(dir, "checkpoint");
+
+    @Test
+    public void isUnchanged_whenFileHasNotChangedSinceCheckpointWasWritten_returnsTrue() throws Exception {
+        File instance1 = createInstanceFile("instance1.xml", "contents");
+        File instance2 = createInstanceFile("instance2.xml", "contents");
+
+        InstanceScanCheckpoint checkpoint = InstanceScanCheckpoint.read(checkpointFile);
+        checkpoint.put(instance1, "form1");
+        checkpoint.put(instance2, null);
+        checkpoint.write();
+
+        InstanceScanCheckpoint restored = InstanceScanCheckpoint.read(checkpointFile);
+        assertThat(restored.isUnchanged(instance1), is(true));
+        assertThat(restored.getFormId(instance1), equalTo("form1"));
+        assertThat(restored.isUnchanged(instance2), is(true));
+        assertThat(restored.getFormId(instance2), nullValue());
+    }
+
+    @Test
+    public void isUnchanged_whenFileHasChangedSinceCheckpointWasWritten_returnsFalse() throws Exception {
+        File instance = createInstanceFile("instance.xml", "contents");
+
+        InstanceScanCheckpoint checkpoint = InstanceScanCheckpoint.read(checkpointFile);
+        checkpoint.put(instance, "form1");
+        checkpoint.write();
+
+        FileUtils.write(instance, "different contents", StandardCharsets.UTF_8);
+        assertThat(InstanceScanCheckpoint.read(checkpointFile).isUnchanged(instance), is(false));
+    }
+
+    @Test
+    public void write_onlyKeepsFilesThatWerePutSinceCheckpointWasRead() throws Exception {
+        File instance1 = createInstanceFile("instance1.xml", "contents");
+        File instance2 = createInstanceFile("instance2.xml", "contents");
+
+        InstanceScanCheckpoint checkpoint = InstanceScanCheckpoint.read(checkpointFile);
+        checkpoint.put(instance1, "form1");
+        checkpoint.put(instance2, "form2");
+        checkpoint.write();
+
+        checkpoint = InstanceScanCheckpoint.read(checkpointFile);
+        checkpoint.put(instance2, "form2");
+        checkpoint.write();
+
+        InstanceScanCheckpoint restored = InstanceScanCheckpoint.read(checkpointFile);
+        assertThat(restored.isUnchanged(instance1), is(false));
+        assertThat(restored.isUnchanged(instance2), is(true));
+    }
+
+    @Test
+    public void read_whenCheckpointIsCorrupt_isEmpty() throws Exception {
+        File instance = createInstanceFile("instance.xml", "contents");
+        FileUtils.write(checkpointFile, "garbage", StandardCharsets.UTF_8);
+
+        assertThat(InstanceScanCheckpoint.read(checkpointFile).isUnchanged(instance), is(false));
+    }
+
+    private File createInstanceFile(String name, String contents) throws Exception {
+        File file = new File(dir, name);
+        FileUtils.write(file, contents, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,68 @@
+package org.odk.collect.android.instancemanagement;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.odk.collect.shared.TempFiles;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+public class InstanceXmlScannerTest {
+
+    private final File instanceFile = TempFiles.createTempFile("instance", ".xml");
+
+    @Test
+    public void readFormId_returnsIdOfRootElement() throws Exception {
+        write("<?xml version='1.0' ?><data id=\"my_form\" version=\"2\"><name>Bob</name></data>");
+        assertThat(InstanceXmlScanner.readFormId(instanceFile), equalTo("my_form"));
+    }
+
+    @Test
+    public void readFormId_whenRootHasNoId_returnsNull() throws Exception {
+        write("<?xml version='1.0' ?><data><name>Bob</name></data>");
+        assertThat(InstanceXmlScanner.readFormId(instanceFile), nullValue());
+    }
+
+    @Test
+    public void readFormId_whenFileIsNotXml_returnsNull() throws Exception {
+        write("not xml");
+        assertThat(InstanceXmlScanner.readFormId(instanceFile), nullValue());
+    }
+
+    @Test
+    public void readInstanceId_returnsValueOfMetaInstanceId() throws Exception {
+        write("<?xml version='1.0' ?>"
+                + "<data id=\"my_form\" xmlns:orx=\"http://openrosa.org/xforms\">"
+                + "<name>Bob</name>"
+                + "<orx:meta><orx:instanceID>uuid:1234</orx:instanceID></orx:meta>"
+                + "</data>");
+        assertThat(InstanceXmlScanner.readInstanceId(instanceFile), equalTo("uuid:1234"));
+    }
+
+    @Test
+    public void readInstanceId_ignoresInstanceIdOutsideOfMeta() throws Exception {
+        write("<?xml version='1.0' ?>"
+                + "<data id=\"my_form\">"
+                + "<group><instanceID>uuid:wrong</instanceID></group>"
+                + "<meta><deprecatedID>uuid:old</deprecatedID></meta>"
+                + "</data>");
+        assertThat(InstanceXmlScanner.readInstanceId(instanceFile), nullValue());
+    }
+
+    @Test
+    public void readInstanceId_prefersRootAttribute() throws Exception {
+        write("<?xml version='1.0' ?>"
+                + "<data id=\"my_form\" instanceID=\"uuid:root\">"
+                + "<meta><instanceID>uuid:meta</instanceID></meta>"
+                + "</data>");
+        assertThat(InstanceXmlScanner.readInstanceId(instanceFile), equalTo("uuid:root"));
+    }
+
+    private void write(String contents) throws Exception {
+        FileUtils.write(instanceFile, contents, StandardCharsets.UTF_8);
+    }
+}
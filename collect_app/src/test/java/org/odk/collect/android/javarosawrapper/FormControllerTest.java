@@ -2,6 +2,7 @@ package org.odk.collect.android.javarosawrapper;
 
 import com.google.common.io.Files;
 
+import org.javarosa.core.model.FormIndex;
 import org.javarosa.form.api.FormEntryController;
 import org.javarosa.form.api.FormEntryModel;
 import org.javarosa.xform.parse.XFormParser;
@@ -18,6 +19,10 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 public class FormControllerTest {
 
@@ -78,6 +83,42 @@ public class FormControllerTest {
         assertThat(formController.getFormIndex().toString(), equalTo("0_0, 1_1, "));
     }
 
+    @Test
+    public void getIndexFromXPath_returnsIndexWithXPath_includingForRepeatsAddedAfterTheFirstLookup() throws Exception {
+        FormController formController = createFormController(ONE_QUESTION_REPEAT);
+
+        formController.stepToNextScreenEvent();
+        FormIndex firstAge = formController.getFormIndex();
+        String firstAgeXPath = formController.getXPath(firstAge);
+
+        formController.jumpToIndex(FormIndex.createBeginningOfFormIndex());
+        assertThat(formController.getIndexFromXPath(firstAgeXPath), equalTo(firstAge));
+        assertThat(formController.getFormIndex(), equalTo(FormIndex.createBeginningOfFormIndex()));
+
+        formController.jumpToIndex(firstAge);
+        formController.jumpToNewRepeatPrompt();
+        formController.newRepeat();
+        formController.stepToNextScreenEvent();
+        FormIndex secondAge = formController.getFormIndex();
+        String secondAgeXPath = formController.getXPath(secondAge);
+
+        formController.jumpToIndex(FormIndex.createBeginningOfFormIndex());
+        assertThat(formController.getIndexFromXPath(secondAgeXPath), equalTo(secondAge));
+        assertThat(formController.getIndexFromXPath(firstAgeXPath), equalTo(firstAge));
+    }
+
+    @Test
+    public void getIndexFromXPath_whenXPathIsNotInForm_doesNotStepThroughTheFormAgain() throws Exception {
+        FormEntryController formEntryController = spy(createFormEntryController(ONE_QUESTION_REPEAT));
+        FormController formController = new JavaRosaFormController(Files.createTempDir(), formEntryController, File.createTempFile("instance", ""));
+
+        assertThat(formController.getIndexFromXPath("question./data/missing[1]"), nullValue());
+        clearInvocations(formEntryController);
+
+        assertThat(formController.getIndexFromXPath("question./data/missing[1]"), nullValue());
+        verify(formEntryController, never()).stepToNextEvent();
+    }
+
     @Test
     public void whenInstanceFileAndAuditConfigNull_getAuditEventLogger_isNotNull() throws Exception {
         ByteArrayInputStream inputStream = new ByteArrayInputStream(ONE_QUESTION_NESTED_REPEAT.getBytes());
@@ -115,10 +156,14 @@ public class FormControllerTest {
 
     @NotNull
     private FormController createFormController(String xform) throws IOException, XFormParser.ParseException {
+        return new JavaRosaFormController(Files.createTempDir(), createFormEntryController(xform), File.createTempFile("instance", ""));
+    }
+
+    @NotNull
+    private FormEntryController createFormEntryController(String xform) throws XFormParser.ParseException {
         ByteArrayInputStream inputStream = new ByteArrayInputStream(xform.getBytes());
         final FormEntryModel fem = new FormEntryModel(XFormUtils.getFormFromInputStream(inputStream));
-        final FormEntryController formEntryController = new FormEntryController(fem);
-        return new JavaRosaFormController(Files.createTempDir(), formEntryController, File.createTempFile("instance", ""));
+        return new FormEntryController(fem);
     }
 
     private static final String ONE_QUESTION_REPEAT = "<?xml version=\"1.0\"?>\n" +
@@ -53,6 +53,21 @@ class NotificationManagerNotifierTest {
         )
     }
 
+    @Test
+    fun onSubmission_replacesSubmissionProgressNotification() {
+        notifier.onSubmissionProgress(0, 2, Project.DEMO_PROJECT_ID)
+        notifier.onSubmissionProgress(1, 2, Project.DEMO_PROJECT_ID)
+        assertThat(
+            Shadows.shadowOf(notificationManager).allNotifications.size,
+            `is`(1)
+        )
+        notifier.onSubmission(emptyMap(), Project.DEMO_PROJECT_ID)
+        assertThat(
+            Shadows.shadowOf(notificationManager).allNotifications.size,
+            `is`(1)
+        )
+    }
+
     @Test
     fun onUpdatesAvailable_whenUpdatesHaveBeenSeenBefore_doesNotNotifyASecondTime() {
         val updates = listOf(
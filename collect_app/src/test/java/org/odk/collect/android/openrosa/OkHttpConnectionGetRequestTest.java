@@ -1,20 +1,134 @@
 package org.odk.collect.android.openrosa;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
 import android.webkit.MimeTypeMap;
 
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
 import org.odk.collect.android.openrosa.okhttp.OkHttpConnection;
 import org.odk.collect.android.openrosa.okhttp.OkHttpOpenRosaServerClientProvider;
+import org.odk.collect.shared.TempFiles;
+import org.odk.collect.shared.strings.Md5;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
 
 import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 
 public class OkHttpConnectionGetRequestTest extends OpenRosaGetRequestTest {
 
     @Override
     protected OpenRosaHttpInterface buildSubject() {
+        return buildSubject(null);
+    }
+
+    private OpenRosaHttpInterface buildSubject(String cacheDir) {
         return new OkHttpConnection(
-                new OkHttpOpenRosaServerClientProvider(new OkHttpClient()),
+                new OkHttpOpenRosaServerClientProvider(new OkHttpClient(), cacheDir),
                 new CollectThenSystemContentTypeMapper(MimeTypeMap.getSingleton()),
                 USER_AGENT
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void whenContentTypeIsXML_andDocumentHasBeenFetchedBefore_sendsValidatorAndUsesCachedBodyForNotModified() throws Exception {
+        OpenRosaHttpInterface subject = buildSubject(TempFiles.createTempDir().getAbsolutePath());
+        MockWebServer mockWebServer = mockWebServerRule.start();
+        mockWebServer.enqueue(new MockResponse()
+                .addHeader("Content-Type", "text/xml")
+                .addHeader("ETag", "\"v1\"")
+                .setBody("I AM BODY"));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(304)
+                .addHeader("ETag", "\"v1\""));
+
+        URI uri = mockWebServer.url("/formList").uri();
+        readAndClose(subject.executeGetRequest(uri, "text/xml", null));
+        HttpGetResult result = subject.executeGetRequest(uri, "text/xml", null);
+
+        assertThat(readAndClose(result), equalTo("I AM BODY"));
+        assertThat(result.getStatusCode(), equalTo(200));
+        assertThat(result.getHash(), equalTo(Md5.getMd5Hash("I AM BODY")));
+
+        mockWebServer.takeRequest();
+        RecordedRequest secondRequest = mockWebServer.takeRequest();
+        assertThat(secondRequest.getHeader("If-None-Match"), equalTo("\"v1\""));
+    }
+
+    @Test
+    public void whenContentTypeIsNotXML_responseIsNotCached() throws Exception {
+        OpenRosaHttpInterface subject = buildSubject(TempFiles.createTempDir().getAbsolutePath());
+        MockWebServer mockWebServer = mockWebServerRule.start();
+        mockWebServer.enqueue(new MockResponse()
+                .addHeader("ETag", "\"v1\"")
+                .setBody("I AM MEDIA"));
+        mockWebServer.enqueue(new MockResponse()
+                .addHeader("ETag", "\"v1\"")
+                .setBody("I AM MEDIA"));
+
+        URI uri = mockWebServer.url("/media.png").uri();
+        readAndClose(subject.executeGetRequest(uri, null, null));
+        readAndClose(subject.executeGetRequest(uri, null, null));
+
+        mockWebServer.takeRequest();
+        RecordedRequest secondRequest = mockWebServer.takeRequest();
+        assertThat(secondRequest.getHeader("If-None-Match"), nullValue());
+    }
+
+    @Test
+    public void withOffset_sendsRangeHeaderAndReturnsPartialContent() throws Exception {
+        MockWebServer mockWebServer = mockWebServerRule.start();
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(206)
+                .addHeader("Content-Range", "bytes 4-7/8")
+                .setBody("ents"));
+
+        HttpGetResult result = buildSubject().executeGetRequest(mockWebServer.url("/media.png").uri(), null, null, 4);
+
+        assertThat(readAndClose(result), equalTo("ents"));
+        assertThat(result.getStatusCode(), equalTo(206));
+        assertThat(mockWebServer.takeRequest().getHeader("Range"), equalTo("bytes=4-"));
+    }
+
+    @Test
+    public void withOffset_whenServerIgnoresRange_returnsWholeBody() throws Exception {
+        MockWebServer mockWebServer = mockWebServerRule.start();
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("contents"));
+
+        HttpGetResult result = buildSubject().executeGetRequest(mockWebServer.url("/media.png").uri(), null, null, 4);
+
+        assertThat(readAndClose(result), equalTo("contents"));
+        assertThat(result.getStatusCode(), equalTo(200));
+    }
+
+    @Test
+    public void withOffset_whenRangeIsNotSatisfiable_requestsWholeBody() throws Exception {
+        MockWebServer mockWebServer = mockWebServerRule.start();
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(416));
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("contents"));
+
+        HttpGetResult result = buildSubject().executeGetRequest(mockWebServer.url("/media.png").uri(), null, null, 4);
+
+        assertThat(readAndClose(result), equalTo("contents"));
+        assertThat(result.getStatusCode(), equalTo(200));
+
+        mockWebServer.takeRequest();
+        assertThat(mockWebServer.takeRequest().getHeader("Range"), nullValue());
+    }
+
+    private static String readAndClose(HttpGetResult result) throws Exception {
+        try (InputStream inputStream = result.getInputStream()) {
+            return IOUtils.toString(inputStream, Charset.defaultCharset());
+        }
+    }
+}
@@ -96,6 +96,18 @@ public abstract class OpenRosaGetRequestTest {
         assertThat(result.getHash(), equalTo(Md5.getMd5Hash(new ByteArrayInputStream("I AM BODY".getBytes()))));
     }
 
+    @Test
+    public void whenContentTypeIsXML_andBodyIsClosedBeforeBeingFullyRead_hashIsForWholeBody() throws Exception {
+        mockWebServer.enqueue(new MockResponse()
+                .addHeader("Content-Type", "text/xml")
+                .setBody("I AM BODY"));
+
+        HttpGetResult result = subject.executeGetRequest(mockWebServer.url("").uri(), "text/xml", null);
+        result.getInputStream().read(new byte[4]);
+        result.getInputStream().close();
+        assertThat(result.getHash(), equalTo(Md5.getMd5Hash(new ByteArrayInputStream("I AM BODY".getBytes()))));
+    }
+
     @Test(expected = Exception.class)
     public void withContentType_whenResponseHasDifferentContentType_throwsException() throws Exception {
         mockWebServer.enqueue(new MockResponse()
@@ -243,6 +243,36 @@ public abstract class OpenRosaPostRequestTest {
         assertThat(response.getResponseCode(), equalTo(500));
     }
 
+    @Test
+    public void whenRequestIsSplit_andSecondRequestIs500_onlyAcknowledgesAttachmentsFromFirstRequest() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(201));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+
+        URI uri = mockWebServer.url("/blah").uri();
+        File attachment1 = createTempFile("blah blah blah");
+        File attachment2 = createTempFile("blah2 blah2 blah2");
+        RecordingSubmissionUploadListener listener = new RecordingSubmissionUploadListener();
+        subject.uploadSubmissionAndFiles(createTempFile("<node>content</node>"), asList(attachment1, attachment2), uri, null, 0, listener);
+
+        assertThat(listener.acknowledged, equalTo(asList(attachment1)));
+    }
+
+    @Test
+    public void whenUploading_reportsBytesWrittenAcrossRequests() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(201));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(201));
+
+        URI uri = mockWebServer.url("/blah").uri();
+        File attachment1 = createTempFile("blah blah blah");
+        File attachment2 = createTempFile("blah2 blah2 blah2");
+        RecordingSubmissionUploadListener listener = new RecordingSubmissionUploadListener();
+        subject.uploadSubmissionAndFiles(createTempFile("<node>content</node>"), asList(attachment1, attachment2), uri, null, 0, listener);
+
+        long totalBodySize = mockWebServer.takeRequest().getBodySize() + mockWebServer.takeRequest().getBodySize();
+        assertThat(listener.bytesWritten, equalTo(totalBodySize));
+        assertThat(listener.acknowledged, equalTo(asList(attachment1, attachment2)));
+    }
+
     private File createTempFile(String content) throws Exception {
         return createTempFile(content, ".tmp");
     }
@@ -277,6 +307,22 @@ public abstract class OpenRosaPostRequestTest {
         return compressed;
     }
 
+    private static class RecordingSubmissionUploadListener implements OpenRosaHttpInterface.SubmissionUploadListener {
+
+        long bytesWritten;
+        List<File> acknowledged = new ArrayList<>();
+
+        @Override
+        public void onBytesWritten(long bytesWritten) {
+            this.bytesWritten = bytesWritten;
+        }
+
+        @Override
+        public void onAttachmentsAcknowledged(@NonNull List<File> files) {
+            acknowledged.addAll(files);
+        }
+    }
+
     private class XmlOrBlahContentTypeMapper implements OpenRosaHttpInterface.FileToContentTypeMapper {
 
         @NonNull
@@ -8,6 +8,7 @@ import org.odk.collect.android.openrosa.OpenRosaHttpInterface;
 import org.odk.collect.android.openrosa.OpenRosaResponseParser;
 import org.odk.collect.android.utilities.WebCredentialsUtils;
 import org.odk.collect.forms.FormSourceException;
+import org.odk.collect.forms.MediaFileStream;
 
 import java.io.ByteArrayInputStream;
 import java.net.SocketTimeoutException;
@@ -250,6 +251,31 @@ public class OpenRosaFormSourceTest {
         }
     }
 
+    @Test
+    public void fetchMediaFile_withOffset_whenServerReturnsPartialContent_returnsStreamStartingAtOffset() throws Exception {
+        OpenRosaFormSource formListApi = new OpenRosaFormSource("http://blah.com", httpInterface, webCredentialsUtils, responseParser);
+
+        when(httpInterface.executeGetRequest(any(), any(), any(), eq(4L))).thenReturn(new HttpGetResult(
+                new ByteArrayInputStream("ents".getBytes()), new HashMap<>(), "", 206
+        ));
+
+        MediaFileStream mediaFileStream = formListApi.fetchMediaFile("http://blah.com/mediaFile", 4);
+        assertThat(mediaFileStream.getOffset(), is(4L));
+        verify(httpInterface).executeGetRequest(eq(new URI("http://blah.com/mediaFile")), any(), any(), eq(4L));
+    }
+
+    @Test
+    public void fetchMediaFile_withOffset_whenServerReturnsWholeFile_returnsStreamStartingAtZero() throws Exception {
+        OpenRosaFormSource formListApi = new OpenRosaFormSource("http://blah.com", httpInterface, webCredentialsUtils, responseParser);
+
+        when(httpInterface.executeGetRequest(any(), any(), any(), eq(4L))).thenReturn(new HttpGetResult(
+                new ByteArrayInputStream("contents".getBytes()), new HashMap<>(), "", 200
+        ));
+
+        MediaFileStream mediaFileStream = formListApi.fetchMediaFile("http://blah.com/mediaFile", 4);
+        assertThat(mediaFileStream.getOffset(), is(0L));
+    }
+
     private static String join(String... strings) {
         StringBuilder bob = new StringBuilder();
         for (String s : strings) {
@@ -0,0 +1,116 @@
+package org.odk.collect.android.openrosa.okhttp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.odk.collect.shared.TempFiles;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Cache;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+public class RequestMetricsListenerTest {
+
+    private final MockWebServer mockWebServer = new MockWebServer();
+    private final List<RequestMetricsListener.Metrics> reported = new ArrayList<>();
+    private final List<IOException> failures = new ArrayList<>();
+
+    private OkHttpClient client;
+
+    @Before
+    public void setup() throws Exception {
+        mockWebServer.start();
+
+        client = new OkHttpClient.Builder()
+                .cache(new Cache(TempFiles.createTempDir(), 1024 * 1024))
+                .retryOnConnectionFailure(false)
+                .eventListenerFactory(RequestMetricsListener.factory((call, metrics, failure) -> {
+                    reported.add(metrics);
+                    failures.add(failure);
+                }))
+                .build();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void reportsBytesSentAndReceived() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody("response body"));
+
+        execute(new Request.Builder()
+                .url(mockWebServer.url("/post"))
+                .post(RequestBody.create(MediaType.parse("text/plain"), "request body"))
+                .build());
+
+        assertThat(reported.size(), equalTo(1));
+        assertThat(reported.get(0).requestBytes, equalTo((long) "request body".length()));
+        assertThat(reported.get(0).responseBytes, equalTo((long) "response body".length()));
+        assertThat(failures.get(0), nullValue());
+    }
+
+    @Test
+    public void reportsWhetherConnectionWasReused() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody("first"));
+        mockWebServer.enqueue(new MockResponse().setBody("second"));
+
+        execute(new Request.Builder().url(mockWebServer.url("/first")).build());
+        execute(new Request.Builder().url(mockWebServer.url("/second")).build());
+
+        assertThat(reported.size(), equalTo(2));
+        assertThat(reported.get(0).reusedConnection, equalTo(false));
+        assertThat(reported.get(1).reusedConnection, equalTo(true));
+    }
+
+    @Test
+    public void whenResponseComesFromCache_doesNotReportReusedConnection() throws Exception {
+        mockWebServer.enqueue(new MockResponse()
+                .setHeader("Cache-Control", "max-age=60")
+                .setBody("cached"));
+
+        execute(new Request.Builder().url(mockWebServer.url("/cached")).build());
+        execute(new Request.Builder().url(mockWebServer.url("/cached")).build());
+
+        assertThat(mockWebServer.getRequestCount(), equalTo(1));
+        assertThat(reported.size(), equalTo(2));
+        assertThat(reported.get(1).reusedConnection, equalTo(false));
+        assertThat(reported.get(1).requestBytes, equalTo(0L));
+    }
+
+    @Test
+    public void whenCallFails_reportsFailure() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+
+        try {
+            execute(new Request.Builder().url(mockWebServer.url("/fail")).build());
+        } catch (IOException e) {
+            // expected
+        }
+
+        assertThat(reported.size(), equalTo(1));
+        assertThat(failures.get(0), notNullValue());
+    }
+
+    private void execute(Request request) throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            response.body().string();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.odk.collect.android.tasks;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+
+import org.apache.commons.io.FileUtils;
+import org.javarosa.core.model.FormDef;
+import org.javarosa.core.model.data.IntegerData;
+import org.javarosa.core.model.data.StringData;
+import org.javarosa.core.model.instance.InstanceInitializationFactory;
+import org.javarosa.core.model.instance.TreeElement;
+import org.javarosa.xform.util.XFormUtils;
+import org.junit.Test;
+import org.odk.collect.android.javarosawrapper.FormController;
+import org.odk.collect.shared.TempFiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.Charset;
+
+public class SavePointJournalTest {
+
+    private final File savepointFile = TempFiles.createTempFile("instance", ".xml.save");
+    private final File journalFile = TempFiles.createTempFile("instance", ".journal");
+
+    @Test
+    public void replay_appliesAnswersAppendedSinceTheSavepointWasWritten() throws Exception {
+        journalFile.delete();
+        FormDef formDef = createFormDef();
+        TreeElement root = formDef.getMainInstance().getRoot();
+
+        writeSavepoint("savepoint");
+        SavePointJournal journal = SavePointJournal.get(mock(FormController.class), savepointFile, journalFile);
+        journal.onSavepointWritten(root);
+
+        root.getChildAt(0).setAnswer(new StringData("Bob"));
+        assertThat(journal.append(root), is(true));
+        root.getChildAt(1).setAnswer(new IntegerData(42));
+        root.getChildAt(0).setAnswer(null);
+        assertThat(journal.append(root), is(true));
+
+        FormDef restored = createFormDef();
+        SavePointJournal.replay(savepointFile, journalFile, restored);
+
+        TreeElement restoredRoot = restored.getMainInstance().getRoot();
+        assertThat(restoredRoot.getChildAt(0).getValue(), is(nullValue()));
+        assertThat(restoredRoot.getChildAt(1).getValue().getValue(), equalTo(42));
+    }
+
+    @Test
+    public void replay_whenSavepointHasBeenRewrittenSinceJournalStarted_ignoresJournal() throws Exception {
+        journalFile.delete();
+        FormDef formDef = createFormDef();
+        TreeElement root = formDef.getMainInstance().getRoot();
+
+        writeSavepoint("savepoint");
+        SavePointJournal journal = SavePointJournal.get(mock(FormController.class), savepointFile, journalFile);
+        journal.onSavepointWritten(root);
+
+        root.getChildAt(0).setAnswer(new StringData("Bob"));
+        journal.append(root);
+        writeSavepoint("a newer savepoint");
+
+        FormDef restored = createFormDef();
+        SavePointJournal.replay(savepointFile, journalFile, restored);
+
+        assertThat(restored.getMainInstance().getRoot().getChildAt(0).getValue(), is(nullValue()));
+    }
+
+    @Test
+    public void append_beforeAnySavepointHasBeenWritten_returnsFalse() throws Exception {
+        FormDef formDef = createFormDef();
+
+        SavePointJournal journal = SavePointJournal.get(mock(FormController.class), savepointFile, journalFile);
+        assertThat(journal.append(formDef.getMainInstance().getRoot()), is(false));
+    }
+
+    private void writeSavepoint(String contents) throws Exception {
+        FileUtils.write(savepointFile, contents, Charset.defaultCharset());
+    }
+
+    private static FormDef createFormDef() {
+        FormDef formDef = XFormUtils.getFormFromInputStream(new ByteArrayInputStream(FORM.getBytes()));
+        formDef.initialize(true, new InstanceInitializationFactory());
+        return formDef;
+    }
+
+    private static final String FORM = "<?xml version=\"1.0\"?>\n" +
+            "<h:html xmlns=\"http://www.w3.org/2002/xforms\" xmlns:h=\"http://www.w3.org/1999/xhtml\">\n" +
+            "    <h:head>\n" +
+            "        <h:title>Two Questions</h:title>\n" +
+            "        <model>\n" +
+            "            <instance>\n" +
+            "                <data id=\"two_questions\">\n" +
+            "                    <name/>\n" +
+            "                    <age/>\n" +
+            "                </data>\n" +
+            "            </instance>\n" +
+            "            <bind nodeset=\"/data/name\" type=\"string\"/>\n" +
+            "            <bind nodeset=\"/data/age\" type=\"int\"/>\n" +
+            "        </model>\n" +
+            "    </h:head>\n" +
+            "    <h:body>\n" +
+            "        <input ref=\"/data/name\">\n" +
+            "            <label>What is your name?</label>\n" +
+            "        </input>\n" +
+            "        <input ref=\"/data/age\">\n" +
+            "            <label>What is your age?</label>\n" +
+            "        </input>\n" +
+            "    </h:body>\n" +
+            "</h:html>\n";
+}
@@ -0,0 +1,56 @@
+package org.odk.collect.android.upload
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.Test
+import org.odk.collect.shared.TempFiles.createTempDir
+import java.io.File
+
+class AcknowledgedAttachmentsTest {
+
+    private val instanceDir = createTempDir()
+    private val attachment1 = File(instanceDir, "1.jpg").also { it.writeText("one") }
+    private val attachment2 = File(instanceDir, "2.jpg").also { it.writeText("two") }
+
+    @Test
+    fun `filterUnacknowledged removes attachments acknowledged for the same submission URL`() {
+        AcknowledgedAttachments(instanceDir, SUBMISSION_URL).acknowledge(listOf(attachment1))
+
+        val unacknowledged = AcknowledgedAttachments(instanceDir, SUBMISSION_URL)
+            .filterUnacknowledged(listOf(attachment1, attachment2))
+        assertThat(unacknowledged, equalTo(listOf(attachment2)))
+    }
+
+    @Test
+    fun `filterUnacknowledged keeps attachments acknowledged for a different submission URL`() {
+        AcknowledgedAttachments(instanceDir, SUBMISSION_URL).acknowledge(listOf(attachment1))
+
+        val unacknowledged = AcknowledgedAttachments(instanceDir, "https://other.example.com/submission")
+            .filterUnacknowledged(listOf(attachment1, attachment2))
+        assertThat(unacknowledged, equalTo(listOf(attachment1, attachment2)))
+    }
+
+    @Test
+    fun `filterUnacknowledged keeps attachments that have changed since they were acknowledged`() {
+        AcknowledgedAttachments(instanceDir, SUBMISSION_URL).acknowledge(listOf(attachment1))
+        attachment1.writeText("one changed")
+
+        val unacknowledged = AcknowledgedAttachments(instanceDir, SUBMISSION_URL)
+            .filterUnacknowledged(listOf(attachment1, attachment2))
+        assertThat(unacknowledged, equalTo(listOf(attachment1, attachment2)))
+    }
+
+    @Test
+    fun `filterUnacknowledged keeps all attachments after clear`() {
+        val acknowledgedAttachments = AcknowledgedAttachments(instanceDir, SUBMISSION_URL)
+        acknowledgedAttachments.acknowledge(listOf(attachment1, attachment2))
+
+        acknowledgedAttachments.clear()
+
+        assertThat(acknowledgedAttachments.filterUnacknowledged(listOf(attachment1, attachment2)), equalTo(listOf(attachment1, attachment2)))
+    }
+
+    companion object {
+        private const val SUBMISSION_URL = "https://example.com/submission"
+    }
+}
@@ -0,0 +1,39 @@
+package org.odk.collect.android.upload
+
+import android.net.Uri
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.nullValue
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class SubmissionEndpointsTest {
+
+    private val submissionEndpoints = SubmissionEndpoints()
+
+    @Test
+    fun `get returns null for a submission URL that has not been negotiated`() {
+        assertThat(submissionEndpoints.get(Uri.parse("https://example.com/submission")), nullValue())
+    }
+
+    @Test
+    fun `get returns the endpoint put for an equal submission URL`() {
+        val endpoint = SubmissionEndpoints.Endpoint(Uri.parse("https://example.com/v1/submission"), 1000)
+        submissionEndpoints.put(Uri.parse("https://example.com/submission"), endpoint)
+
+        assertThat(submissionEndpoints.get(Uri.parse("https://example.com/submission")), equalTo(endpoint))
+        assertThat(submissionEndpoints.get(Uri.parse("https://other.example.com/submission")), nullValue())
+    }
+
+    @Test
+    fun `remove forgets the endpoint for a submission URL`() {
+        val endpoint = SubmissionEndpoints.Endpoint(Uri.parse("https://example.com/v1/submission"), 1000)
+        submissionEndpoints.put(Uri.parse("https://example.com/submission"), endpoint)
+
+        submissionEndpoints.remove(Uri.parse("https://example.com/submission"))
+
+        assertThat(submissionEndpoints.get(Uri.parse("https://example.com/submission")), nullValue())
+    }
+}
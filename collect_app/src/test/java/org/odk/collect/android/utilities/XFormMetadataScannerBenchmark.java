@@ -0,0 +1,67 @@
+package org.odk.collect.android.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+
+/**
+ * Compares {@link XFormMetadataScanner} with a full parse on a large generated form. The results
+ * have to match and scanning has to be quicker than parsing.
+ */
+@Ignore("Benchmark - run manually")
+public class XFormMetadataScannerBenchmark {
+
+    private static final int QUESTIONS = 2000;
+    private static final int RUNS = 3;
+
+    @Test
+    public void scanningLargeForm() throws Exception {
+        File form = createLargeForm();
+
+        HashMap<String, String> parsed = null;
+        long parseStart = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            parsed = FileUtils.getMetadataFromFormDefinition(form);
+        }
+        long parseTime = System.nanoTime() - parseStart;
+
+        HashMap<String, String> scanned = null;
+        long scanStart = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            scanned = XFormMetadataScanner.scan(form);
+        }
+        long scanTime = System.nanoTime() - scanStart;
+
+        assertThat(scanned, equalTo(parsed));
+        assertThat(scanTime, lessThan(parseTime));
+    }
+
+    private static File createLargeForm() throws Exception {
+        StringBuilder instance = new StringBuilder("<data id=\"large\" orx:version=\"1\">");
+        StringBuilder binds = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+
+        for (int i = 0; i < QUESTIONS; i++) {
+            String type = i == QUESTIONS / 2 ? "geopoint" : "string";
+            instance.append("<q").append(i).append("/>");
+            binds.append("<bind nodeset=\"/data/q").append(i).append("\" type=\"").append(type)
+                    .append("\" relevant=\"/data/q0 != 'skip").append(i).append("'\"/>");
+            body.append("<input ref=\"/data/q").append(i).append("\"><label>Question ").append(i)
+                    .append("</label><hint>Hint ").append(i).append("</hint></input>");
+        }
+        instance.append("</data>");
+
+        return XFormMetadataScannerTest.createForm(
+                "<h:title>Large</h:title>",
+                instance.toString(),
+                "<submission action=\"https://example.com\"/>" + binds,
+                body.toString()
+        );
+    }
+}
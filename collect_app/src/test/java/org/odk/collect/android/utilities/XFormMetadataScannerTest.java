@@ -0,0 +1,124 @@
+package org.odk.collect.android.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.junit.Test;
+import org.odk.collect.shared.TempFiles;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+public class XFormMetadataScannerTest {
+
+    @Test
+    public void scan_returnsSameMetadataAsParsingForm() throws Exception {
+        File form = createForm(
+                "<h:title>Geopoints</h:title>",
+                "<data id=\"geopoints\" orx:version=\"3\"><group><location /></group><location2 /></data>",
+                "<submission action=\"https://example.com\" orx:auto-send=\"true\" base64RsaPublicKey=\" key \"/>"
+                        + "<bind nodeset=\"/data/group/location\" type=\"geopoint\"/>"
+                        + "<bind nodeset=\"/data/location2\" type=\"geopoint\"/>",
+                "<group ref=\"/data/group\"><input ref=\"location\"><label>Location</label></input></group>"
+                        + "<input ref=\"/data/location2\"><label>Location</label></input>"
+        );
+
+        HashMap<String, String> scanned = XFormMetadataScanner.scan(form);
+        assertThat(scanned, equalTo(FileUtils.getMetadataFromFormDefinition(form)));
+        assertThat(scanned.get(FileUtils.GEOMETRY_XPATH), is("/data/group/location"));
+        assertThat(scanned.get(FileUtils.BASE64_RSA_PUBLIC_KEY), is("key"));
+    }
+
+    @Test
+    public void scan_forFormWithManyQuestions_returnsSameMetadataAsParsingForm() throws Exception {
+        StringBuilder instance = new StringBuilder("<data id=\"many\" orx:version=\"1\">");
+        StringBuilder binds = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            String type = i == 50 ? "geopoint" : "string";
+            instance.append("<q").append(i).append("/>");
+            binds.append("<bind nodeset=\"/data/q").append(i).append("\" type=\"").append(type).append("\"/>");
+            body.append("<input ref=\"/data/q").append(i).append("\"><label>Question ").append(i)
+                    .append("</label><hint>Hint ").append(i).append("</hint></input>");
+        }
+        instance.append("</data>");
+
+        File form = createForm(
+                "<h:title>Many</h:title>",
+                instance.toString(),
+                "<submission action=\"https://example.com\"/>" + binds,
+                body.toString()
+        );
+
+        HashMap<String, String> scanned = XFormMetadataScanner.scan(form);
+        assertThat(scanned, equalTo(FileUtils.getMetadataFromFormDefinition(form)));
+        assertThat(scanned.get(FileUtils.GEOMETRY_XPATH), is("/data/q50"));
+    }
+
+    @Test
+    public void scan_followsBindReferences() throws Exception {
+        File form = createForm(
+                "<h:title>Geopoints</h:title>",
+                "<data id=\"geopoints\"><location /></data>",
+                "<bind id=\"location\" nodeset=\"/data/location\" type=\"geopoint\"/>",
+                "<input bind=\"location\"><label>Location</label></input>"
+        );
+
+        assertThat(XFormMetadataScanner.scan(form).get(FileUtils.GEOMETRY_XPATH), is("/data/location"));
+    }
+
+    @Test
+    public void scan_whenFormHasSetGeopointAction_returnsNull() throws Exception {
+        File form = createForm(
+                "<h:title>Geopoints</h:title>",
+                "<data id=\"geopoints\"><location /></data>",
+                "<bind nodeset=\"/data/location\" type=\"geopoint\"/>",
+                "<input ref=\"/data/location\"><label>Location</label>"
+                        + "<odk:setgeopoint ref=\"/data/location\" event=\"xforms-value-changed\"/></input>"
+        );
+
+        assertThat(XFormMetadataScanner.scan(form), is(nullValue()));
+    }
+
+    @Test
+    public void scan_whenFormHasRelativeBind_returnsNull() throws Exception {
+        File form = createForm(
+                "<h:title>Relative</h:title>",
+                "<data id=\"relative\"><location /></data>",
+                "<bind nodeset=\"location\" type=\"geopoint\"/>",
+                ""
+        );
+
+        assertThat(XFormMetadataScanner.scan(form), is(nullValue()));
+    }
+
+    @Test
+    public void scan_whenFormHasNoTitle_returnsNull() throws Exception {
+        File form = createForm("", "<data id=\"no-title\"/>", "", "");
+        assertThat(XFormMetadataScanner.scan(form), is(nullValue()));
+    }
+
+    @Test
+    public void scan_whenFileIsNotXml_returnsNull() throws Exception {
+        File form = TempFiles.createTempFile("form", ".xml");
+        org.apache.commons.io.FileUtils.write(form, "not xml", StandardCharsets.UTF_8);
+
+        assertThat(XFormMetadataScanner.scan(form), is(nullValue()));
+    }
+
+    static File createForm(String title, String primaryInstance, String model, String body) throws Exception {
+        String xml = "<?xml version=\"1.0\"?>\n"
+                + "<h:html xmlns=\"http://www.w3.org/2002/xforms\" xmlns:h=\"http://www.w3.org/1999/xhtml\""
+                + " xmlns:orx=\"http://openrosa.org/xforms\" xmlns:odk=\"http://www.opendatakit.org/xforms\">\n"
+                + "<h:head>" + title + "<model><instance>" + primaryInstance + "</instance>" + model + "</model></h:head>\n"
+                + "<h:body>" + body + "</h:body>\n"
+                + "</h:html>";
+
+        File form = TempFiles.createTempFile("form", ".xml");
+        org.apache.commons.io.FileUtils.write(form, xml, StandardCharsets.UTF_8);
+        return form;
+    }
+}
@@ -52,6 +52,7 @@ dependencies {
     implementation(project(":strings"))
     implementation(project(":shared"))
     implementation(project(":androidshared"))
+    implementation(project(":async"))
 
     implementation(Dependencies.kotlin_stdlib)
     implementation(Dependencies.androidx_appcompat)
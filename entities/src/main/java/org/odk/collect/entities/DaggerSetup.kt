@@ -3,6 +3,7 @@ package org.odk.collect.entities
 import dagger.Component
 import dagger.Module
 import dagger.Provides
+import org.odk.collect.async.Scheduler
 import javax.inject.Singleton
 
 interface EntitiesDependencyComponentProvider {
@@ -32,4 +33,9 @@ open class EntitiesDependencyModule {
     open fun providesEntitiesRepository(): EntitiesRepository {
         throw UnsupportedOperationException("This should be overridden by dependent application")
     }
+
+    @Provides
+    open fun providesScheduler(): Scheduler {
+        throw UnsupportedOperationException("This should be overridden by dependent application")
+    }
 }
@@ -6,6 +6,7 @@ import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import androidx.fragment.app.Fragment
+import org.odk.collect.async.Scheduler
 import org.odk.collect.entities.databinding.ListLayoutBinding
 import javax.inject.Inject
 
@@ -14,6 +15,9 @@ class EntitiesFragment : Fragment() {
     @Inject
     lateinit var entitiesRepository: EntitiesRepository
 
+    @Inject
+    lateinit var scheduler: Scheduler
+
     override fun onAttach(context: Context) {
         super.onAttach(context)
 
@@ -33,11 +37,31 @@ class EntitiesFragment : Fragment() {
         val dataset = EntitiesFragmentArgs.fromBundle(requireArguments()).dataset
         val binding = ListLayoutBinding.bind(view)
 
-        entitiesRepository.getEntities(dataset).forEach { entity ->
-            val item = EntityItemView(view.context)
-            item.setEntity(entity)
+        loadEntities(dataset, view, binding, 0)
+    }
+
+    private fun loadEntities(dataset: String, view: View, binding: ListLayoutBinding, offset: Int) {
+        scheduler.immediate(
+            background = { entitiesRepository.getEntities(dataset, null, null, offset, PAGE_SIZE) },
+            foreground = { entities ->
+                // The view could have been destroyed while the page was loading
+                if (this.view === view) {
+                    entities.forEach { entity ->
+                        val item = EntityItemView(view.context)
+                        item.setEntity(entity)
+
+                        binding.list.addView(item)
+                    }
+
+                    if (entities.size == PAGE_SIZE) {
+                        loadEntities(dataset, view, binding, offset + PAGE_SIZE)
+                    }
+                }
+            }
+        )
+    }
 
-            binding.list.addView(item)
-        }
+    companion object {
+        private const val PAGE_SIZE = 100
     }
 }
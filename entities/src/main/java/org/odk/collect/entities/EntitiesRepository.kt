@@ -1,7 +1,18 @@
 package org.odk.collect.entities
 
 interface EntitiesRepository {
+
+    /**
+     * Adds [entity] or replaces the existing entity in its dataset with the same [Entity.id].
+     */
     fun save(entity: Entity)
     fun getDatasets(): Set<String>
     fun getEntities(dataset: String): List<Entity>
+
+    /**
+     * Returns up to [limit] of the entities in [dataset] (in the order they were first saved)
+     * starting from [offset]. If [property] is not null, only entities where that property is
+     * [value] are included.
+     */
+    fun getEntities(dataset: String, property: String?, value: String?, offset: Int, limit: Int): List<Entity>
 }
@@ -1,3 +1,11 @@
 package org.odk.collect.entities
 
-data class Entity(val dataset: String, val properties: List<Pair<String, String>>)
+/**
+ * @param id identifies the entity within its dataset. Saving an entity with the same id (and
+ * dataset) as an existing one replaces it.
+ */
+data class Entity @JvmOverloads constructor(
+    val dataset: String,
+    val properties: List<Pair<String, String>>,
+    val id: String? = null
+)
@@ -20,4 +20,14 @@ public interface FormSource {
 
     @NotNull
     InputStream fetchMediaFile(String mediaFileURL) throws FormSourceException;
+
+    /**
+     * Fetches the media file from byte {@code offset} onwards so that an interrupted download
+     * can be resumed. Sources that can't do that return the whole file, so callers need to check
+     * {@link MediaFileStream#getOffset()} before using the stream.
+     */
+    @NotNull
+    default MediaFileStream fetchMediaFile(String mediaFileURL, long offset) throws FormSourceException {
+        return new MediaFileStream(fetchMediaFile(mediaFileURL), 0);
+    }
 }
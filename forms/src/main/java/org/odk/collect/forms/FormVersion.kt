@@ -0,0 +1,9 @@
+package org.odk.collect.forms
+
+/**
+ * Identifies a version of a form (as opposed to a particular [Form] on the device).
+ */
+data class FormVersion(
+    val formId: String,
+    val version: String?
+)
@@ -3,7 +3,9 @@ package org.odk.collect.forms;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface FormsRepository {
 
@@ -13,6 +15,13 @@ public interface FormsRepository {
     @Nullable
     Form getLatestByFormIdAndVersion(String formId, @Nullable String version);
 
+    /**
+     * The same as {@link #getLatestByFormIdAndVersion(String, String)} for each of
+     * {@code formVersions} but without a query for each one. Form versions that don't match any
+     * forms are left out.
+     */
+    Map<FormVersion, Form> getLatestByFormIdsAndVersions(Collection<FormVersion> formVersions);
+
     @Nullable
     Form getOneByPath(String path);
 
@@ -0,0 +1,13 @@
+package org.odk.collect.forms
+
+import java.io.InputStream
+
+/**
+ * The body of a media file fetched from a [FormSource]. [offset] is the position in the file that
+ * [inputStream] starts at. This is only non-zero when part of the file was asked for and the
+ * source was able to skip to it.
+ */
+class MediaFileStream(
+    val inputStream: InputStream,
+    val offset: Long
+)
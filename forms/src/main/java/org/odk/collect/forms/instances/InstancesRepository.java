@@ -1,8 +1,11 @@
 package org.odk.collect.forms.instances;
 
 import org.jetbrains.annotations.Nullable;
+import org.odk.collect.forms.FormVersion;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Gives access to {@link Instance} objects representing filled form instances on the device.
@@ -24,6 +27,12 @@ public interface InstancesRepository {
     @Nullable
     Instance getOneByPath(String instancePath);
 
+    /**
+     * The instances whose files are at any of {@code instancePaths}. Cheaper than calling
+     * {@link #getOneByPath(String)} for each path when there are a lot of them.
+     */
+    List<Instance> getAllByPaths(Collection<String> instancePaths);
+
     List<Instance> getAll();
 
     List<Instance> getAllNotDeleted();
@@ -32,10 +41,33 @@ public interface InstancesRepository {
 
     int getCountByStatus(String... status);
 
+    /**
+     * The number of instances with each status. Statuses without any instances are left out.
+     */
+    Map<String, Integer> getCountsByStatus();
+
+    /**
+     * Whether there are any instances with one of the statuses. Cheaper than counting them.
+     */
+    boolean hasInstancesWithStatus(String... status);
+
+    /**
+     * The most recent {@link Instance#getLastStatusChangeDate()} of the instances with one of the
+     * statuses or null if there aren't any.
+     */
+    @Nullable
+    Long getLastStatusChangeDateByStatus(String... status);
+
     List<Instance> getAllByFormId(String formId);
 
     List<Instance> getAllNotDeletedByFormIdAndVersion(String formId, String version);
 
+    /**
+     * The most recent {@link Instance#getLastStatusChangeDate()} of the instances (including
+     * deleted ones) for every form version that has any.
+     */
+    Map<FormVersion, Long> getLastStatusChangeDatesByFormVersion();
+
     void delete(Long id);
 
     void deleteAll();
@@ -3,12 +3,15 @@ package org.odk.collect.formstest;
 import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 import org.odk.collect.forms.Form;
+import org.odk.collect.forms.FormVersion;
 import org.odk.collect.forms.FormsRepository;
 import org.odk.collect.shared.strings.Md5;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -60,6 +63,31 @@ public abstract class FormsRepositoryTest {
         assertThat(form.getDbId(), is(2L));
     }
 
+    @Test
+    public void getLatestByFormIdsAndVersions_returnsLatestFormForEachMatchingVersion() {
+        Supplier<Long> mockClock = mock(Supplier.class);
+        when(mockClock.get()).thenReturn(2L, 3L, 1L, 4L);
+
+        FormsRepository formsRepository = buildSubject(mockClock);
+        formsRepository.save(FormUtils.buildForm("1", "1", getFormFilesPath(), createXFormBody("1", "1", "Form1"))
+                .build());
+        formsRepository.save(FormUtils.buildForm("1", "1", getFormFilesPath(), createXFormBody("1", "1", "Form2"))
+                .build());
+        formsRepository.save(FormUtils.buildForm("1", "2", getFormFilesPath(), createXFormBody("1", "2", "Form3"))
+                .build());
+        formsRepository.save(FormUtils.buildForm("2", null, getFormFilesPath(), createXFormBody("2", null, "Form4"))
+                .build());
+
+        Map<FormVersion, Form> forms = formsRepository.getLatestByFormIdsAndVersions(Arrays.asList(
+                new FormVersion("1", "1"),
+                new FormVersion("2", null),
+                new FormVersion("3", "1")
+        ));
+        assertThat(forms.size(), is(2));
+        assertThat(forms.get(new FormVersion("1", "1")).getDbId(), is(2L));
+        assertThat(forms.get(new FormVersion("2", null)).getDbId(), is(4L));
+    }
+
     @Test
     public void getAllByFormIdAndVersion_whenFormHasNullVersion_returnsAllMatchingForms() {
         FormsRepository formsRepository = buildSubject();
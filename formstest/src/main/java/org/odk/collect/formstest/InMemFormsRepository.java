@@ -3,6 +3,7 @@ package org.odk.collect.formstest;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.odk.collect.forms.Form;
+import org.odk.collect.forms.FormVersion;
 import org.odk.collect.forms.FormsRepository;
 import org.odk.collect.shared.files.DirectoryUtils;
 import org.odk.collect.shared.strings.Md5;
@@ -10,10 +11,15 @@ import org.odk.collect.shared.TempFiles;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Supplier;
 
 import static java.util.stream.Collectors.toList;
@@ -51,6 +57,20 @@ public class InMemFormsRepository implements FormsRepository {
         }
     }
 
+    @Override
+    public Map<FormVersion, Form> getLatestByFormIdsAndVersions(Collection<FormVersion> formVersions) {
+        Set<FormVersion> requested = new HashSet<>(formVersions);
+        Map<FormVersion, Form> latest = new HashMap<>();
+        for (Form form : forms) {
+            FormVersion formVersion = new FormVersion(form.getFormId(), form.getVersion());
+            if (requested.contains(formVersion)) {
+                latest.merge(formVersion, form, (current, other) -> other.getDate() > current.getDate() ? other : current);
+            }
+        }
+
+        return latest;
+    }
+
     @Nullable
     @Override
     public Form getOneByMd5Hash(@NotNull String hash) {
@@ -1,5 +1,6 @@
 package org.odk.collect.formstest;
 
+import org.odk.collect.forms.FormVersion;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.instances.InstancesRepository;
 import org.odk.collect.shared.files.DirectoryUtils;
@@ -7,8 +8,13 @@ import org.odk.collect.shared.files.DirectoryUtils;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -64,6 +70,14 @@ public final class InMemInstancesRepository implements InstancesRepository {
         }
     }
 
+    @Override
+    public List<Instance> getAllByPaths(Collection<String> instancePaths) {
+        Set<String> paths = new HashSet<>(instancePaths);
+        return instances.stream()
+                .filter(instance -> paths.contains(instance.getInstanceFilePath()))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public List<Instance> getAll() {
         return new ArrayList<>(instances);
@@ -95,6 +109,30 @@ public final class InMemInstancesRepository implements InstancesRepository {
         return getAllByStatus(status).size();
     }
 
+    @Override
+    public Map<String, Integer> getCountsByStatus() {
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (Instance instance : instances) {
+            counts.merge(instance.getStatus(), 1, Integer::sum);
+        }
+
+        return counts;
+    }
+
+    @Override
+    public boolean hasInstancesWithStatus(String... status) {
+        return !getAllByStatus(status).isEmpty();
+    }
+
+    @Override
+    public Long getLastStatusChangeDateByStatus(String... status) {
+        return getAllByStatus(status).stream()
+                .map(Instance::getLastStatusChangeDate)
+                .max(Long::compare)
+                .orElse(null);
+    }
+
     @Override
     public List<Instance> getAllByFormId(String formId) {
         List<Instance> result = new ArrayList<>();
@@ -117,6 +155,19 @@ public final class InMemInstancesRepository implements InstancesRepository {
         }).collect(Collectors.toList());
     }
 
+    @Override
+    public Map<FormVersion, Long> getLastStatusChangeDatesByFormVersion() {
+        Map<FormVersion, Long> dates = new HashMap<>();
+
+        for (Instance instance : instances) {
+            if (instance.getFormId() != null && instance.getLastStatusChangeDate() != null) {
+                dates.merge(new FormVersion(instance.getFormId(), instance.getFormVersion()), instance.getLastStatusChangeDate(), Math::max);
+            }
+        }
+
+        return dates;
+    }
+
     @Override
     public void delete(Long id) {
         Instance instance = get(id);
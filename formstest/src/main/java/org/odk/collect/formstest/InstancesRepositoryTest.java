@@ -15,14 +15,19 @@
 package org.odk.collect.formstest;
 
 import org.junit.Test;
+import org.odk.collect.forms.FormVersion;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.instances.InstancesRepository;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
@@ -56,6 +61,30 @@ public abstract class InstancesRepositoryTest {
         assertThat(allNotDeleted.get(0).getFormId(), is("undeleted"));
     }
 
+    @Test
+    public void getAllByPaths_returnsInstancesWithMatchingPaths() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        Instance instance1 = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).build());
+        Instance instance2 = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).build());
+
+        List<Instance> instances = instancesRepository.getAllByPaths(Arrays.asList(
+                instance1.getInstanceFilePath(),
+                instance2.getInstanceFilePath(),
+                new File(getInstancesDir(), "missing/missing.xml").getAbsolutePath()
+        ));
+        assertThat(instances, containsInAnyOrder(instance1, instance2));
+    }
+
+    @Test
+    public void getAllByPaths_withNoPaths_returnsEmptyList() {
+        InstancesRepository instancesRepository = buildSubject();
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).build());
+
+        assertThat(instancesRepository.getAllByPaths(Collections.emptyList()).isEmpty(), is(true));
+    }
+
     @Test
     public void getAllByStatus_withOneStatus_returnsMatchingInstances() {
         InstancesRepository instancesRepository = buildSubject();
@@ -119,6 +148,45 @@ public abstract class InstancesRepositoryTest {
         assertThat(instancesRepository.getCountByStatus(Instance.STATUS_INCOMPLETE, Instance.STATUS_SUBMITTED), is(4));
     }
 
+    @Test
+    public void getCountsByStatus_returnsNumberOfInstancesWithEachStatus() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).status(Instance.STATUS_INCOMPLETE).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).status(Instance.STATUS_COMPLETE).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).status(Instance.STATUS_COMPLETE).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).status(Instance.STATUS_SUBMITTED).build());
+
+        Map<String, Integer> counts = instancesRepository.getCountsByStatus();
+        assertThat(counts.size(), is(3));
+        assertThat(counts.get(Instance.STATUS_INCOMPLETE), is(1));
+        assertThat(counts.get(Instance.STATUS_COMPLETE), is(2));
+        assertThat(counts.get(Instance.STATUS_SUBMITTED), is(1));
+    }
+
+    @Test
+    public void hasInstancesWithStatus_returnsWhetherAnyInstanceHasOneOfTheStatuses() {
+        InstancesRepository instancesRepository = buildSubject();
+        assertThat(instancesRepository.hasInstancesWithStatus(Instance.STATUS_COMPLETE), is(false));
+
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).status(Instance.STATUS_SUBMITTED).build());
+        assertThat(instancesRepository.hasInstancesWithStatus(Instance.STATUS_COMPLETE), is(false));
+        assertThat(instancesRepository.hasInstancesWithStatus(Instance.STATUS_COMPLETE, Instance.STATUS_SUBMITTED), is(true));
+    }
+
+    @Test
+    public void getLastStatusChangeDateByStatus_returnsLatestDateForInstancesWithOneOfTheStatuses() {
+        InstancesRepository instancesRepository = buildSubject();
+        assertThat(instancesRepository.getLastStatusChangeDateByStatus(Instance.STATUS_SUBMITTED), is(nullValue()));
+
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).status(Instance.STATUS_SUBMITTED).lastStatusChangeDate(1L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).status(Instance.STATUS_SUBMITTED).lastStatusChangeDate(3L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).status(Instance.STATUS_COMPLETE).lastStatusChangeDate(5L).build());
+
+        assertThat(instancesRepository.getLastStatusChangeDateByStatus(Instance.STATUS_SUBMITTED), is(3L));
+        assertThat(instancesRepository.getLastStatusChangeDateByStatus(Instance.STATUS_SUBMITTED, Instance.STATUS_COMPLETE), is(5L));
+    }
+
     @Test
     public void getAllByFormId_includesAllVersionsForFormId() {
         InstancesRepository instancesRepository = buildSubject();
@@ -150,6 +218,26 @@ public abstract class InstancesRepositoryTest {
         assertThat(instances.size(), is(3));
     }
 
+    @Test
+    public void getLastStatusChangeDatesByFormVersion_returnsLatestDateForEachFormVersion() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).lastStatusChangeDate(1L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).lastStatusChangeDate(3L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "2", getInstancesDir()).lastStatusChangeDate(2L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", null, getInstancesDir()).lastStatusChangeDate(4L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid2", "1", "display", Instance.STATUS_COMPLETE, System.currentTimeMillis(), getInstancesDir())
+                .lastStatusChangeDate(5L)
+                .build());
+
+        Map<FormVersion, Long> dates = instancesRepository.getLastStatusChangeDatesByFormVersion();
+        assertThat(dates.size(), is(4));
+        assertThat(dates.get(new FormVersion("formid", "1")), is(3L));
+        assertThat(dates.get(new FormVersion("formid", "2")), is(2L));
+        assertThat(dates.get(new FormVersion("formid", null)), is(4L));
+        assertThat(dates.get(new FormVersion("formid2", "1")), is(5L));
+    }
+
     @Test
     public void deleteAll_deletesAllInstances() {
         InstancesRepository instancesRepository = buildSubject();
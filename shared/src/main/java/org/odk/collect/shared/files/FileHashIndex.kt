@@ -0,0 +1,137 @@
+package org.odk.collect.shared.files
+
+import org.odk.collect.shared.strings.Md5
+import java.io.File
+import java.io.FileWriter
+import java.io.IOException
+
+/**
+ * Remembers the MD5 hash of files keyed by their path, length and last modified time so that
+ * unchanged files never need to be read again to be hashed.
+ *
+ * If [indexFile] is provided, entries are persisted as an append-only log which is compacted once
+ * it contains more superseded entries than live ones.
+ */
+class FileHashIndex(private val indexFile: File?) {
+
+    private val lock = Any()
+    private val entries = HashMap<String, Entry>()
+    private var loaded = false
+    private var logLines = 0
+
+    /**
+     * Can be called from multiple threads at once. Files are hashed outside of the lock so only
+     * reading and updating the index is serialized.
+     */
+    fun getMd5Hash(file: File): String? {
+        val path = file.absolutePath
+        val length = file.length()
+        val lastModified = file.lastModified()
+
+        synchronized(lock) {
+            load()
+
+            val entry = entries[path]
+            if (entry != null && entry.length == length && entry.lastModified == lastModified) {
+                return entry.md5
+            }
+        }
+
+        val md5 = Md5.getMd5Hash(file)
+
+        synchronized(lock) {
+            if (md5 != null) {
+                val newEntry = Entry(length, lastModified, md5)
+                entries[path] = newEntry
+                persist(path, newEntry)
+            } else {
+                entries.remove(path)
+            }
+        }
+
+        return md5
+    }
+
+    private fun load() {
+        if (loaded) {
+            return
+        }
+
+        loaded = true
+        if (indexFile == null || !indexFile.exists()) {
+            return
+        }
+
+        try {
+            indexFile.forEachLine { line ->
+                val parts = line.split(SEPARATOR, limit = 4)
+                if (parts.size == 4) {
+                    val length = parts[0].toLongOrNull()
+                    val lastModified = parts[1].toLongOrNull()
+                    if (length != null && lastModified != null) {
+                        entries[parts[3]] = Entry(length, lastModified, parts[2])
+                        logLines++
+                    }
+                }
+            }
+        } catch (e: IOException) {
+            entries.clear()
+            logLines = 0
+        }
+
+        pruneMissingFiles()
+    }
+
+    /**
+     * Drops entries for files that have been deleted. They stay in the log until the next
+     * compaction.
+     */
+    private fun pruneMissingFiles() {
+        entries.keys.removeAll { !File(it).exists() }
+    }
+
+    private fun persist(path: String, entry: Entry) {
+        if (indexFile == null) {
+            return
+        }
+
+        try {
+            if (logLines > COMPACTION_THRESHOLD && logLines > entries.size * 2) {
+                compact()
+            } else {
+                FileWriter(indexFile, true).use {
+                    it.write(toLine(path, entry))
+                }
+                logLines++
+            }
+        } catch (e: IOException) {
+            // The index is only an optimization so failing to write it is not fatal
+        }
+    }
+
+    private fun compact() {
+        pruneMissingFiles()
+
+        val tempFile = File(indexFile!!.parentFile, indexFile.name + ".tmp")
+        FileWriter(tempFile).use { writer ->
+            entries.forEach { (path, entry) -> writer.write(toLine(path, entry)) }
+        }
+
+        if (tempFile.renameTo(indexFile)) {
+            logLines = entries.size
+        } else {
+            tempFile.delete()
+        }
+    }
+
+    private fun toLine(path: String, entry: Entry): String {
+        return "${entry.length}$SEPARATOR${entry.lastModified}$SEPARATOR${entry.md5}$SEPARATOR$path\n"
+    }
+
+    private data class Entry(val length: Long, val lastModified: Long, val md5: String)
+
+    companion object {
+        private const val SEPARATOR = "\t"
+        private const val COMPACTION_THRESHOLD = 100
+    }
+}
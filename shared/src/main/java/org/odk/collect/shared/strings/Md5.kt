@@ -33,7 +33,7 @@ object Md5 {
     @JvmOverloads
     fun getMd5Hash(inputStream: InputStream, bufSize: Int = 16 * 1024): String? {
         return try {
-            val md = MessageDigest.getInstance("MD5")
+            val md = newDigest()
             val buffer = ByteArray(bufSize)
             while (true) {
                 val result = inputStream.read(buffer, 0, bufSize)
@@ -42,16 +42,34 @@ object Md5 {
                 }
                 md.update(buffer, 0, result)
             }
-            val md5 = StringBuilder(BigInteger(1, md.digest()).toString(16))
-            while (md5.length < 32) {
-                md5.insert(0, "0")
-            }
             inputStream.close()
-            md5.toString()
+            toMd5Hash(md)
         } catch (e: NoSuchAlgorithmException) {
             null
         } catch (e: IOException) {
             null
         }
     }
+
+    /**
+     * Creates an MD5 [MessageDigest] for hashing content as it is streamed (with a
+     * [java.security.DigestInputStream] for example). Use [toMd5Hash] to get the hash.
+     */
+    @JvmStatic
+    @Throws(NoSuchAlgorithmException::class)
+    fun newDigest(): MessageDigest {
+        return MessageDigest.getInstance("MD5")
+    }
+
+    /**
+     * Completes the digest and formats it the same way as [getMd5Hash].
+     */
+    @JvmStatic
+    fun toMd5Hash(digest: MessageDigest): String {
+        val md5 = StringBuilder(BigInteger(1, digest.digest()).toString(16))
+        while (md5.length < 32) {
+            md5.insert(0, "0")
+        }
+        return md5.toString()
+    }
 }
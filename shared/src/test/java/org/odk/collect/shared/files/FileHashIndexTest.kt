@@ -0,0 +1,126 @@
+package org.odk.collect.shared.files
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.nullValue
+import org.junit.Test
+import org.odk.collect.shared.TempFiles
+import org.odk.collect.shared.strings.Md5
+import java.io.File
+
+class FileHashIndexTest {
+
+    private val directory = TempFiles.createTempDir()
+
+    @Test
+    fun getMd5Hash_returnsHashOfFile() {
+        val file = createFile("Hello, world")
+
+        val index = FileHashIndex(null)
+        assertThat(index.getMd5Hash(file), equalTo("bc6e6f16b8a077ef5fbc8d59d0b931b9"))
+    }
+
+    @Test
+    fun getMd5Hash_whenFileDoesNotExist_returnsNull() {
+        val index = FileHashIndex(null)
+        assertThat(index.getMd5Hash(File(directory, "missing")), nullValue())
+    }
+
+    @Test
+    fun getMd5Hash_whenFileIsUnchanged_doesNotRehashFile() {
+        val file = createFile("Hello, world")
+        val index = FileHashIndex(null)
+        val hash = index.getMd5Hash(file)
+
+        rewriteKeepingLengthAndLastModified(file, "Hello, WORLD")
+        assertThat(index.getMd5Hash(file), equalTo(hash))
+    }
+
+    @Test
+    fun getMd5Hash_whenFileLengthChanges_rehashesFile() {
+        val file = createFile("Hello, world")
+        val index = FileHashIndex(null)
+        index.getMd5Hash(file)
+
+        val lastModified = file.lastModified()
+        file.writeText("Hello, world!")
+        file.setLastModified(lastModified)
+        assertThat(index.getMd5Hash(file), equalTo(Md5.getMd5Hash(file)))
+    }
+
+    @Test
+    fun getMd5Hash_whenFileLastModifiedChanges_rehashesFile() {
+        val file = createFile("Hello, world")
+        val index = FileHashIndex(null)
+        index.getMd5Hash(file)
+
+        file.writeText("Hello, WORLD")
+        file.setLastModified(file.lastModified() + 2000)
+        assertThat(index.getMd5Hash(file), equalTo(Md5.getMd5Hash(file)))
+    }
+
+    @Test
+    fun getMd5Hash_withIndexFile_usesHashesFromPreviousInstances() {
+        val indexFile = File(directory, "index")
+        val file = createFile("Hello, world")
+        val hash = FileHashIndex(indexFile).getMd5Hash(file)
+
+        rewriteKeepingLengthAndLastModified(file, "Hello, WORLD")
+        assertThat(FileHashIndex(indexFile).getMd5Hash(file), equalTo(hash))
+    }
+
+    @Test
+    fun getMd5Hash_withIndexFile_keepsLatestHashAfterCompaction() {
+        val indexFile = File(directory, "index")
+        val file = createFile("Hello, world")
+        val index = FileHashIndex(indexFile)
+
+        repeat(250) {
+            file.writeText("Hello, world $it")
+            file.setLastModified(it * 2000L)
+            index.getMd5Hash(file)
+        }
+
+        rewriteKeepingLengthAndLastModified(file, "Hello, WORLD 249")
+        assertThat(FileHashIndex(indexFile).getMd5Hash(file), equalTo(Md5.getMd5Hash("Hello, world 249")))
+    }
+
+    @Test
+    fun getMd5Hash_withIndexFile_dropsDeletedFilesWhenCompacting() {
+        val indexFile = File(directory, "index")
+        val deletedFile = createFile("Deleted")
+        FileHashIndex(indexFile).getMd5Hash(deletedFile)
+        deletedFile.delete()
+
+        val file = createFile("Hello, world")
+        val index = FileHashIndex(indexFile)
+        repeat(250) {
+            file.writeText("Hello, world $it")
+            file.setLastModified(it * 2000L)
+            index.getMd5Hash(file)
+        }
+
+        assertThat(indexFile.readText().contains(deletedFile.absolutePath), equalTo(false))
+    }
+
+    @Test
+    fun getMd5Hash_fromMultipleThreads_returnsHashOfEachFile() {
+        val index = FileHashIndex(File(directory, "index"))
+        val files = (0 until 20).map { createFile("File $it") }
+
+        val hashes = files.parallelStream().map { index.getMd5Hash(it) }.toList()
+        assertThat(hashes, equalTo(files.map { Md5.getMd5Hash(it) }))
+    }
+
+    private fun createFile(contents: String): File {
+        return TempFiles.createTempFile(directory).also {
+            it.writeText(contents)
+        }
+    }
+
+    private fun rewriteKeepingLengthAndLastModified(file: File, contents: String) {
+        val lastModified = file.lastModified()
+        file.writeText(contents)
+        file.setLastModified(lastModified)
+    }
+}
@@ -23,6 +23,8 @@ class FakeScheduler : Scheduler {
 
     override fun networkDeferred(tag: String, spec: TaskSpec, inputData: Map<String, String>) {}
 
+    override fun deferred(tag: String, spec: TaskSpec, inputData: Map<String, String>) {}
+
     override fun networkDeferred(
         tag: String,
         taskSpec: TaskSpec,